@@ -6,6 +6,10 @@
  */
 package com.development.commons.tools;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * BASE64Encoder -- minimal drop in replacement for sun.misc.BASE64Encoder. It is meant to allow us to get off the
  * proprietary sun version since the JDK6 compiler complains about it. The signature of this class allows us to update
@@ -19,12 +23,28 @@ public class BASE64Encoder {
   private static final int CHARS_PER_ATOM = 4;
   private static final int BYTES_PER_ATOM = 3;
   private static final int BYTES_PER_LINE = 57;
+  private static final int CHARS_PER_LINE = BYTES_PER_LINE / BYTES_PER_ATOM * CHARS_PER_ATOM + 1;
+
+  /**
+   * Inputs at least this long are encoded on the common ForkJoinPool by encode(byte[]) and encodeToBytes(byte[]).
+   */
+  private static final int PARALLEL_THRESHOLD = 1 << 20;
+
+  /**
+   * The fewest lines encoded by one task (about 64K of input).
+   */
+  private static final int MIN_LINES_PER_TASK = 1150;
+
+  /**
+   * The number of tasks created per thread of the pool, to even out the load.
+   */
+  private static final int TASKS_PER_THREAD = 4;
 
-  private static final char[] ALPHABET = ("ABCDEFGHIJKLMNOP" //
+  private static final byte[] ALPHABET = ("ABCDEFGHIJKLMNOP" //
       + "QRSTUVWXYZabcdef" //
       + "ghijklmnopqrstuv" //
       + "wxyz0123456789+/" //
-  ).toCharArray();
+  ).getBytes(StandardCharsets.US_ASCII);
 
   /**
    * Encodes a byte array to a base-64 string.
@@ -34,59 +54,133 @@ public class BASE64Encoder {
    * @return the base-64 encoded form of input
    */
   public String encode(final byte[] input) {
-    final int length = input.length;
-
-    // pre-allocate exactly enough space in the output buffer
-    final StringBuilder out = new StringBuilder((BYTES_PER_ATOM - 1 + length) / BYTES_PER_ATOM * CHARS_PER_ATOM);
+    return toString(encodeToBytes(input));
+  }
 
-    int offset = 0;
+  /**
+   * Encodes a byte array to a base-64 string, splitting the work over <code>pool</code>.
+   *
+   * @param input
+   *          the array to encode
+   * @param pool
+   *          the pool to run on
+   * @return the base-64 encoded form of input
+   */
+  public String encode(final byte[] input, final ForkJoinPool pool) {
+    return toString(encodeToBytes(input, pool));
+  }
 
-    while (offset + BYTES_PER_LINE < length) {
-      for (final int max = offset + BYTES_PER_LINE; offset < max; offset += BYTES_PER_ATOM) {
-        encodeAtom(out, input, offset);
-      }
-      out.append('\n');
+  /**
+   * Encodes a byte array to base-64 ASCII bytes, without creating a String. The output is the same as the characters
+   * of encode(input).
+   *
+   * @param input
+   *          the array to encode
+   * @return the base-64 encoded form of input
+   */
+  public byte[] encodeToBytes(final byte[] input) {
+    if (input.length >= PARALLEL_THRESHOLD) {
+      return encodeToBytes(input, ForkJoinPool.commonPool());
     }
 
-    for (; offset + BYTES_PER_ATOM <= length; offset += BYTES_PER_ATOM) {
-      encodeAtom(out, input, offset);
-    }
+    final byte[] out = new byte[encodedLength(input.length)];
+    encodeLines(input, 0, lineCount(input.length), out);
+    return out;
+  }
 
-    if (offset < length) {
-      encodeAtom(out, input, offset, length - offset);
+  /**
+   * Encodes a byte array to base-64 ASCII bytes, splitting the work over <code>pool</code>. Each output line encodes
+   * a fixed 57 bytes of input, so the input is split at line boundaries and each task writes its lines straight into
+   * their final place in the output.
+   *
+   * @param input
+   *          the array to encode
+   * @param pool
+   *          the pool to run on
+   * @return the base-64 encoded form of input
+   */
+  public byte[] encodeToBytes(final byte[] input, final ForkJoinPool pool) {
+    final byte[] out = new byte[encodedLength(input.length)];
+    final int lines = lineCount(input.length);
+    final int linesPerTask = Math.max(MIN_LINES_PER_TASK, lines / (pool.getParallelism() * TASKS_PER_THREAD));
+
+    if (lines <= linesPerTask) {
+      encodeLines(input, 0, lines, out);
+    } else {
+      pool.invoke(new EncodeTask(input, 0, lines, linesPerTask, out));
     }
+    return out;
+  }
 
-    return out.toString();
+  private static String toString(final byte[] encoded) {
+    return new String(encoded, StandardCharsets.ISO_8859_1);
   }
 
-  private void encodeAtom(final StringBuilder out, final byte[] data, final int offset) {
-    final int v = (((data[offset] & 0xff) << 16) | ((data[offset + 1] & 0xff) << 8) | ((data[offset + 2] & 0xff)));
+  private static int lineCount(final int length) {
+    return length == 0 ? 0 : (length - 1) / BYTES_PER_LINE + 1;
+  }
 
-    out.append(ALPHABET[(v >>> 18) & 0x3f]).append(ALPHABET[(v >>> 12) & 0x3f]).append(ALPHABET[(v >>> 6) & 0x3f])
-        .append(ALPHABET[v & 0x3f]);
+  /**
+   * Returns the length of the encoding, a newline terminating every line but the last.
+   */
+  private static int encodedLength(final int length) {
+    final long chars = (length + (long) BYTES_PER_ATOM - 1) / BYTES_PER_ATOM * CHARS_PER_ATOM
+        + Math.max(0, lineCount(length) - 1);
+    if (chars > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("input too large to encode: " + length + " bytes");
+    }
+    return (int) chars;
   }
 
-  private void encodeAtom(final StringBuilder out, final byte[] data, final int offset, final int len) {
-    byte a, b;
+  /**
+   * Encodes the lines <code>[fromLine, toLine)</code> of input into their place in <code>out</code>.
+   */
+  private static void encodeLines(final byte[] input, final int fromLine, final int toLine, final byte[] out) {
+    final int length = input.length;
+    final byte[] alphabet = ALPHABET;
+    int offset = fromLine * BYTES_PER_LINE;
+    int o = fromLine * CHARS_PER_LINE;
 
-    switch (len) {
-    case 0:
-      break;
+    for (int line = fromLine; line < toLine; ++line) {
+      final int end = Math.min(offset + BYTES_PER_LINE, length);
+
+      for (; offset + BYTES_PER_ATOM <= end; offset += BYTES_PER_ATOM) {
+        final int v = ((input[offset] & 0xff) << 16) | ((input[offset + 1] & 0xff) << 8) | (input[offset + 2] & 0xff);
+
+        out[o] = alphabet[(v >>> 18) & 0x3f];
+        out[o + 1] = alphabet[(v >>> 12) & 0x3f];
+        out[o + 2] = alphabet[(v >>> 6) & 0x3f];
+        out[o + 3] = alphabet[v & 0x3f];
+        o += CHARS_PER_ATOM;
+      }
 
+      if (end < length) {
+        out[o++] = '\n';
+      } else if (offset < end) {
+        encodePartialAtom(input, offset, end - offset, out, o);
+        offset = end;
+      }
+    }
+  }
+
+  private static void encodePartialAtom(final byte[] data, final int offset, final int len, final byte[] out,
+      final int o) {
+    final int a = data[offset] & 0xff;
+
+    switch (len) {
     case 1:
-      a = data[offset];
-      out.append(ALPHABET[(a >>> 2) & 0x3f]).append(ALPHABET[(a << 4) & 0x30]).append('=').append('=');
+      out[o] = ALPHABET[a >>> 2];
+      out[o + 1] = ALPHABET[(a << 4) & 0x30];
+      out[o + 2] = '=';
+      out[o + 3] = '=';
       break;
 
     case 2:
-      a = data[offset];
-      b = data[offset + 1];
-      out.append(ALPHABET[(a >>> 2) & 0x3f]).append(ALPHABET[((a << 4) & 0x30) + ((b >>> 4) & 0xf)])
-          .append(ALPHABET[((b << 2) & 0x3c)]).append('=');
-      break;
-
-    case BYTES_PER_ATOM:
-      encodeAtom(out, data, offset);
+      final int b = data[offset + 1] & 0xff;
+      out[o] = ALPHABET[a >>> 2];
+      out[o + 1] = ALPHABET[((a << 4) & 0x30) + (b >>> 4)];
+      out[o + 2] = ALPHABET[(b << 2) & 0x3c];
+      out[o + 3] = '=';
       break;
 
     default:
@@ -94,4 +188,36 @@ public class BASE64Encoder {
     }
   }
 
+  /**
+   * Encodes a range of lines, splitting it in halves down to <code>linesPerTask</code>.
+   */
+  private static final class EncodeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final byte[] _input;
+    private final int _fromLine;
+    private final int _toLine;
+    private final int _linesPerTask;
+    private final byte[] _out;
+
+    EncodeTask(final byte[] input, final int fromLine, final int toLine, final int linesPerTask, final byte[] out) {
+      _input = input;
+      _fromLine = fromLine;
+      _toLine = toLine;
+      _linesPerTask = linesPerTask;
+      _out = out;
+    }
+
+    @Override
+    protected void compute() {
+      if (_toLine - _fromLine <= _linesPerTask) {
+        encodeLines(_input, _fromLine, _toLine, _out);
+      } else {
+        final int middle = _fromLine + (_toLine - _fromLine) / 2;
+        invokeAll(new EncodeTask(_input, _fromLine, middle, _linesPerTask, _out),
+            new EncodeTask(_input, middle, _toLine, _linesPerTask, _out));
+      }
+    }
+  }
+
 } // BASE64Encoder
@@ -0,0 +1,560 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2004 SuccessFactors, Inc.
+ * All Rights Reserved
+ */
+package com.development.commons.tools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * <p>
+ * Base64Codec -- encodes and decodes Base64 between ByteBuffers, for use with NIO channels and direct buffers. The
+ * output and accepted input are the same as those of Base64OutputStream and Base64InputStream configured with the same
+ * alphabet, terminal and line size.
+ * </p>
+ *
+ * <p>
+ * The codec itself is immutable and may be shared. Its Encoder and Decoder carry the state of a partial atom between
+ * calls, like a CharsetEncoder, so each stream needs its own.
+ * </p>
+ *
+ * @author Jeffrey Ichnowski
+ * @version $Revision$
+ */
+// CHECKSTYLE.OFF: MagicNumber - Fixing these does not make the code more readable
+public final class Base64Codec {
+  /**
+   * The size of the buffers used by the channel adapters.
+   */
+  private static final int CHANNEL_BUFFER_SIZE = 8192;
+
+  /**
+   * A codec using the default alphabet, terminal and line size.
+   */
+  public static final Base64Codec DEFAULT = new Base64Codec(Base64OutputStream.DEFAULT_ALPHABET,
+      Base64OutputStream.DEFAULT_TERMINAL, Base64OutputStream.DEFAULT_LINESIZE);
+
+  private final byte[] _alphabet;
+
+  private final short[] _inverseAlphabet;
+
+  private final byte _terminal;
+
+  private final int _lineSize;
+
+  /**
+   * Creates a codec.
+   *
+   * @param alphabet
+   *          - the 64 characters of the Base64 alphabet
+   * @param terminal
+   *          - the character used to pad the final atom
+   * @param lineSize
+   *          - the encoder breaks lines once they are at least this long. Use Integer.MAX_VALUE for no line breaks.
+   * @throws IllegalArgumentException
+   *           - if the alphabet is bad or the line size is not positive.
+   */
+  public Base64Codec(final byte[] alphabet, final byte terminal, final int lineSize) {
+    if (lineSize <= 0) {
+      throw new IllegalArgumentException("Bad line size, must be positive (was " + lineSize + ")");
+    }
+    _inverseAlphabet = Base64InputStream.invertAlphabet(alphabet, terminal);
+    _alphabet = alphabet.clone();
+    _terminal = terminal;
+    _lineSize = lineSize;
+  }
+
+  /**
+   * Returns the exact number of bytes the encoding of <code>length</code> bytes takes, including line breaks.
+   *
+   * @param length
+   *          - the number of bytes to encode
+   * @return the encoded length
+   */
+  public long encodedLength(final long length) {
+    final long atoms = (length + 2) / 3;
+    final long atomsPerLine = (_lineSize + 3) / 4;
+    return atoms * 4 + atoms / atomsPerLine;
+  }
+
+  /**
+   * Encodes the remaining bytes of <code>src</code> into a new heap buffer, terminating the encoding.
+   *
+   * @param src
+   *          - the bytes to encode, consumed by this call
+   * @return the encoded bytes, ready to be read
+   */
+  public ByteBuffer encode(final ByteBuffer src) {
+    final ByteBuffer dst = ByteBuffer.allocate((int) encodedLength(src.remaining()));
+    final Encoder encoder = newEncoder();
+    encoder.encode(src, dst);
+    encoder.finish(dst);
+    dst.flip();
+    return dst;
+  }
+
+  /**
+   * Decodes the remaining bytes of <code>src</code> into a new heap buffer.
+   *
+   * @param src
+   *          - the Base64 encoded bytes, consumed by this call
+   * @return the decoded bytes, ready to be read
+   * @throws Base64EncodingException
+   *           - if the input is corrupt or ends within an atom
+   */
+  public ByteBuffer decode(final ByteBuffer src) throws Base64EncodingException {
+    final ByteBuffer dst = ByteBuffer.allocate(src.remaining() / 4 * 3);
+    final Decoder decoder = newDecoder();
+    decoder.decode(src, dst);
+    decoder.finish();
+    dst.flip();
+    return dst;
+  }
+
+  /**
+   * @return a new Encoder for one stream of bytes.
+   */
+  public Encoder newEncoder() {
+    return new Encoder();
+  }
+
+  /**
+   * @return a new Decoder for one stream of Base64.
+   */
+  public Decoder newDecoder() {
+    return new Decoder();
+  }
+
+  /**
+   * Returns a channel that encodes the bytes written to it onto <code>out</code>. The output is buffered; closing the
+   * channel terminates the encoding, writes out the buffer and closes <code>out</code>. <code>out</code> must be in
+   * blocking mode.
+   *
+   * @param out
+   *          - the channel receiving the Base64 encoding
+   * @return the encoding channel
+   */
+  public WritableByteChannel newEncodingChannel(final WritableByteChannel out) {
+    return new EncodingChannel(out, newEncoder());
+  }
+
+  /**
+   * Returns a channel that reads the decoding of the Base64 read from <code>in</code>. It reaches end of stream at the
+   * end of <code>in</code> or after the padded final atom.
+   *
+   * @param in
+   *          - the channel supplying the Base64 encoding
+   * @return the decoding channel
+   */
+  public ReadableByteChannel newDecodingChannel(final ReadableByteChannel in) {
+    return new DecodingChannel(in, newDecoder());
+  }
+
+  /**
+   * Encoder -- encodes a stream of bytes passed in one or more buffers. The bytes of an incomplete atom are held until
+   * the next call to encode() or finish().
+   */
+  public final class Encoder {
+    private int _accum;
+
+    private int _byteNo;
+
+    private int _colNo;
+
+    Encoder() {
+    }
+
+    /**
+     * Encodes as much of <code>src</code> as fits into <code>dst</code>. Returns when <code>src</code> is exhausted
+     * or <code>dst</code> has no room for the next atom, which takes at most 5 bytes.
+     *
+     * @param src
+     *          - the bytes to encode
+     * @param dst
+     *          - receives the encoding
+     */
+    public void encode(final ByteBuffer src, final ByteBuffer dst) {
+      final byte[] alphabet = _alphabet;
+      final int sl = src.limit();
+      final int dl = dst.limit();
+      int sp = src.position();
+      int dp = dst.position();
+
+      while (sp < sl) {
+        if (_byteNo == 0 && sp + 3 <= sl) {
+          // whole atoms straight from the source
+          if (dp + atomSize() > dl) {
+            break;
+          }
+          final int accum = ((src.get(sp) & 0xff) << 16) | ((src.get(sp + 1) & 0xff) << 8) | (src.get(sp + 2) & 0xff);
+          sp += 3;
+          dst.put(dp + 0, alphabet[(accum >>> 18) & 0x3f]);
+          dst.put(dp + 1, alphabet[(accum >>> 12) & 0x3f]);
+          dst.put(dp + 2, alphabet[(accum >>> 6) & 0x3f]);
+          dst.put(dp + 3, alphabet[(accum >>> 0) & 0x3f]);
+          dp = endAtom(dst, dp + 4);
+          continue;
+        }
+
+        if (_byteNo == 2 && dp + atomSize() > dl) {
+          break;
+        }
+
+        _accum |= (src.get(sp++) & 0xff) << (16 - 8 * _byteNo);
+        if (++_byteNo == 3) {
+          dst.put(dp + 0, alphabet[(_accum >>> 18) & 0x3f]);
+          dst.put(dp + 1, alphabet[(_accum >>> 12) & 0x3f]);
+          dst.put(dp + 2, alphabet[(_accum >>> 6) & 0x3f]);
+          dst.put(dp + 3, alphabet[(_accum >>> 0) & 0x3f]);
+          dp = endAtom(dst, dp + 4);
+          _accum = 0;
+          _byteNo = 0;
+        }
+      }
+
+      src.position(sp);
+      dst.position(dp);
+    }
+
+    /**
+     * @return the room the next atom takes, including a line break.
+     */
+    private int atomSize() {
+      return _colNo + 4 >= _lineSize ? 5 : 4;
+    }
+
+    private int endAtom(final ByteBuffer dst, final int dp) {
+      _colNo += 4;
+      if (_colNo >= _lineSize) {
+        _colNo = 0;
+        dst.put(dp, (byte) '\n');
+        return dp + 1;
+      }
+      return dp;
+    }
+
+    /**
+     * Terminates the encoding by writing out a partial atom padded with the terminal. The encoder may then be reused.
+     *
+     * @param dst
+     *          - receives the final atom
+     * @return false if <code>dst</code> has no room for the final atom, in which case nothing was written.
+     */
+    public boolean finish(final ByteBuffer dst) {
+      if (_byteNo == 0) {
+        return true;
+      }
+      int dp = dst.position();
+      if (dp + atomSize() > dst.limit()) {
+        return false;
+      }
+
+      dst.put(dp + 0, _alphabet[(_accum >>> 18) & 0x3f]);
+      dst.put(dp + 1, _alphabet[(_accum >>> 12) & 0x3f]);
+      dst.put(dp + 2, _byteNo == 2 ? _alphabet[(_accum >>> 6) & 0x3f] : _terminal);
+      dst.put(dp + 3, _terminal);
+      dp = endAtom(dst, dp + 4);
+      dst.position(dp);
+      reset();
+      return true;
+    }
+
+    /**
+     * Discards any partial atom and starts a new line.
+     */
+    public void reset() {
+      _accum = 0;
+      _byteNo = 0;
+      _colNo = 0;
+    }
+  }
+
+  /**
+   * Decoder -- decodes a stream of Base64 passed in one or more buffers. Line breaks between atoms are skipped. An
+   * incomplete atom, or decoded bytes that did not fit the destination, are held until the next call.
+   */
+  public final class Decoder {
+    private int _accum;
+
+    /**
+     * The number of characters of the current atom seen
+     */
+    private int _count;
+
+    /**
+     * The number of terminals in the current atom
+     */
+    private int _padding;
+
+    /**
+     * The decoded bytes of the last atom, and the next one to write out
+     */
+    private int _available;
+
+    private int _next;
+
+    /**
+     * Set once the padded final atom has been read
+     */
+    private boolean _terminated;
+
+    Decoder() {
+    }
+
+    /**
+     * Decodes as much of <code>src</code> as fits into <code>dst</code>. Returns when <code>src</code> is exhausted,
+     * <code>dst</code> is full, or the final atom has been decoded.
+     *
+     * @param src
+     *          - the Base64 encoded bytes
+     * @param dst
+     *          - receives the decoded bytes
+     * @throws Base64EncodingException
+     *           - if the input is corrupt
+     */
+    public void decode(final ByteBuffer src, final ByteBuffer dst) throws Base64EncodingException {
+      final short[] inverseAlphabet = _inverseAlphabet;
+      final int terminal = _terminal & 0xff;
+      final int sl = src.limit();
+      final int dl = dst.limit();
+      int sp = src.position();
+      int dp = dst.position();
+
+      try {
+        for (;;) {
+          // write out what is left of the last atom
+          while (_next < _available) {
+            if (dp == dl) {
+              return;
+            }
+            dst.put(dp++, (byte) (_accum >>> (16 - 8 * _next++)));
+          }
+
+          if (_terminated || sp == sl) {
+            return;
+          }
+
+          if (_count == 0) {
+            // whole atoms straight to the destination, until a line break, a terminal or corrupt input
+            while (sp + 4 <= sl && dp + 3 <= dl) {
+              final int c3 = src.get(sp + 2) & 0xff;
+              final int c4 = src.get(sp + 3) & 0xff;
+              final int accum = (inverseAlphabet[src.get(sp) & 0xff] << 18)
+                  | (inverseAlphabet[src.get(sp + 1) & 0xff] << 12) | (inverseAlphabet[c3] << 6) | inverseAlphabet[c4];
+
+              if (accum < 0 || c3 == terminal || c4 == terminal) {
+                break;
+              }
+
+              sp += 4;
+              dst.put(dp + 0, (byte) (accum >>> 16));
+              dst.put(dp + 1, (byte) (accum >>> 8));
+              dst.put(dp + 2, (byte) accum);
+              dp += 3;
+            }
+
+            if (sp == sl) {
+              return;
+            }
+          }
+
+          // one character at a time
+          final int c = src.get(sp) & 0xff;
+          if (_count == 0) {
+            if (c == '\n' || c == '\r') {
+              ++sp;
+              continue;
+            }
+            _accum = 0;
+            _padding = 0;
+          }
+
+          if (c == terminal) {
+            if (_count < 2) {
+              throw new Base64EncodingException("stream corrupted, misplaced base-64 terminal");
+            }
+            ++_padding;
+          } else if (inverseAlphabet[c] < 0 || _padding > 0) {
+            throw new Base64EncodingException("stream corrupted, invalid base-64 sequence");
+          } else {
+            _accum |= inverseAlphabet[c] << (18 - 6 * _count);
+          }
+          ++sp;
+
+          if (++_count == 4) {
+            _count = 0;
+            _available = 3 - _padding;
+            _next = 0;
+            _terminated = _padding > 0;
+          }
+        }
+      } finally {
+        src.position(sp);
+        dst.position(dp);
+      }
+    }
+
+    /**
+     * @return true once the padded final atom has been decoded and written out. Any further input is ignored.
+     */
+    public boolean isTerminated() {
+      return _terminated && _next == _available;
+    }
+
+    /**
+     * Checks that the input did not end within an atom, then resets the decoder for reuse.
+     *
+     * @throws Base64EncodingException
+     *           - if the input ended within an atom
+     */
+    public void finish() throws Base64EncodingException {
+      final boolean truncated = _count != 0;
+      reset();
+      if (truncated) {
+        throw new Base64EncodingException("stream truncated, incomplete base-64 sequence");
+      }
+    }
+
+    /**
+     * Discards all state.
+     */
+    public void reset() {
+      _accum = 0;
+      _count = 0;
+      _padding = 0;
+      _available = 0;
+      _next = 0;
+      _terminated = false;
+    }
+  }
+
+  /**
+   * Buffers the encoding written to the underlying channel.
+   */
+  private static final class EncodingChannel implements WritableByteChannel {
+    private final WritableByteChannel _out;
+
+    private final Encoder _encoder;
+
+    private final ByteBuffer _buffer = ByteBuffer.allocateDirect(CHANNEL_BUFFER_SIZE);
+
+    private boolean _open = true;
+
+    EncodingChannel(final WritableByteChannel out, final Encoder encoder) {
+      _out = out;
+      _encoder = encoder;
+    }
+
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+      if (!_open) {
+        throw new ClosedChannelException();
+      }
+
+      final int n = src.remaining();
+      for (;;) {
+        _encoder.encode(src, _buffer);
+        if (!src.hasRemaining()) {
+          break;
+        }
+        flushBuffer();
+      }
+      return n;
+    }
+
+    private void flushBuffer() throws IOException {
+      _buffer.flip();
+      while (_buffer.hasRemaining()) {
+        _out.write(_buffer);
+      }
+      _buffer.clear();
+    }
+
+    @Override
+    public boolean isOpen() {
+      return _open;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (_open) {
+        _open = false;
+        if (!_encoder.finish(_buffer)) {
+          flushBuffer();
+          _encoder.finish(_buffer);
+        }
+        flushBuffer();
+        _out.close();
+      }
+    }
+  }
+
+  /**
+   * Buffers the encoding read from the underlying channel.
+   */
+  private static final class DecodingChannel implements ReadableByteChannel {
+    private final ReadableByteChannel _in;
+
+    private final Decoder _decoder;
+
+    private final ByteBuffer _buffer = ByteBuffer.allocateDirect(CHANNEL_BUFFER_SIZE);
+
+    private boolean _eof;
+
+    private boolean _open = true;
+
+    DecodingChannel(final ReadableByteChannel in, final Decoder decoder) {
+      _in = in;
+      _decoder = decoder;
+      _buffer.limit(0);
+    }
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+      if (!_open) {
+        throw new ClosedChannelException();
+      }
+
+      final int start = dst.position();
+      while (dst.hasRemaining() && !_decoder.isTerminated()) {
+        _decoder.decode(_buffer, dst);
+        if (dst.position() > start || _decoder.isTerminated() || _eof) {
+          break;
+        }
+
+        _buffer.compact();
+        final int n = _in.read(_buffer);
+        _buffer.flip();
+        if (n == -1) {
+          _eof = true;
+          _decoder.finish();
+        } else if (n == 0) {
+          break;
+        }
+      }
+
+      final int n = dst.position() - start;
+      return n == 0 && dst.hasRemaining() && (_eof || _decoder.isTerminated()) ? -1 : n;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return _open;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (_open) {
+        _open = false;
+        _in.close();
+      }
+    }
+  }
+
+} // Base64Codec
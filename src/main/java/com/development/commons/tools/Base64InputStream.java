@@ -114,6 +114,25 @@ public class Base64InputStream extends FilterInputStream {
     _buffer = new byte[1024];
   }
 
+  /**
+   * Creates a Base64InputStream wrapped around the specified InputStream, using an alternate alphabet and terminal.
+   *
+   * @param in
+   *          - an InputStream encoded in base-64 with the same alphabet
+   * @param alphabet
+   *          - the 64 characters of the Base64 alphabet
+   * @param terminal
+   *          - the character used to pad the final quad
+   * @throws IllegalArgumentException
+   *           - if the alphabet is bad.
+   */
+  public Base64InputStream(final InputStream in, final byte[] alphabet, final byte terminal) {
+    super(in);
+    _inverseAlphabet = invertAlphabet(alphabet, terminal);
+    _terminal = terminal;
+    _buffer = new byte[1024];
+  }
+
   /**
    * Returns an approximation of how many bytes can be read without blocking.
    *
@@ -212,12 +231,12 @@ public class Base64InputStream extends FilterInputStream {
           }
         }
 
-        c1 = _buffer[_offset++];
+        c1 = _buffer[_offset++] & 0xff;
       } while (c1 == '\n' || c1 == '\r');
 
-      final int c2 = _buffer[_offset + 0];
-      final int c3 = _buffer[_offset + 1];
-      final int c4 = _buffer[_offset + 2];
+      final int c2 = _buffer[_offset + 0] & 0xff;
+      final int c3 = _buffer[_offset + 1] & 0xff;
+      final int c4 = _buffer[_offset + 2] & 0xff;
 
       _offset += 3;
       _accum = (_inverseAlphabet[c1] << 18) | (_inverseAlphabet[c2] << 12) | (_inverseAlphabet[c3] << 6)
@@ -279,10 +298,39 @@ public class Base64InputStream extends FilterInputStream {
 
     final short[] inverseAlphabet = _inverseAlphabet;
     final byte[] buffer = _buffer;
+    final int terminal = _terminal & 0xff;
     int offset = _offset;
 
     // start the block-reads.
-    while (n + 3 < len) {
+    while (n + 3 <= len) {
+      // bulk decode the whole atoms already buffered.  Line breaks map
+      // to -1 in the inverse alphabet like any other invalid character,
+      // so a negative accumulator or a terminal stops the run and the
+      // atom is handed to the state machine below.
+      final int limit = _length - 4;
+      while (offset <= limit && n + 3 <= len) {
+        final int c3 = buffer[offset + 2] & 0xff;
+        final int c4 = buffer[offset + 3] & 0xff;
+        final int accum = (inverseAlphabet[buffer[offset] & 0xff] << 18)
+            | (inverseAlphabet[buffer[offset + 1] & 0xff] << 12) | (inverseAlphabet[c3] << 6) | (inverseAlphabet[c4]);
+
+        if (accum < 0 || c4 == terminal || c3 == terminal) {
+          break;
+        }
+
+        offset += 4;
+        b[off + n] = (byte) (accum >>> 16);
+        b[off + n + 1] = (byte) (accum >>> 8);
+        b[off + n + 2] = (byte) accum;
+        n += 3;
+      }
+
+      if (n + 3 > len) {
+        break;
+      }
+
+      // the state machine: refills the buffer and handles line breaks,
+      // padding and corrupt input one atom at a time.
       do {
         if (offset + 4 > _length) {
           _offset = offset;
@@ -292,12 +340,12 @@ public class Base64InputStream extends FilterInputStream {
           offset = 0;
         }
 
-        c1 = buffer[offset++];
+        c1 = buffer[offset++] & 0xff;
       } while (c1 == '\n' || c1 == '\r');
 
-      final int c2 = buffer[offset + 0];
-      final int c3 = buffer[offset + 1];
-      final int c4 = buffer[offset + 2];
+      final int c2 = buffer[offset + 0] & 0xff;
+      final int c3 = buffer[offset + 1] & 0xff;
+      final int c4 = buffer[offset + 2] & 0xff;
 
       offset += 3;
       final int accum = (inverseAlphabet[c1] << 18) | (inverseAlphabet[c2] << 12) | (inverseAlphabet[c3] << 6)
@@ -309,7 +357,7 @@ public class Base64InputStream extends FilterInputStream {
 
       b[off + n++] = (byte) (accum >>> 16);
 
-      if (c3 != _terminal) {
+      if (c3 != terminal) {
         b[off + n++] = (byte) (accum >>> 8);
       } else {
         _accum = accum;
@@ -318,7 +366,7 @@ public class Base64InputStream extends FilterInputStream {
         return n;
       }
 
-      if (c4 != _terminal) {
+      if (c4 != terminal) {
         b[off + n++] = (byte) (accum >>> 0);
       } else {
         _accum = accum;
@@ -98,6 +98,35 @@ public class Base64OutputStream extends FilterOutputStream {
     _buffer = new byte[1024];
   }
 
+  /**
+   * Creates a new Base64OutputStream that will write through to the specified OutputStream using an alternate
+   * alphabet, terminator, and line-size.
+   *
+   * @param out
+   *          - the OutputStream to which the Base64 encoded data is sent.
+   * @param alphabet
+   *          - the 64 characters of the Base64 alphabet
+   * @param terminal
+   *          - the character used to pad the final quad
+   * @param lineSize
+   *          - the line size, lines are broken once they are at least this long
+   * @throws IllegalArgumentException
+   *           - if the alphabet is bad or the line size is not positive.
+   */
+  public Base64OutputStream(final OutputStream out, final byte[] alphabet, final byte terminal, final int lineSize) {
+    super(out);
+    if (lineSize <= 0) {
+      throw new IllegalArgumentException("Bad line size, must be positive (was " + lineSize + ")");
+    }
+    // validates the alphabet
+    Base64InputStream.invertAlphabet(alphabet, terminal);
+    _alphabet = alphabet.clone();
+    _terminal = terminal;
+    _lineSize = lineSize;
+    _colNo = 0;
+    _buffer = new byte[1024];
+  }
+
   /**
    * Buffers and writes a single byte.
    *
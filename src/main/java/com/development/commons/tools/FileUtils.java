@@ -13,10 +13,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.Arrays;
 
 //import org.mozilla.universalchardet.UniversalDetector;
 
@@ -71,6 +75,27 @@ public class FileUtils {
      */
     public static final int UTF_16_BOM_BYTE_1 = 0x000000FE;
 
+    /**
+     * The most bytes the stream versions of the sniffing methods read ahead.
+     */
+    public static final int SNIFF_LENGTH = 512;
+
+    /**
+     * Enough bytes for a Byte-Order Mark and "&lt;?xml".
+     */
+    private static final int XML_SNIFF_LENGTH = 8;
+
+    private static final int BOM_SNIFF_LENGTH = 4;
+
+    private static final byte[] ENCODING_ATTRIBUTE = { 'e', 'n', 'c', 'o', 'd', 'i', 'n', 'g', '=' };
+
+    private static final byte[] QUOTE = { '"' };
+
+    /**
+     * The largest array the VM reliably allocates.
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
     private FileUtils() {
         super();
     }
@@ -150,10 +175,16 @@ public class FileUtils {
      *             if it happens
      */
     public static byte[] toBytes(final String fileName) throws IOException {
+        try {
+            return toBytes(new File(fileName));
+        } catch (final FileNotFoundException e) {
+//            logger.warn("Can't find file <" + fileName + "> with location " + FILE + ".  Try " + SYSTEM + "...");
+        }
+
         InputStream is = null;
         try {
 
-            is = toInputStream(fileName);
+            is = toInputStream(fileName, SYSTEM);
             return StringUtils.readFully(is);
 
         } catch (final IOException e) {
@@ -180,6 +211,10 @@ public class FileUtils {
      *             if it happens
      */
     public static byte[] toBytes(final String fileName, final int location) throws IOException {
+        if (SYSTEM != location) {
+            return toBytes(new File(fileName));
+        }
+
         InputStream is = null;
         try {
 
@@ -196,6 +231,95 @@ public class FileUtils {
         }
     }
 
+    /**
+     * Reads a file into a byte[] through its FileChannel. The array is sized from the file length, so the content is
+     * copied once, straight from the channel.
+     *
+     * @param file
+     *            the file to read
+     *
+     * @return the content of the file
+     *
+     * @throws FileNotFoundException
+     *             if the file does not exist or is not a regular file
+     * @throws IOException
+     *             if it happens
+     */
+    public static byte[] toBytes(final File file) throws IOException {
+        final FileInputStream in = new FileInputStream(file);
+        try {
+            final FileChannel channel = in.getChannel();
+            final long size = channel.size();
+            if (size > MAX_ARRAY_SIZE) {
+                throw new IOException("File too large to read into memory: " + file + " (" + size + " bytes)");
+            }
+
+            final byte[] data = new byte[(int) size];
+            final ByteBuffer buf = ByteBuffer.wrap(data);
+            while (buf.hasRemaining()) {
+                if (channel.read(buf) == -1) {
+                    // the file was truncated while reading
+                    return Arrays.copyOf(data, buf.position());
+                }
+            }
+
+            // the length is only a hint for files that are still growing, or for special files that report 0
+            final byte[] rest = StringUtils.readFully(in);
+            if (rest.length == 0) {
+                return data;
+            }
+            final byte[] all = Arrays.copyOf(data, data.length + rest.length);
+            System.arraycopy(rest, 0, all, data.length, rest.length);
+            return all;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Maps a file read-only into memory. The content is paged in by the operating system as it is read, so a large file
+     * is neither copied nor loaded up front. The mapping stays valid after this method returns and lasts until the buffer
+     * is garbage collected; on some platforms the file cannot be deleted until then.
+     *
+     * @param file
+     *            the file to map
+     *
+     * @return a read-only buffer over the whole file
+     *
+     * @throws FileNotFoundException
+     *             if the file does not exist or is not a regular file
+     * @throws IOException
+     *             if it happens, or the file is larger than 2GB
+     */
+    public static MappedByteBuffer map(final File file) throws IOException {
+        final FileInputStream in = new FileInputStream(file);
+        try {
+            final FileChannel channel = in.getChannel();
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large to map: " + file + " (" + size + " bytes)");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Returns an InputStream over a file mapped with map(File). Closing the stream does not unmap the file.
+     *
+     * @param fileName
+     *            File name
+     *
+     * @return InputStream object
+     *
+     * @throws IOException
+     *             if it happens
+     */
+    public static InputStream toMappedInputStream(final String fileName) throws IOException {
+        return new ByteBufferInputStream(map(new File(fileName)));
+    }
+
     /**
      * This method closes an InputStream object.
      *
@@ -434,6 +558,255 @@ public class FileUtils {
         return newData;
     }
 
+    /**
+     * Returns a stream that the stream versions of isXML, hasByteOrderMark, getEncodingFromXML, findFirstByte and
+     * removeByteOrderMark can peek into. They read at most SNIFF_LENGTH bytes and push them back, so the stream is never
+     * buffered whole.
+     *
+     * @param in
+     *            the stream to examine
+     *
+     * @return a PushbackInputStream over in, with room for SNIFF_LENGTH bytes
+     */
+    public static PushbackInputStream toSniffableStream(final InputStream in) {
+        return new PushbackInputStream(in, SNIFF_LENGTH);
+    }
+
+    /**
+     * Reads up to length bytes and pushes them back.
+     *
+     * @param in
+     *            a stream from toSniffableStream
+     * @param length
+     *            the number of bytes to peek at, at most SNIFF_LENGTH
+     *
+     * @return the bytes, fewer than length at the end of the stream
+     *
+     * @throws IOException
+     *             if it happens
+     */
+    public static ByteBuffer peek(final PushbackInputStream in, final int length) throws IOException {
+        final byte[] buf = new byte[length];
+        int n = 0;
+        int r;
+        while (n < length && (r = in.read(buf, n, length - n)) != -1) {
+            n += r;
+        }
+        if (n > 0) {
+            in.unread(buf, 0, n);
+        }
+        return ByteBuffer.wrap(buf, 0, n);
+    }
+
+    /**
+     * This method checks if the remaining bytes of "data" are XML.
+     *
+     * @param data
+     *            the buffer to be examined, from its position; not modified
+     *
+     * @return true if the data is XML; false otherwise
+     */
+    public static boolean isXML(final ByteBuffer data) {
+        final int p = data.position() + findFirstByte(data);
+        return data.limit() > p + 4 && data.get(p) == '<' && data.get(p + 1) == '?' && data.get(p + 2) == 'x'
+                && data.get(p + 3) == 'm' && data.get(p + 4) == 'l';
+    }
+
+    /**
+     * This method checks if a stream starts with XML, without consuming it.
+     *
+     * @param in
+     *            a stream from toSniffableStream
+     *
+     * @return true if the data is XML; false otherwise
+     *
+     * @throws IOException
+     *             if it happens
+     */
+    public static boolean isXML(final PushbackInputStream in) throws IOException {
+        return isXML(peek(in, XML_SNIFF_LENGTH));
+    }
+
+    /**
+     * This method checks if the remaining bytes of "data" start with a Byte-Order Mark.
+     *
+     * @param data
+     *            the buffer to be examined, from its position; not modified
+     *
+     * @return true if the data starts with a Byte-Order Mark; false otherwise
+     */
+    public static boolean hasByteOrderMark(final ByteBuffer data) {
+        final int p = data.position();
+        if (data.remaining() > UTF_8_BOM_LENGTH) {
+            final int b0 = data.get(p) & 0xff;
+            final int b1 = data.get(p + 1) & 0xff;
+            final int b2 = data.get(p + 2) & 0xff;
+            if ((b0 & UTF_8_BOM_BYTE_0) == UTF_8_BOM_BYTE_0 && (b1 & UTF_8_BOM_BYTE_1) == UTF_8_BOM_BYTE_1 && (b2 & UTF_8_BOM_BYTE_2) == UTF_8_BOM_BYTE_2) {
+                return true;
+            }
+            // the same tests as getEncodingFromByteOrderMark
+            if ((b0 & UTF_16_BOM_BYTE_0) == UTF_16_BOM_BYTE_0 && (b1 & UTF_16_BOM_BYTE_1) == UTF_16_BOM_BYTE_1 && b2 != 0) {
+                return true;
+            }
+            if ((b0 & UTF_16_BOM_BYTE_1) == UTF_16_BOM_BYTE_1 && (b1 & UTF_16_BOM_BYTE_0) == UTF_16_BOM_BYTE_0 && b2 != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method checks if a stream starts with a Byte-Order Mark, without consuming it.
+     *
+     * @param in
+     *            a stream from toSniffableStream
+     *
+     * @return true if the data starts with a Byte-Order Mark; false otherwise
+     *
+     * @throws IOException
+     *             if it happens
+     */
+    public static boolean hasByteOrderMark(final PushbackInputStream in) throws IOException {
+        return hasByteOrderMark(peek(in, BOM_SNIFF_LENGTH));
+    }
+
+    /**
+     * This method tries to find the encoding from the XML encoding declaration in the first line of the remaining
+     * bytes of "data". It returns null if it can't find the encoding.
+     *
+     * @param data
+     *            the buffer to be examined, from its position; not modified
+     *
+     * @return the encoding detected; null if none found
+     */
+    public static String getEncodingFromXML(final ByteBuffer data) {
+        if (!isXML(data)) {
+            return null;
+        }
+
+        final int start = data.position();
+        int end = start;
+        while (end < data.limit() && data.get(end) != '\n' && data.get(end) != '\r') {
+            end++;
+        }
+
+        final int index = indexOf(data, ENCODING_ATTRIBUTE, start, end);
+        if (index > start) {
+            // Found the encoding, skip the opening quote.
+            final int from = index + ENCODING_ATTRIBUTE.length + 1;
+            final int closingQuote = indexOf(data, QUOTE, from, end);
+            if (closingQuote > index) {
+                final byte[] encoding = new byte[closingQuote - from];
+                final ByteBuffer view = data.duplicate();
+                view.position(from);
+                view.get(encoding);
+                return new String(encoding, StringUtils.DEFAULT_CHARSET);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This method tries to find the encoding from the XML encoding declaration at the start of a stream, without
+     * consuming it. Only the first SNIFF_LENGTH bytes are examined.
+     *
+     * @param in
+     *            a stream from toSniffableStream
+     *
+     * @return the encoding detected; null if none found
+     *
+     * @throws IOException
+     *             if it happens
+     */
+    public static String getEncodingFromXML(final PushbackInputStream in) throws IOException {
+        return getEncodingFromXML(peek(in, SNIFF_LENGTH));
+    }
+
+    private static int indexOf(final ByteBuffer data, final byte[] pattern, final int from, final int to) {
+        for (int i = from, last = to - pattern.length; i <= last; i++) {
+            int j = 0;
+            while (j < pattern.length && data.get(i + j) == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * This method skips all Byte-Order Marks and returns the offset of the first data byte from the position of "data".
+     *
+     * @param data
+     *            the buffer to be examined, from its position; not modified
+     *
+     * @return offset of the first valid data byte
+     */
+    public static int findFirstByte(final ByteBuffer data) {
+        final int p = data.position();
+        if (data.remaining() > UTF_8_BOM_LENGTH) {
+            final int b0 = data.get(p) & 0xff;
+            final int b1 = data.get(p + 1) & 0xff;
+            if ((b0 & UTF_8_BOM_BYTE_0) == UTF_8_BOM_BYTE_0 && (b1 & UTF_8_BOM_BYTE_1) == UTF_8_BOM_BYTE_1 && (data.get(p + 2) & UTF_8_BOM_BYTE_2) == UTF_8_BOM_BYTE_2) {
+                return UTF_8_BOM_LENGTH;
+            } else if ((b0 & UTF_16_BOM_BYTE_0) == UTF_16_BOM_BYTE_0 && (b1 & UTF_16_BOM_BYTE_1) == UTF_16_BOM_BYTE_1) {
+                return UTF_16_BOM_LENGTH;
+            } else if ((b0 & UTF_16_BOM_BYTE_1) == UTF_16_BOM_BYTE_1 && (b1 & UTF_16_BOM_BYTE_0) == UTF_16_BOM_BYTE_0) {
+                return UTF_16_BOM_LENGTH;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * This method returns the length of the Byte-Order Mark at the start of a stream, without consuming it.
+     *
+     * @param in
+     *            a stream from toSniffableStream
+     *
+     * @return the number of bytes to skip to the first valid data byte
+     *
+     * @throws IOException
+     *             if it happens
+     */
+    public static int findFirstByte(final PushbackInputStream in) throws IOException {
+        return findFirstByte(peek(in, BOM_SNIFF_LENGTH));
+    }
+
+    /**
+     * This method removes any Byte-Order Mark from the remaining bytes of "data" without copying them.
+     *
+     * @param data
+     *            the buffer to be examined, from its position; not modified
+     *
+     * @return a view of data after the Byte-Order Mark
+     */
+    public static ByteBuffer removeByteOrderMark(final ByteBuffer data) {
+        final ByteBuffer view = data.duplicate();
+        view.position(data.position() + findFirstByte(data));
+        return view.slice();
+    }
+
+    /**
+     * This method skips any Byte-Order Mark at the start of a stream.
+     *
+     * @param in
+     *            a stream from toSniffableStream
+     *
+     * @return in, positioned at the first valid data byte
+     *
+     * @throws IOException
+     *             if it happens
+     */
+    public static PushbackInputStream removeByteOrderMark(final PushbackInputStream in) throws IOException {
+        int n = findFirstByte(in);
+        while (n > 0) {
+            n -= in.skip(n);
+        }
+        return in;
+    }
+
     /**
      * Copies all bytes from an InputStream to an OutputStream
      *
@@ -522,6 +895,25 @@ public class FileUtils {
         }
     }
 
+    /**
+     * Copies a directory tree, copying the files concurrently. See TreeCopier for more control, such as the number of
+     * threads or progress reporting.
+     *
+     * @param src
+     *            the directory to copy
+     * @param dst
+     *            the directory to copy to, created if needed
+     * @param skipUnchanged
+     *            if true, files already in dst with the same size and last modified time are not copied again
+     * @return the number of files and bytes copied
+     * @throws IOException
+     *             if it happens
+     */
+    public static TreeCopier.Progress copyTree(final File src, final File dst, final boolean skipUnchanged)
+            throws IOException {
+        return new TreeCopier().setSkipUnchanged(skipUnchanged).copy(src.toPath(), dst.toPath());
+    }
+
     /**
      * replace all characters windows doesn't accept to '_'
      *
@@ -535,4 +927,63 @@ public class FileUtils {
         return temp;
     }
 
+    /**
+     * An InputStream reading the remaining bytes of a ByteBuffer.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer _buffer;
+
+        private int _mark;
+
+        ByteBufferInputStream(final ByteBuffer buffer) {
+            _buffer = buffer;
+            _mark = buffer.position();
+        }
+
+        @Override
+        public int read() {
+            return _buffer.hasRemaining() ? _buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!_buffer.hasRemaining()) {
+                return -1;
+            }
+            final int n = Math.min(len, _buffer.remaining());
+            _buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) {
+            final int skipped = (int) Math.max(0, Math.min(n, _buffer.remaining()));
+            _buffer.position(_buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return _buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public void mark(final int readLimit) {
+            _mark = _buffer.position();
+        }
+
+        @Override
+        public void reset() {
+            _buffer.position(_mark);
+        }
+    }
+
 }
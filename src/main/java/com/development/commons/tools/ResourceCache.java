@@ -0,0 +1,384 @@
+/*
+ * $Id$
+ */
+package com.development.commons.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import com.development.commons.tools.util.LruCache;
+
+/**
+ * An opt-in, bounded cache of the content of files and classpath resources, with the lookups of FileUtils.toBytes and
+ * FileUtils.toInputStream. Both the content and the resolved URL are cached, and so are misses, so a name that is not a
+ * file no longer costs a FileNotFoundException on every call before the class loader is tried.
+ *
+ * <p>
+ * Entries are revalidated once they are older than the revalidation interval: files (and classpath resources in
+ * directories) by their last modified time, classpath resources in jars by the jar's last modified time and then the
+ * time of the jar entry, and misses by looking them up again. Resources larger than the maximum resource size are read
+ * each time and not cached.
+ * </p>
+ */
+public class ResourceCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private static final int DEFAULT_MAX_RESOURCE_SIZE = 256 * 1024;
+
+    private static final long DEFAULT_REVALIDATE_MILLIS = 2000;
+
+    /**
+     * The stamp of resources that cannot be revalidated, e.g. from a remote URL.
+     */
+    private static final long NO_STAMP = Long.MIN_VALUE;
+
+    private final LruCache<Key, Entry> _cache;
+
+    private final int _maxResourceSize;
+
+    private final long _revalidateMillis;
+
+    /**
+     * Creates a cache of up to 1024 resources of up to 256K each, revalidated after 2 seconds.
+     */
+    public ResourceCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_RESOURCE_SIZE, DEFAULT_REVALIDATE_MILLIS);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxEntries
+     *            the most resources and misses kept
+     * @param maxResourceSize
+     *            larger resources are not cached
+     * @param revalidateMillis
+     *            how long an entry is used before it is revalidated; 0 to revalidate on every use
+     */
+    public ResourceCache(final int maxEntries, final int maxResourceSize, final long revalidateMillis) {
+        _cache = new LruCache<Key, Entry>(maxEntries);
+        _maxResourceSize = maxResourceSize;
+        _revalidateMillis = revalidateMillis;
+    }
+
+    /**
+     * Returns the content of a file, or else of a classpath resource, like FileUtils.toBytes(fileName).
+     *
+     * @param fileName
+     *            File name
+     *
+     * @return a copy of the content
+     *
+     * @throws IOException
+     *             if it happens, FileNotFoundException if there is neither a file nor a resource
+     */
+    public byte[] toBytes(final String fileName) throws IOException {
+        return find(fileName).data().clone();
+    }
+
+    /**
+     * Returns the content of a file or of a classpath resource, like FileUtils.toBytes(fileName, location).
+     *
+     * @param fileName
+     *            File name
+     * @param location
+     *            Location of the file: FileUtils.SYSTEM or FileUtils.FILE
+     *
+     * @return a copy of the content
+     *
+     * @throws IOException
+     *             if it happens, FileNotFoundException if it is not found
+     */
+    public byte[] toBytes(final String fileName, final int location) throws IOException {
+        return find(fileName, location).data().clone();
+    }
+
+    /**
+     * Returns a stream over the content of a file, or else of a classpath resource, like
+     * FileUtils.toInputStream(fileName). The stream reads the cached content, without copying it.
+     *
+     * @param fileName
+     *            File name
+     *
+     * @return InputStream object
+     *
+     * @throws IOException
+     *             if it happens, FileNotFoundException if there is neither a file nor a resource
+     */
+    public InputStream toInputStream(final String fileName) throws IOException {
+        return new ByteArrayInputStream(find(fileName).data());
+    }
+
+    /**
+     * Returns a stream over the content of a file or of a classpath resource, like FileUtils.toInputStream(fileName,
+     * location). The stream reads the cached content, without copying it.
+     *
+     * @param fileName
+     *            File name
+     * @param location
+     *            Location of the file: FileUtils.SYSTEM or FileUtils.FILE
+     *
+     * @return InputStream object
+     *
+     * @throws IOException
+     *             if it happens, FileNotFoundException if it is not found
+     */
+    public InputStream toInputStream(final String fileName, final int location) throws IOException {
+        return new ByteArrayInputStream(find(fileName, location).data());
+    }
+
+    /**
+     * Returns the URL a file or classpath resource resolves to.
+     *
+     * @param fileName
+     *            File name
+     * @param location
+     *            Location of the file: FileUtils.SYSTEM or FileUtils.FILE
+     *
+     * @return the URL, or null if it is not found
+     *
+     * @throws IOException
+     *             if it happens
+     */
+    public URL getURL(final String fileName, final int location) throws IOException {
+        return lookup(fileName, location)._url;
+    }
+
+    /**
+     * @return the number of resources and misses cached
+     */
+    public int size() {
+        return _cache.size();
+    }
+
+    /**
+     * Empties the cache.
+     */
+    public void clear() {
+        _cache.clear();
+    }
+
+    private Entry find(final String fileName) throws IOException {
+        final Entry file = lookup(fileName, FileUtils.FILE);
+        return file._url != null ? file : find(fileName, FileUtils.SYSTEM);
+    }
+
+    private Entry find(final String fileName, final int location) throws IOException {
+        final Entry entry = lookup(fileName, location);
+        if (entry._url == null) {
+            throw new FileNotFoundException("Could not find file " + fileName);
+        }
+        return entry;
+    }
+
+    private Entry lookup(final String fileName, final int location) throws IOException {
+        final ClassLoader loader = FileUtils.SYSTEM == location ? Thread.currentThread().getContextClassLoader() : null;
+        final Key key = new Key(fileName, location, loader);
+        final long now = System.currentTimeMillis();
+
+        final Entry cached = _cache.get(key);
+        if (cached != null && (now - cached._validated < _revalidateMillis || cached.revalidate(now))) {
+            return cached;
+        }
+
+        final Entry entry = FileUtils.SYSTEM == location ? loadResource(fileName, loader, now)
+                : loadFile(new File(fileName), now);
+        if (entry.isCacheable()) {
+            _cache.put(key, entry);
+        } else {
+            _cache.remove(key);
+        }
+        return entry;
+    }
+
+    private Entry loadFile(final File file, final long now) throws IOException {
+        final long stamp = file.lastModified();
+        if (!file.isFile()) {
+            return new Entry(null, null, null, NO_STAMP, now);
+        }
+        return new Entry(file.toURI().toURL(), FileUtils.toBytes(file), file, stamp, now);
+    }
+
+    private Entry loadResource(final String name, final ClassLoader loader, final long now) throws IOException {
+        final URL url = loader == null ? ClassLoader.getSystemResource(name) : loader.getResource(name);
+        if (url == null) {
+            return new Entry(null, null, null, NO_STAMP, now);
+        }
+
+        if ("file".equals(url.getProtocol())) {
+            final File file = toFile(url);
+            if (file != null) {
+                final long stamp = file.lastModified();
+                return new Entry(url, FileUtils.toBytes(file), file, stamp, now);
+            }
+        }
+
+        final URLConnection conn = url.openConnection();
+        if (conn instanceof JarURLConnection) {
+            // don't let the JDK keep the jar open, it may be replaced
+            conn.setUseCaches(false);
+            final File jar = toFile(((JarURLConnection) conn).getJarFileURL());
+            final long jarStamp = jar != null ? jar.lastModified() : NO_STAMP;
+            final InputStream in = conn.getInputStream();
+            try {
+                final JarEntry jarEntry = ((JarURLConnection) conn).getJarEntry();
+                final Entry entry = new Entry(url, StringUtils.readFully(in), jar, jarStamp, now);
+                entry._entryTime = jarEntry != null ? jarEntry.getTime() : NO_STAMP;
+                return entry;
+            } finally {
+                FileUtils.close(in);
+            }
+        }
+
+        final InputStream in = conn.getInputStream();
+        try {
+            return new Entry(url, StringUtils.readFully(in), null, NO_STAMP, now);
+        } finally {
+            FileUtils.close(in);
+        }
+    }
+
+    private static File toFile(final URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI());
+        } catch (final URISyntaxException e) {
+            return new File(url.getPath());
+        } catch (final IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A cached resource, or a miss when _url is null.
+     */
+    private class Entry {
+        final URL _url;
+
+        private final byte[] _data;
+
+        /**
+         * The file, or the jar, whose last modified time validates the entry
+         */
+        private final File _file;
+
+        private volatile long _stamp;
+
+        /**
+         * The time of the jar entry, for resources in jars
+         */
+        volatile long _entryTime = NO_STAMP;
+
+        volatile long _validated;
+
+        Entry(final URL url, final byte[] data, final File file, final long stamp, final long validated) {
+            _url = url;
+            _data = data;
+            _file = file;
+            _stamp = stamp;
+            _validated = validated;
+        }
+
+        byte[] data() {
+            return _data;
+        }
+
+        boolean isCacheable() {
+            return _data == null || _data.length <= _maxResourceSize;
+        }
+
+        /**
+         * Checks if the entry is still current.
+         *
+         * @return true if it may be used for another revalidation interval
+         */
+        boolean revalidate(final long now) throws IOException {
+            if (_url == null) {
+                // misses are looked up again
+                return false;
+            }
+
+            // resources without a file, e.g. from a remote URL, can't be checked and are kept
+            if (_file != null) {
+                final long stamp = _file.lastModified();
+                if (stamp != _stamp) {
+                    if (_entryTime == NO_STAMP || stamp == 0 || !entryUnchanged()) {
+                        return false;
+                    }
+                    _stamp = stamp;
+                }
+            }
+            _validated = now;
+            return true;
+        }
+
+        /**
+         * Checks the time of the jar entry, after the jar changed.
+         */
+        private boolean entryUnchanged() throws IOException {
+            final JarURLConnection conn = (JarURLConnection) _url.openConnection();
+            conn.setUseCaches(false);
+            final JarFile jar;
+            try {
+                jar = conn.getJarFile();
+            } catch (final FileNotFoundException e) {
+                return false;
+            }
+            try {
+                final JarEntry jarEntry = jar.getJarEntry(conn.getEntryName());
+                return jarEntry != null && jarEntry.getTime() == _entryTime;
+            } finally {
+                jar.close();
+            }
+        }
+    }
+
+    /**
+     * The (location, name) of a resource, and for classpath resources the class loader.
+     */
+    private static final class Key {
+        private final String _name;
+
+        private final int _location;
+
+        private final WeakReference<ClassLoader> _loader;
+
+        private final int _hash;
+
+        Key(final String name, final int location, final ClassLoader loader) {
+            _name = name;
+            _location = location;
+            _loader = loader == null ? null : new WeakReference<ClassLoader>(loader);
+            _hash = (name.hashCode() * 31 + location) * 31 + System.identityHashCode(loader);
+        }
+
+        @Override
+        public int hashCode() {
+            return _hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) obj;
+            return _hash == key._hash && _location == key._location && _name.equals(key._name)
+                    && (_loader == null ? key._loader == null : key._loader != null && _loader.get() == key._loader.get());
+        }
+    }
+
+}
@@ -0,0 +1,342 @@
+/*
+ * $Id$
+ */
+package com.development.commons.tools;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copies a directory tree, copying the files concurrently on a bounded pool of threads. The tree is walked with
+ * Files.walkFileTree on the calling thread, which creates the directories and hands each file to the pool; when the
+ * pool falls behind, the walking thread copies files itself rather than queueing the whole tree.
+ *
+ * <p>
+ * Files are copied with their attributes, including the last modified time, so with skipUnchanged a later copy of the
+ * same tree only copies the files whose size or last modified time differ. Symbolic links are copied as links.
+ * </p>
+ *
+ * <p>
+ * A TreeCopier may be reused, but not by several threads at once.
+ * </p>
+ */
+public class TreeCopier {
+
+    private static final String THREAD_COUNT_PROPERTY_NAME = "sf-tree-copier-thread-count";
+
+    /**
+     * The number of files queued per thread before the walking thread starts copying.
+     */
+    private static final int QUEUED_FILES_PER_THREAD = 64;
+
+    /**
+     * Notified of each file copied or skipped.
+     */
+    public interface Listener {
+        /**
+         * Called after a file was copied or skipped. Called from the copying threads, so implementations must be
+         * thread-safe.
+         *
+         * @param source
+         *            the source file
+         * @param target
+         *            the target file
+         * @param skipped
+         *            true if the target was unchanged and not copied
+         * @param progress
+         *            the progress of the whole copy so far
+         */
+        void fileDone(Path source, Path target, boolean skipped, Progress progress);
+    }
+
+    /**
+     * Counts the files and bytes copied. Updated concurrently as the copy goes on.
+     */
+    public static final class Progress {
+        private final AtomicInteger _filesCopied = new AtomicInteger();
+
+        private final AtomicInteger _filesSkipped = new AtomicInteger();
+
+        private final AtomicLong _bytesCopied = new AtomicLong();
+
+        private final long _startNanos = System.nanoTime();
+
+        private volatile long _endNanos;
+
+        Progress() {
+        }
+
+        /**
+         * @return the number of files copied
+         */
+        public int getFilesCopied() {
+            return _filesCopied.get();
+        }
+
+        /**
+         * @return the number of files skipped as unchanged
+         */
+        public int getFilesSkipped() {
+            return _filesSkipped.get();
+        }
+
+        /**
+         * @return the number of bytes copied
+         */
+        public long getBytesCopied() {
+            return _bytesCopied.get();
+        }
+
+        /**
+         * @return true once the copy is finished
+         */
+        public boolean isDone() {
+            return _endNanos != 0;
+        }
+
+        /**
+         * @return the time spent copying, up to now or to the end of the copy
+         */
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos());
+        }
+
+        /**
+         * @return the throughput of the copy so far
+         */
+        public long getBytesPerSecond() {
+            final long nanos = elapsedNanos();
+            return nanos == 0 ? 0 : (long) (getBytesCopied() * 1e9 / nanos);
+        }
+
+        private long elapsedNanos() {
+            final long end = _endNanos;
+            return (end != 0 ? end : System.nanoTime()) - _startNanos;
+        }
+
+        @Override
+        public String toString() {
+            return getFilesCopied() + " files copied (" + getBytesCopied() + " bytes, " + getBytesPerSecond()
+                    + " bytes/sec), " + getFilesSkipped() + " unchanged";
+        }
+    }
+
+    private final int _threadCount;
+
+    private boolean _skipUnchanged;
+
+    private Listener _listener;
+
+    /**
+     * Creates a TreeCopier using the number of threads set by the system property "sf-tree-copier-thread-count", or
+     * else the number of processors.
+     */
+    public TreeCopier() {
+        this(Integer.parseInt(System.getProperty(THREAD_COUNT_PROPERTY_NAME,
+                String.valueOf(Runtime.getRuntime().availableProcessors()))));
+    }
+
+    /**
+     * Creates a TreeCopier.
+     *
+     * @param threadCount
+     *            the number of threads copying files
+     */
+    public TreeCopier(final int threadCount) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("threadCount must be positive (was " + threadCount + ")");
+        }
+        _threadCount = threadCount;
+    }
+
+    /**
+     * Sets whether target files with the same size and last modified time as their source are left alone.
+     *
+     * @param skipUnchanged
+     *            skipUnchanged
+     * @return this
+     */
+    public TreeCopier setSkipUnchanged(final boolean skipUnchanged) {
+        _skipUnchanged = skipUnchanged;
+        return this;
+    }
+
+    /**
+     * Sets the listener notified of each file.
+     *
+     * @param listener
+     *            the listener, or null
+     * @return this
+     */
+    public TreeCopier setListener(final Listener listener) {
+        _listener = listener;
+        return this;
+    }
+
+    /**
+     * Copies the tree under <code>source</code> to <code>target</code>, creating target and its subdirectories as
+     * needed and replacing existing files.
+     *
+     * @param source
+     *            the directory to copy
+     * @param target
+     *            the directory to copy to
+     * @return the final progress
+     * @throws IOException
+     *             the first failure; the copy stops at the first failure, and the failures of files already being copied
+     *             are added as suppressed exceptions
+     * @throws RuntimeException
+     *             the first failure, when it was a RuntimeException thrown copying a file or by the listener
+     */
+    public Progress copy(final Path source, final Path target) throws IOException {
+        final Progress progress = new Progress();
+        final CopyVisitor visitor = new CopyVisitor(source, target, progress);
+
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(_threadCount, _threadCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(_threadCount * QUEUED_FILES_PER_THREAD), new CopyThreadFactory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        visitor._executor = executor;
+        try {
+            Files.walkFileTree(source, visitor);
+        } catch (final IOException e) {
+            visitor.fail(e);
+        } finally {
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    // waiting for the queued files
+                }
+            } catch (final InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                visitor.fail(new IOException("Interrupted copying " + source + " to " + target, e));
+            }
+            progress._endNanos = System.nanoTime();
+        }
+
+        final Exception failure = visitor._failure;
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            throw (IOException) failure;
+        }
+        return progress;
+    }
+
+    private boolean isUnchanged(final Path target, final BasicFileAttributes sourceAttrs) throws IOException {
+        final BasicFileAttributes targetAttrs;
+        try {
+            targetAttrs = Files.readAttributes(target, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (final NoSuchFileException e) {
+            return false;
+        }
+        return targetAttrs.isRegularFile() && targetAttrs.size() == sourceAttrs.size()
+                && targetAttrs.lastModifiedTime().toMillis() == sourceAttrs.lastModifiedTime().toMillis();
+    }
+
+    private void copyFile(final Path file, final Path target, final BasicFileAttributes attrs,
+            final Progress progress) throws IOException {
+        final boolean skipped = _skipUnchanged && attrs.isRegularFile() && isUnchanged(target, attrs);
+        if (skipped) {
+            progress._filesSkipped.incrementAndGet();
+        } else {
+            Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES,
+                    LinkOption.NOFOLLOW_LINKS);
+            progress._filesCopied.incrementAndGet();
+            progress._bytesCopied.addAndGet(attrs.size());
+        }
+
+        if (_listener != null) {
+            _listener.fileDone(file, target, skipped, progress);
+        }
+    }
+
+    private class CopyVisitor extends SimpleFileVisitor<Path> {
+        private final Path _source;
+
+        private final Path _target;
+
+        private final Progress _progress;
+
+        ThreadPoolExecutor _executor;
+
+        /** the first IOException or RuntimeException */
+        volatile Exception _failure;
+
+        CopyVisitor(final Path source, final Path target, final Progress progress) {
+            _source = source;
+            _target = target;
+            _progress = progress;
+        }
+
+        synchronized void fail(final Exception e) {
+            if (_failure == null) {
+                _failure = e;
+            } else {
+                _failure.addSuppressed(e);
+            }
+        }
+
+        private FileVisitResult result() {
+            return _failure == null ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+            Files.createDirectories(_target.resolve(_source.relativize(dir).toString()));
+            return result();
+        }
+
+        @Override
+        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+            final Path target = _target.resolve(_source.relativize(file).toString());
+            _executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (_failure != null) {
+                        return;
+                    }
+                    try {
+                        copyFile(file, target, attrs, _progress);
+                    } catch (final IOException e) {
+                        fail(e);
+                    } catch (final RuntimeException e) {
+                        fail(e);
+                    }
+                }
+            });
+            return result();
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(final Path file, final IOException e) {
+            fail(e);
+            return FileVisitResult.TERMINATE;
+        }
+    }
+
+    private static class CopyThreadFactory implements ThreadFactory {
+        private final AtomicInteger _count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "tree-copier-" + _count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.development.commons.tools.util;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.development.commons.tools.xi.util.ClassUtils;
+
+/**
+ * The annotated methods and fields of classes, found once per class and annotation. Backs both
+ * {@link AnnotationUtils} and {@link com.development.commons.tools.xi.util.AnnotationUtils}.
+ *
+ * <p>
+ * The lists are kept in a {@link ClassValue}, so they go away with their class instead of pinning its class loader,
+ * and are read without locking. Two threads asking for the same new list at once may both build it; the first one
+ * stored is kept.
+ * </p>
+ */
+public final class AnnotationCache {
+
+    /** Utility class, no instances allowed. */
+    private AnnotationCache() {
+    }
+
+    /**
+     * The lists found so far for one class.
+     */
+    private static final class Annotated {
+        private final ConcurrentHashMap<Class<? extends Annotation>, List<Method>> methods =
+            new ConcurrentHashMap<Class<? extends Annotation>, List<Method>>();
+
+        private final ConcurrentHashMap<Class<? extends Annotation>, List<Field>> fields =
+            new ConcurrentHashMap<Class<? extends Annotation>, List<Field>>();
+    }
+
+    private static final ClassValue<Annotated> CACHE = new ClassValue<Annotated>() {
+        @Override
+        protected Annotated computeValue(final Class<?> type) {
+            return new Annotated();
+        }
+    };
+
+    /**
+     * Returns the public methods of a class, including those inherited, with the given annotation.
+     *
+     * @param srcClass The class to scan.
+     * @param annotationClass The Annotation class that will be on each method.
+     * @return An unmodifiable list of the methods that have the Annotation present.
+     */
+    public static List<Method> getMethods(final Class<?> srcClass,
+            final Class<? extends Annotation> annotationClass) {
+        final ConcurrentHashMap<Class<? extends Annotation>, List<Method>> methods = CACHE.get(srcClass).methods;
+        List<Method> result = methods.get(annotationClass);
+        if (result == null) {
+            final List<Method> found = new ArrayList<Method>();
+            for (final Method m : srcClass.getMethods()) {
+                if (m.isAnnotationPresent(annotationClass)) {
+                    found.add(m);
+                }
+            }
+            result = Collections.unmodifiableList(found);
+            final List<Method> raced = methods.putIfAbsent(annotationClass, result);
+            if (raced != null) {
+                result = raced;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the fields of a class and its superclasses, whatever their access, with the given annotation, in the
+     * order of {@link ClassUtils#getAllFields(Class)}.
+     *
+     * @param srcClass The class to scan.
+     * @param annotationClass The Annotation class that will be on each field.
+     * @return An unmodifiable list of the fields that have the Annotation present.
+     */
+    public static List<Field> getAllFields(final Class<?> srcClass,
+            final Class<? extends Annotation> annotationClass) {
+        final ConcurrentHashMap<Class<? extends Annotation>, List<Field>> fields = CACHE.get(srcClass).fields;
+        List<Field> result = fields.get(annotationClass);
+        if (result == null) {
+            final List<Field> found = new ArrayList<Field>();
+            for (final Field f : ClassUtils.getAllFields(srcClass)) {
+                if (f.isAnnotationPresent(annotationClass)) {
+                    found.add(f);
+                }
+            }
+            result = Collections.unmodifiableList(found);
+            final List<Field> raced = fields.putIfAbsent(annotationClass, result);
+            if (raced != null) {
+                result = raced;
+            }
+        }
+        return result;
+    }
+
+}
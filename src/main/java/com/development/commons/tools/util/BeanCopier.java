@@ -0,0 +1,305 @@
+/*
+ * ----------------------------------------------------------------------------- Copyright (c) 2010 Plateau Systems, Ltd.
+ *
+ * This software and documentation is the confidential and proprietary information of Plateau Systems. Plateau Systems makes no representation or warranties about the suitability
+ * of the software, either expressed or implied. It is subject to change without notice.
+ *
+ * U.S. and international copyright laws protect this material. No part of this material may be reproduced, published, disclosed, or transmitted in any form or by any means, in
+ * whole or in part, without the prior written permission of Plateau Systems. -----------------------------------------------------------------------------
+ */
+
+package com.development.commons.tools.util;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Copies the properties of one class of bean to another, e.g. from a VO to a DTO. The plan, which getter of the source
+ * feeds which setter of the target, is worked out once per (source class, target class, converter) from
+ * {@link ReflectionUtils#getPropertyGetterMap(Class)} and the target's setters, and each copy then only runs the
+ * compiled {@link PropertyAccessor}s of the plan.
+ *
+ * <p>
+ * A property is copied when the target has a setter of the same name whose type the source value can be assigned to,
+ * boxing and unboxing as needed, or else that the converter can convert it to. Properties of the same primitive type are
+ * copied without boxing. A <code>null</code> is not copied to a primitive property, which keeps its value.
+ * </p>
+ *
+ * <p>
+ * Copiers are immutable and thread-safe.
+ * </p>
+ *
+ * @param <S>
+ *            the source class
+ * @param <T>
+ *            the target class
+ */
+public final class BeanCopier<S, T> {
+
+    /**
+     * Converts a property value to the type of the target property.
+     */
+    public interface Converter {
+        /**
+         * Asked once per property while planning a copy, for properties whose values can't be assigned as they are.
+         *
+         * @return true if values of <code>sourceType</code> can be converted to <code>targetType</code>
+         */
+        boolean canConvert(Class<?> sourceType, Class<?> targetType);
+
+        /**
+         * @param value
+         *            the value of the source property, not <code>null</code>
+         * @param targetType
+         *            the type of the target property
+         * @return the converted value
+         */
+        Object convert(Object value, Class<?> targetType);
+    }
+
+    /**
+     * Converts String properties, with surrounding whitespace trimmed, to boolean ones with the rules of
+     * {@link ReflectionUtils#setFieldValue(Object, String, String)}, so that "1", "on", "yes", "true", "T" and "Y" are
+     * true, and to the numeric primitives and their wrappers with their <code>valueOf</code> methods. Unlike
+     * setFieldValue, which uses the string as it is, " 42 " converts to 42.
+     */
+    public static final Converter STRING_COERCION = new Converter() {
+        @Override
+        public boolean canConvert(final Class<?> sourceType, final Class<?> targetType) {
+            return sourceType == String.class && (targetType == boolean.class || targetType == Boolean.class || toNumber("0", targetType) != null);
+        }
+
+        @Override
+        public Object convert(final Object value, final Class<?> targetType) {
+            final String s = ((String) value).trim();
+            if (targetType == boolean.class || targetType == Boolean.class) {
+                return Boolean.valueOf(ReflectionUtils.toBoolean(s));
+            }
+            return toNumber(s, targetType);
+        }
+    };
+
+    /** the key of the copiers without converter */
+    private static final Object NO_CONVERTER = new Object();
+
+    /**
+     * The copiers per source class, by target class then converter. The target classes and converters are held weakly
+     * and the copiers, which hold them strongly, softly, so that a copier from a class of a shared class loader to one
+     * of a webapp class loader doesn't keep the webapp class loader from being unloaded.
+     */
+    private static final ClassValue<ConcurrentMap<Class<?>, ConcurrentMap<Object, BeanCopier<?, ?>>>> COPIERS = new ClassValue<ConcurrentMap<Class<?>, ConcurrentMap<Object, BeanCopier<?, ?>>>>() {
+        @Override
+        protected ConcurrentMap<Class<?>, ConcurrentMap<Object, BeanCopier<?, ?>>> computeValue(final Class<?> type) {
+            return new MapMaker().weakKeys().softValues().makeMap();
+        }
+    };
+
+    private static final int OBJECT = 0;
+
+    private static final int INT = 1;
+
+    private static final int LONG = 2;
+
+    private static final int DOUBLE = 3;
+
+    private static final int BOOLEAN = 4;
+
+    private final Class<S> sourceClass;
+
+    private final Class<T> targetClass;
+
+    private final Step[] steps;
+
+    private BeanCopier(final Class<S> sourceClass, final Class<T> targetClass, /* @CheckForNull */final Converter converter) {
+        this.sourceClass = sourceClass;
+        this.targetClass = targetClass;
+
+        final List<Step> plan = new ArrayList<Step>();
+        for (final Map.Entry<String, Method> entry : ReflectionUtils.getPropertyGetterMap(sourceClass).entrySet()) {
+            final Method getter = entry.getValue();
+            if (getter.getReturnType() == void.class) {
+                continue;
+            }
+            final PropertyAccessor target;
+            try {
+                target = ReflectionUtils.getPropertyAccessor(targetClass, entry.getKey());
+            } catch (final NoSuchFieldException e) {
+                continue;
+            }
+            if (!target.isWritable()) {
+                continue;
+            }
+
+            final Class<?> sourceType = getter.getReturnType();
+            final Class<?> targetType = target.getType();
+            final PropertyAccessor source = PropertyAccessor.forMethods(entry.getKey(), getter, null);
+            if (sourceType == targetType && sourceType.isPrimitive()) {
+                plan.add(new Step(source, target, kindOf(sourceType), null));
+            } else if (wrap(targetType).isAssignableFrom(wrap(sourceType))) {
+                plan.add(new Step(source, target, OBJECT, null));
+            } else if (converter != null && converter.canConvert(sourceType, targetType)) {
+                plan.add(new Step(source, target, OBJECT, converter));
+            }
+        }
+        this.steps = plan.toArray(new Step[plan.size()]);
+    }
+
+    /**
+     * Returns the copier of the properties that can be assigned as they are.
+     */
+    public static <S, T> BeanCopier<S, T> forClasses(final Class<S> sourceClass, final Class<T> targetClass) {
+        return forClasses(sourceClass, targetClass, null);
+    }
+
+    /**
+     * Returns the copier of the properties that can be assigned as they are or converted by <code>converter</code>. Copiers are cached per converter instance, so
+     * converters should be shared constants like {@link #STRING_COERCION}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <S, T> BeanCopier<S, T> forClasses(final Class<S> sourceClass, final Class<T> targetClass, /* @CheckForNull */final Converter converter) {
+        final ConcurrentMap<Class<?>, ConcurrentMap<Object, BeanCopier<?, ?>>> byTarget = COPIERS.get(sourceClass);
+        ConcurrentMap<Object, BeanCopier<?, ?>> copiers = byTarget.get(targetClass);
+        if (copiers == null) {
+            copiers = new MapMaker().weakKeys().makeMap();
+            final ConcurrentMap<Object, BeanCopier<?, ?>> raced = byTarget.putIfAbsent(targetClass, copiers);
+            if (raced != null) {
+                copiers = raced;
+            }
+        }
+
+        final Object key = converter == null ? NO_CONVERTER : converter;
+        BeanCopier<S, T> result = (BeanCopier<S, T>) copiers.get(key);
+        if (result == null) {
+            result = new BeanCopier<S, T>(sourceClass, targetClass, converter);
+            final BeanCopier<S, T> raced = (BeanCopier<S, T>) copiers.putIfAbsent(key, result);
+            if (raced != null) {
+                result = raced;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Copies the properties of <code>source</code> to <code>target</code>.
+     *
+     * @return target
+     * @throws InvocationTargetException
+     *             if a getter or setter throws
+     */
+    public T copy(final S source, final T target) throws InvocationTargetException {
+        for (final Step step : steps) {
+            step.copy(source, target);
+        }
+        return target;
+    }
+
+    /**
+     * @return the names of the properties copied, in the order they are copied
+     */
+    public List<String> getPropertyNames() {
+        final List<String> result = new ArrayList<String>(steps.length);
+        for (final Step step : steps) {
+            result.add(step.target.getName());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public String toString() {
+        return "BeanCopier[" + sourceClass.getName() + " -> " + targetClass.getName() + " " + getPropertyNames() + "]";
+    }
+
+    private static int kindOf(final Class<?> primitive) {
+        if (primitive == int.class) {
+            return INT;
+        } else if (primitive == long.class) {
+            return LONG;
+        } else if (primitive == double.class) {
+            return DOUBLE;
+        } else if (primitive == boolean.class) {
+            return BOOLEAN;
+        }
+        return OBJECT;
+    }
+
+    private static Class<?> wrap(final Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    // @CheckForNull
+    private static Object toNumber(final String s, final Class<?> type) {
+        if (type == int.class || type == Integer.class) {
+            return Integer.valueOf(s);
+        } else if (type == long.class || type == Long.class) {
+            return Long.valueOf(s);
+        } else if (type == double.class || type == Double.class) {
+            return Double.valueOf(s);
+        } else if (type == float.class || type == Float.class) {
+            return Float.valueOf(s);
+        } else if (type == short.class || type == Short.class) {
+            return Short.valueOf(s);
+        } else if (type == byte.class || type == Byte.class) {
+            return Byte.valueOf(s);
+        }
+        return null;
+    }
+
+    /**
+     * The copy of one property.
+     */
+    private static final class Step {
+        private final PropertyAccessor source;
+
+        private final PropertyAccessor target;
+
+        private final int kind;
+
+        private final Converter converter;
+
+        private final boolean primitiveTarget;
+
+        Step(final PropertyAccessor source, final PropertyAccessor target, final int kind, /* @CheckForNull */final Converter converter) {
+            this.source = source;
+            this.target = target;
+            this.kind = kind;
+            this.converter = converter;
+            this.primitiveTarget = target.getType().isPrimitive();
+        }
+
+        void copy(final Object from, final Object to) throws InvocationTargetException {
+            switch (kind) {
+            case INT:
+                target.setInt(to, source.getInt(from));
+                break;
+            case LONG:
+                target.setLong(to, source.getLong(from));
+                break;
+            case DOUBLE:
+                target.setDouble(to, source.getDouble(from));
+                break;
+            case BOOLEAN:
+                target.setBoolean(to, source.getBoolean(from));
+                break;
+            default:
+                Object value = source.get(from);
+                if (value == null) {
+                    if (primitiveTarget) {
+                        return;
+                    }
+                } else if (converter != null) {
+                    value = converter.convert(value, target.getType());
+                }
+                target.set(to, value);
+                break;
+            }
+        }
+    }
+}
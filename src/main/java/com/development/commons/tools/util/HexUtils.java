@@ -3,6 +3,14 @@
  */
 package com.development.commons.tools.util;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
 /**
  * Utility Class for converting byte array to hex (2 compliment)
  *
@@ -10,6 +18,44 @@ package com.development.commons.tools.util;
  */
 public class HexUtils {
 
+    /**
+     * Size of the buffers used by the streaming methods.
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final char[] UPPER_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private static final char[] LOWER_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * The two digits of each byte value, at 2 * (b &amp; 0xff).
+     */
+    private static final char[] UPPER_PAIRS = pairs(UPPER_DIGITS);
+
+    private static final char[] LOWER_PAIRS = pairs(LOWER_DIGITS);
+
+    /**
+     * The value of each hex digit below 128, or -1.
+     */
+    private static final byte[] NIBBLES = new byte[128];
+
+    static {
+        Arrays.fill(NIBBLES, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            NIBBLES[UPPER_DIGITS[i]] = (byte) i;
+            NIBBLES[LOWER_DIGITS[i]] = (byte) i;
+        }
+    }
+
+    private static char[] pairs(final char[] digits) {
+        final char[] pairs = new char[512];
+        for (int b = 0; b < 256; b++) {
+            pairs[2 * b] = digits[b >>> 4];
+            pairs[2 * b + 1] = digits[b & 0x0F];
+        }
+        return pairs;
+    }
+
     private HexUtils() {
     }
 
@@ -18,14 +64,80 @@ public class HexUtils {
      *
      * @param data
      *            the byte[] to convert
-     * @return String the converted byte[]
+     * @return String the converted byte[], in upper case
      */
     public static String bytesToHex(final byte[] data) {
-        final StringBuffer buf = new StringBuffer();
-        for (final byte element : data) {
-            buf.append(byteToHex(element).toUpperCase());
+        return bytesToHex(data, true);
+    }
+
+    /**
+     * Converts a byte array to a hex string.
+     *
+     * @param data
+     *            the byte[] to convert
+     * @param upperCase
+     *            true for the digits A-F, false for a-f
+     * @return String the converted byte[]
+     */
+    public static String bytesToHex(final byte[] data, final boolean upperCase) {
+        final char[] out = new char[data.length * 2];
+        toHex(data, 0, data.length, out, 0, upperCase);
+        return new String(out);
+    }
+
+    /**
+     * Converts a range of a byte array to hex digits in a caller supplied buffer, two per byte.
+     *
+     * @param data
+     *            the bytes to convert
+     * @param off
+     *            the offset of the first byte
+     * @param len
+     *            the number of bytes
+     * @param out
+     *            receives 2 * len digits
+     * @param outOff
+     *            the offset in out of the first digit
+     * @param upperCase
+     *            true for the digits A-F, false for a-f
+     * @return the offset in out after the last digit
+     */
+    public static int toHex(final byte[] data, final int off, final int len, final char[] out, final int outOff,
+            final boolean upperCase) {
+        final char[] pairs = upperCase ? UPPER_PAIRS : LOWER_PAIRS;
+        int o = outOff;
+        for (int i = off, end = off + len; i < end; i++) {
+            final int p = (data[i] & 0xFF) << 1;
+            out[o] = pairs[p];
+            out[o + 1] = pairs[p + 1];
+            o += 2;
         }
-        return (buf.toString());
+        return o;
+    }
+
+    /**
+     * Writes the hex digits of everything read from <code>in</code>, for blobs too large to hold as a String.
+     *
+     * @param in
+     *            the bytes to convert, read to the end
+     * @param out
+     *            receives the digits
+     * @param upperCase
+     *            true for the digits A-F, false for a-f
+     * @return the number of bytes converted
+     * @throws IOException
+     *             from either stream
+     */
+    public static long writeHex(final InputStream in, final Writer out, final boolean upperCase) throws IOException {
+        final byte[] bytes = new byte[BUFFER_SIZE];
+        final char[] chars = new char[BUFFER_SIZE * 2];
+        long count = 0;
+        int n;
+        while ((n = in.read(bytes)) != -1) {
+            out.write(chars, 0, toHex(bytes, 0, n, chars, 0, upperCase));
+            count += n;
+        }
+        return count;
     }
 
     /**
@@ -33,13 +145,11 @@ public class HexUtils {
      *
      * @param data
      *            the byte to convert
-     * @return String the converted byte
+     * @return String the converted byte, in lower case
      */
     public static String byteToHex(final byte data) {
-        final StringBuffer buf = new StringBuffer();
-        buf.append(toHexChar((data >>> 4) & 0x0F));
-        buf.append(toHexChar(data & 0x0F));
-        return buf.toString();
+        final int p = (data & 0xFF) << 1;
+        return new String(LOWER_PAIRS, p, 2);
     }
 
     /**
@@ -70,20 +180,106 @@ public class HexUtils {
         if (hexStr == null || hexStr.equals("")) {
             return null;
         }
-        final int len = hexStr.length();
+        return parseSeq(hexStr, 0, hexStr.length());
+    }
 
-        if (len % 2 != 0) {
+    /**
+     * Parses the hex digits in a range of a CharSequence, two per byte.
+     *
+     * @param hex
+     *            the digits, in either case
+     * @param start
+     *            the index of the first digit
+     * @param end
+     *            the index after the last digit
+     * @return the bytes
+     * @throws NumberFormatException
+     *             if the range has an odd length or holds anything but hex digits
+     */
+    public static byte[] parseSeq(final CharSequence hex, final int start, final int end)
+            throws NumberFormatException {
+        if ((end - start) % 2 != 0) {
+            throw new NumberFormatException("Illegal length of string in hexadecimal notation.");
+        }
+        final byte[] seq = new byte[(end - start) / 2];
+        parseSeq(hex, start, end, seq, 0);
+        return seq;
+    }
+
+    /**
+     * Parses the hex digits in a range of a CharSequence into a caller supplied buffer.
+     *
+     * @param hex
+     *            the digits, in either case
+     * @param start
+     *            the index of the first digit
+     * @param end
+     *            the index after the last digit, start plus an even number
+     * @param out
+     *            receives (end - start) / 2 bytes
+     * @param outOff
+     *            the offset in out of the first byte
+     * @return the offset in out after the last byte
+     * @throws NumberFormatException
+     *             if the range has an odd length or holds anything but hex digits
+     */
+    public static int parseSeq(final CharSequence hex, final int start, final int end, final byte[] out,
+            final int outOff) throws NumberFormatException {
+        if ((end - start) % 2 != 0) {
             throw new NumberFormatException("Illegal length of string in hexadecimal notation.");
         }
-        final int numOfOctets = len / 2;
-        final byte[] seq = new byte[numOfOctets];
+        int o = outOff;
+        for (int i = start; i < end; i += 2) {
+            out[o++] = (byte) ((nibble(hex.charAt(i), i) << 4) | nibble(hex.charAt(i + 1), i + 1));
+        }
+        return o;
+    }
 
-        for (int i = 0; i < numOfOctets; i++) {
-            final String hex = hexStr.substring(i * 2, i * 2 + 2);
+    /**
+     * Parses hex digits read from <code>in</code> and writes the bytes to <code>out</code>, for blobs too large to
+     * hold as a String.
+     *
+     * @param in
+     *            the digits, in either case, read to the end
+     * @param out
+     *            receives the bytes
+     * @return the number of bytes written
+     * @throws IOException
+     *             from either stream
+     * @throws NumberFormatException
+     *             if the input has an odd length or holds anything but hex digits
+     */
+    public static long readHex(final Reader in, final OutputStream out) throws IOException, NumberFormatException {
+        final char[] chars = new char[BUFFER_SIZE * 2];
+        final byte[] bytes = new byte[BUFFER_SIZE];
+        final CharBuffer wrapper = CharBuffer.wrap(chars);
+        long count = 0;
+        // the digits in chars, starting with at most one left over from the previous read
+        int length = 0;
+        int n;
+        while ((n = in.read(chars, length, chars.length - length)) != -1) {
+            length += n;
+            final int even = length & ~1;
+            final int o = parseSeq(wrapper, 0, even, bytes, 0);
+            out.write(bytes, 0, o);
+            count += o;
+            if (even < length) {
+                chars[0] = chars[even];
+            }
+            length -= even;
+        }
+        if (length != 0) {
+            throw new NumberFormatException("Illegal length of string in hexadecimal notation.");
+        }
+        return count;
+    }
 
-            seq[i] = parseByte(hex);
+    private static int nibble(final char ch, final int index) throws NumberFormatException {
+        final int n = ch < 128 ? NIBBLES[ch] : -1;
+        if (n < 0) {
+            throw new NumberFormatException("Illegal character '" + ch + "' at " + index + " in hexadecimal notation.");
         }
-        return seq;
+        return n;
     }
 
     /**
@@ -99,16 +295,14 @@ public class HexUtils {
         if (hex == null) {
             throw new IllegalArgumentException("Null string in hexadecimal notation.");
         }
-        if (hex.equals("")) {
-            return 0;
-        }
-        final Integer num = Integer.decode("0x" + hex);
-        final int n = num.intValue();
-
-        if (n > 255 || n < 0) {
-            throw new NumberFormatException("Out of range for byte.");
+        int n = 0;
+        for (int i = 0, len = hex.length(); i < len; i++) {
+            n = (n << 4) | nibble(hex.charAt(i), i);
+            if (n > 255) {
+                throw new NumberFormatException("Out of range for byte.");
+            }
         }
-        return num.byteValue();
+        return (byte) n;
     }
 
 }
@@ -0,0 +1,162 @@
+/*
+ * $Id$
+ *
+ * Copyright (C) 2006 SuccessFactors, Inc.
+ * All Rights Reserved
+ */
+package com.development.commons.tools.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * LruCache -- a bounded, thread-safe cache that evicts the least
+ * recently used entries.  The cache is split into segments, each an
+ * access ordered LinkedHashMap guarded by its own lock, so that
+ * threads working with different keys rarely contend.  Eviction is
+ * per segment, which makes the bound exact but the LRU order only
+ * approximate across segments.
+ *
+ * <p>Values are computed outside of the lock by computeIfAbsent(), so
+ * two threads missing the same key at the same time may both compute
+ * it; the values are expected to be equivalent.
+ *
+ * @version $Revision$
+ */
+public class LruCache<K, V>
+{
+    /** the maximum number of segments */
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment<K, V>[] _segments;
+
+    private final int _segmentMask;
+
+    /**
+     * Creates a cache.
+     *
+     * @param maximumSize the maximum number of entries kept.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public LruCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximum size must be positive (was " + maximumSize + ")");
+        }
+
+        int segments = 1;
+        while (segments < MAX_SEGMENTS && segments * 2 <= maximumSize / 8) {
+            segments *= 2;
+        }
+
+        _segments = new Segment[segments];
+        _segmentMask = segments - 1;
+        for (int i = 0; i < segments; ++i) {
+            // spread the remainder over the first segments
+            _segments[i] = new Segment<K, V>(maximumSize / segments + (i < maximumSize % segments ? 1 : 0));
+        }
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return _segments[h & _segmentMask];
+    }
+
+    /**
+     * Returns the cached value for <code>key</code>, or null.
+     */
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    /**
+     * Caches a value, possibly evicting the least recently used entry
+     * of its segment.
+     *
+     * @return the previous value, or null.
+     */
+    public V put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.put(key, value);
+        }
+    }
+
+    /**
+     * Returns the cached value for <code>key</code>, computing and
+     * caching it if there is none.  The function is called without
+     * holding any lock; it must not return null.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+        V value = get(key);
+        if (value == null) {
+            value = function.apply(key);
+            Segment<K, V> segment = segmentFor(key);
+            synchronized (segment) {
+                V raced = segment.putIfAbsent(key, value);
+                if (raced != null) {
+                    value = raced;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Removes the entry for <code>key</code>.
+     *
+     * @return the removed value, or null.
+     */
+    public V remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+
+    /**
+     * @return the number of cached entries.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : _segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        for (Segment<K, V> segment : _segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int _capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            _capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > _capacity;
+        }
+    }
+
+} // LruCache
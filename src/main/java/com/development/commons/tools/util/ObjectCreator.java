@@ -1,11 +1,55 @@
 package com.development.commons.tools.util;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.beanutils.ConstructorUtils;
+import org.apache.commons.beanutils.MethodUtils;
 
+import com.google.common.collect.MapMaker;
+
+/**
+ * Creates objects by class name. The classes are looked up once per class loader, and the constructors matching the
+ * types of the arguments once per class, as method handles. The names not found are remembered for a while, the most
+ * recent ones per class loader. Class loaders and argument types are held weakly and the constructors with their
+ * class, so redeployed class loaders can still be unloaded.
+ */
 public class ObjectCreator {
 
+    /** default concurrecy level, the same to ConcurrentHashMap */
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /** the most names not found remembered per class loader */
+    private static final int MAX_MISSING_PER_LOADER = 256;
+
+    /** how long a name not found is remembered before it is looked up again */
+    private static final long MISSING_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /** the classes per class loader */
+    private static final ConcurrentMap<ClassLoader, LoaderClasses> classCache = new MapMaker().concurrencyLevel(DEFAULT_CONCURRENCY_LEVEL).weakKeys().makeMap();
+
+    /** the classes of the bootstrap class loader */
+    private static final LoaderClasses bootstrapClassCache = new LoaderClasses();
+
+    /** the constructors by the names of the argument types, per class */
+    private static final ClassValue<Map<String, CachedConstructor>> constructorCache = new ClassValue<Map<String, CachedConstructor>>() {
+        @Override
+        protected Map<String, CachedConstructor> computeValue(final Class<?> type) {
+            return new ConcurrentHashMap<String, CachedConstructor>();
+        }
+    };
+
+    private static final MethodType GENERIC_CONSTRUCTOR = MethodType.methodType(Object.class, Object[].class);
+
     private ObjectCreator() {};
 
     /**
@@ -16,29 +60,35 @@ public class ObjectCreator {
      * @throws InvocationTargetException If we can not create the object.
      */
     public static final Object createObject(String name, Object... args) throws InvocationTargetException {
-        Object result = null;
+        if (args == null) {
+            args = new Object[0];
+        }
 
         try {
-            Class clazz = Class.forName(name,true, Thread.currentThread().getContextClassLoader());
-            if(clazz != null ) {
-                result = ConstructorUtils.invokeConstructor(clazz, args);
+            final Class<?> clazz = forName(name);
+            final Class<?>[] parameterTypes = new Class<?>[args.length];
+            for (int i = 0; i < args.length; i++) {
+                parameterTypes[i] = args[i].getClass();
             }
 
+            final MethodHandle constructor = getConstructor(clazz, parameterTypes);
+            try {
+                return constructor.invokeExact(args);
+            } catch (Throwable t) {
+                // as ConstructorUtils did with Constructor.newInstance
+                throw new InvocationTargetException(t);
+            }
         } catch (ClassNotFoundException e) {
             throw new InvocationTargetException(e);
         } catch (NoSuchMethodException e) {
-            // TODO Auto-generated catch block
             throw new InvocationTargetException(e);
         } catch (IllegalAccessException e) {
-            // TODO Auto-generated catch block
            throw new InvocationTargetException(e);
         } catch (InvocationTargetException e) {
             throw new InvocationTargetException(e);
         } catch (InstantiationException e) {
             throw new InvocationTargetException(e);
         }
-
-        return result;
     }
 
     /**
@@ -51,10 +101,8 @@ public class ObjectCreator {
         Object result = null;
 
         try {
-            Class clazz = Class.forName(name,true, Thread.currentThread().getContextClassLoader());
-            if(clazz != null ) {
-                result = clazz.newInstance();
-            }
+            Class clazz = forName(name);
+            result = clazz.newInstance();
 
         } catch (ClassNotFoundException e) {
             throw new InvocationTargetException(e);
@@ -68,4 +116,149 @@ public class ObjectCreator {
         return result;
     }
 
+    /**
+     * Loads and initializes a class with the context class loader, like Class.forName(name, true, loader), remembering
+     * the classes found and not found per class loader.
+     */
+    private static Class<?> forName(final String name) throws ClassNotFoundException {
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        LoaderClasses classes;
+        if (loader == null) {
+            classes = bootstrapClassCache;
+        } else {
+            classes = classCache.get(loader);
+            if (classes == null) {
+                classes = new LoaderClasses();
+                final LoaderClasses raced = classCache.putIfAbsent(loader, classes);
+                if (raced != null) {
+                    classes = raced;
+                }
+            }
+        }
+
+        // the class is held weakly so that it doesn't keep its loader, the key, alive; a class can't be collected
+        // before its loader, so the reference is only ever cleared once the loader is gone
+        final WeakReference<Class<?>> cached = classes.found.get(name);
+        Class<?> clazz = cached == null ? null : cached.get();
+        if (clazz == null) {
+            final Long missedAt = classes.missing.get(name);
+            if (missedAt != null && System.nanoTime() - missedAt.longValue() < MISSING_NANOS) {
+                throw new ClassNotFoundException(name);
+            }
+            try {
+                clazz = Class.forName(name, true, loader);
+            } catch (ClassNotFoundException e) {
+                classes.missing.put(name, Long.valueOf(System.nanoTime()));
+                throw e;
+            }
+            classes.found.put(name, new WeakReference<Class<?>>(clazz));
+        }
+        return clazz;
+    }
+
+    /**
+     * Returns the public constructor ConstructorUtils.invokeConstructor would pick for arguments of the given types, as
+     * a (Object[])Object method handle.
+     */
+    private static MethodHandle getConstructor(final Class<?> clazz, final Class<?>[] parameterTypes)
+            throws NoSuchMethodException, IllegalAccessException, InstantiationException {
+        final Map<String, CachedConstructor> constructors = constructorCache.get(clazz);
+        final StringBuilder key = new StringBuilder();
+        for (final Class<?> type : parameterTypes) {
+            key.append(type.getName()).append(',');
+        }
+        CachedConstructor cached = constructors.get(key.toString());
+        if (cached == null || !cached.matches(parameterTypes)) {
+            final Constructor<?> constructor = getMatchingAccessibleConstructor(clazz, parameterTypes);
+            MethodHandle handle = null;
+            if (constructor != null && !Modifier.isAbstract(clazz.getModifiers())) {
+                ReflectionUtils.setAccessible(constructor);
+                handle = MethodHandles.lookup().unreflectConstructor(constructor)
+                        .asSpreader(Object[].class, parameterTypes.length).asType(GENERIC_CONSTRUCTOR);
+            }
+            cached = new CachedConstructor(parameterTypes, constructor != null, handle);
+            constructors.put(key.toString(), cached);
+        }
+
+        if (!cached.found) {
+            throw new NoSuchMethodException("No such accessible constructor on object: " + clazz.getName());
+        }
+        if (cached.handle == null) {
+            throw new InstantiationException(clazz.getName());
+        }
+        return cached.handle;
+    }
+
+    /**
+     * Finds the constructor like ConstructorUtils.invokeConstructor: the public one with exactly these parameter types,
+     * or else the first public one the arguments can be assigned to.
+     */
+    private static Constructor<?> getMatchingAccessibleConstructor(final Class<?> clazz, final Class<?>[] parameterTypes) {
+        final Constructor<?> exact = ConstructorUtils.getAccessibleConstructor(clazz, parameterTypes);
+        if (exact != null) {
+            return exact;
+        }
+        CONSTRUCTORS: for (final Constructor<?> candidate : clazz.getConstructors()) {
+            final Class<?>[] candidateTypes = candidate.getParameterTypes();
+            if (candidateTypes.length != parameterTypes.length) {
+                continue;
+            }
+            for (int i = 0; i < candidateTypes.length; i++) {
+                if (!MethodUtils.isAssignmentCompatible(candidateTypes[i], parameterTypes[i])) {
+                    continue CONSTRUCTORS;
+                }
+            }
+            final Constructor<?> accessible = ConstructorUtils.getAccessibleConstructor(candidate);
+            if (accessible != null) {
+                return accessible;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The classes found and the names not found of one class loader.
+     */
+    private static final class LoaderClasses {
+        /** the WeakReferences to the classes by name */
+        final Map<String, WeakReference<Class<?>>> found = new ConcurrentHashMap<String, WeakReference<Class<?>>>();
+
+        /** when the names most recently not found were looked up, from System.nanoTime() */
+        final LruCache<String, Long> missing = new LruCache<String, Long>(MAX_MISSING_PER_LOADER);
+    }
+
+    /**
+     * The constructor picked for a call with arguments of some types. The types are held weakly, so that arguments of
+     * classes of another class loader don't keep it alive, and checked as classes of the same names from another
+     * class loader would have the same key.
+     */
+    private static final class CachedConstructor {
+        private final WeakReference<Class<?>>[] argumentTypes;
+
+        /** whether a matching constructor was found */
+        final boolean found;
+
+        /** the constructor as a (Object[])Object method handle, or null if none was found or the class is abstract */
+        final MethodHandle handle;
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        CachedConstructor(final Class<?>[] argumentTypes, final boolean found, final MethodHandle handle) {
+            this.argumentTypes = new WeakReference[argumentTypes.length];
+            for (int i = 0; i < argumentTypes.length; i++) {
+                this.argumentTypes[i] = new WeakReference<Class<?>>(argumentTypes[i]);
+            }
+            this.found = found;
+            this.handle = handle;
+        }
+
+        boolean matches(final Class<?>[] types) {
+            for (int i = 0; i < types.length; i++) {
+                if (argumentTypes[i].get() != types[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
 }
@@ -0,0 +1,414 @@
+/*
+ * ----------------------------------------------------------------------------- Copyright (c) 2010 Plateau Systems, Ltd.
+ *
+ * This software and documentation is the confidential and proprietary information of Plateau Systems. Plateau Systems makes no representation or warranties about the suitability
+ * of the software, either expressed or implied. It is subject to change without notice.
+ *
+ * U.S. and international copyright laws protect this material. No part of this material may be reproduced, published, disclosed, or transmitted in any form or by any means, in
+ * whole or in part, without the prior written permission of Plateau Systems. -----------------------------------------------------------------------------
+ */
+
+package com.development.commons.tools.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Objects;
+
+/**
+ * A property of a class resolved once into method handles, for reading and writing it on many instances without the
+ * lookup, access checks and argument array of {@link ReflectionUtils#getPseudoFieldValue(Object, String)} and friends.
+ * Get one from {@link ReflectionUtils#getPropertyAccessor(Class, String)} (getter and setter methods) or
+ * {@link ReflectionUtils#getFieldAccessor(Class, String)} (the field itself); both are cached per class.
+ *
+ * <p>
+ * The primitive variants, such as {@link #getInt(Object)} and {@link #setInt(Object, int)}, are compiled for
+ * properties of a primitive or wrapper type and neither box nor unbox when the property is of that primitive type. For
+ * other properties they go through {@link #get(Object)} and {@link #set(Object, Object)}.
+ * </p>
+ *
+ * <p>
+ * Instances are immutable and thread-safe.
+ * </p>
+ */
+public final class PropertyAccessor {
+
+    private static final MethodType OBJECT_GETTER = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType OBJECT_SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /** new InvocationTargetException(Throwable) */
+    private static final MethodHandle WRAP_TARGET_EXCEPTION;
+
+    /** Objects.requireNonNull(Object) */
+    private static final MethodHandle REQUIRE_NON_NULL;
+
+    static {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            WRAP_TARGET_EXCEPTION = lookup.findConstructor(InvocationTargetException.class, MethodType.methodType(void.class, Throwable.class));
+            REQUIRE_NON_NULL = lookup.findStatic(Objects.class, "requireNonNull", MethodType.methodType(Object.class, Object.class));
+        } catch (final ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final String name;
+
+    private final Class<?> type;
+
+    private final Member getterMember;
+
+    private final Member setterMember;
+
+    private final MethodHandle getter;
+
+    private final MethodHandle intGetter;
+
+    private final MethodHandle longGetter;
+
+    private final MethodHandle doubleGetter;
+
+    private final MethodHandle booleanGetter;
+
+    private final MethodHandle setter;
+
+    private final MethodHandle intSetter;
+
+    private final MethodHandle longSetter;
+
+    private final MethodHandle doubleSetter;
+
+    private final MethodHandle booleanSetter;
+
+    private PropertyAccessor(final String name, final Class<?> type, final Member getterMember, final MethodHandle getter, final Member setterMember, final MethodHandle setter) {
+        this.name = name;
+        this.type = type;
+        this.getterMember = getterMember;
+        this.setterMember = setterMember;
+        this.getter = getter == null ? null : getter.asType(OBJECT_GETTER);
+        this.intGetter = specializeGetter(getter, int.class);
+        this.longGetter = specializeGetter(getter, long.class);
+        this.doubleGetter = specializeGetter(getter, double.class);
+        this.booleanGetter = specializeGetter(getter, boolean.class);
+        this.setter = setter == null ? null : setter.asType(OBJECT_SETTER);
+        this.intSetter = specializeSetter(setter, int.class);
+        this.longSetter = specializeSetter(setter, long.class);
+        this.doubleSetter = specializeSetter(setter, double.class);
+        this.booleanSetter = specializeSetter(setter, boolean.class);
+    }
+
+    /**
+     * Compiles the public getter and setter methods of a property.
+     *
+     * @param getterMethod
+     *            the getter, or <code>null</code> for a write only property
+     * @param setterMethod
+     *            the setter, or <code>null</code> for a read only property
+     */
+    static PropertyAccessor forMethods(final String name, /* @CheckForNull */final Method getterMethod, /* @CheckForNull */final Method setterMethod) {
+        final Class<?> type = getterMethod != null ? getterMethod.getReturnType() : setterMethod.getParameterTypes()[0];
+        return new PropertyAccessor(name, type, getterMethod, unreflect(getterMethod), setterMethod, unreflect(setterMethod));
+    }
+
+    /**
+     * Compiles the access to a field, private or not. Final fields are read only.
+     */
+    static PropertyAccessor forField(final Field field) {
+        ReflectionUtils.setAccessible(field);
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final MethodHandle getter;
+        final MethodHandle setter;
+        try {
+            getter = lookup.unreflectGetter(field);
+            // unreflectSetter would write a final field made accessible
+            setter = Modifier.isFinal(field.getModifiers()) ? null : lookup.unreflectSetter(field);
+        } catch (final IllegalAccessException e) {
+            throw new RuntimeException("Problem compiling access to " + field, e);
+        }
+        return new PropertyAccessor(field.getName(), field.getType(), field, getter, setter == null ? null : field, setter);
+    }
+
+    /**
+     * Compiles a getter or setter method so that what it throws, and only that, is thrown wrapped in an
+     * InvocationTargetException like {@link Method#invoke} does. Failures to convert the bean or the value, added by
+     * asType later, and a null bean are thrown as is.
+     */
+    private static MethodHandle unreflect(/* @CheckForNull */final Method method) {
+        if (method == null) {
+            return null;
+        }
+        ReflectionUtils.setAccessible(method);
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflect(method);
+        } catch (final IllegalAccessException e) {
+            throw new RuntimeException("Problem compiling method " + method, e);
+        }
+        final MethodHandle rethrow = MethodHandles.filterArguments(
+                MethodHandles.throwException(handle.type().returnType(), InvocationTargetException.class), 0, WRAP_TARGET_EXCEPTION);
+        handle = MethodHandles.catchException(handle, Throwable.class, rethrow);
+        if (Modifier.isStatic(method.getModifiers())) {
+            return handle;
+        }
+        final Class<?> beanType = handle.type().parameterType(0);
+        return MethodHandles.filterArguments(handle, 0, REQUIRE_NON_NULL.asType(MethodType.methodType(beanType, beanType)));
+    }
+
+    private static boolean isPrimitiveOrWrapper(final Class<?> type) {
+        return type.isPrimitive() || MethodType.methodType(type).unwrap().returnType().isPrimitive();
+    }
+
+    // @CheckForNull
+    private static MethodHandle specializeGetter(/* @CheckForNull */final MethodHandle handle, final Class<?> primitive) {
+        if (handle == null || !isPrimitiveOrWrapper(handle.type().returnType())) {
+            return null;
+        }
+        try {
+            return handle.asType(MethodType.methodType(primitive, Object.class));
+        } catch (final WrongMethodTypeException e) {
+            // e.g. a long property read as an int
+            return null;
+        }
+    }
+
+    // @CheckForNull
+    private static MethodHandle specializeSetter(/* @CheckForNull */final MethodHandle handle, final Class<?> primitive) {
+        if (handle == null || !isPrimitiveOrWrapper(handle.type().parameterType(1))) {
+            return null;
+        }
+        try {
+            return handle.asType(MethodType.methodType(void.class, Object.class, primitive));
+        } catch (final WrongMethodTypeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the name of the property
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the type of the property
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return true if the property has a getter
+     */
+    public boolean isReadable() {
+        return getter != null;
+    }
+
+    /**
+     * @return true if the property has a setter, or is a field that is not final
+     */
+    public boolean isWritable() {
+        return setter != null;
+    }
+
+    /**
+     * Gets the value of the property.
+     *
+     * @param bean
+     *            the instance to read
+     * @throws InvocationTargetException
+     *             if the getter method throws
+     * @throws UnsupportedOperationException
+     *             if the property is write only
+     */
+    // @CheckForNull
+    public Object get(final Object bean) throws InvocationTargetException {
+        final MethodHandle handle = checkReadable(getter);
+        try {
+            return handle.invokeExact(bean);
+        } catch (final Throwable t) {
+            throw fail(t);
+        }
+    }
+
+    /**
+     * Gets the value of an int property, or of a numeric one converted to int.
+     */
+    public int getInt(final Object bean) throws InvocationTargetException {
+        if (intGetter == null) {
+            return ((Number) get(bean)).intValue();
+        }
+        try {
+            return (int) intGetter.invokeExact(bean);
+        } catch (final Throwable t) {
+            throw fail(t);
+        }
+    }
+
+    /**
+     * Gets the value of a long property, or of a numeric one converted to long.
+     */
+    public long getLong(final Object bean) throws InvocationTargetException {
+        if (longGetter == null) {
+            return ((Number) get(bean)).longValue();
+        }
+        try {
+            return (long) longGetter.invokeExact(bean);
+        } catch (final Throwable t) {
+            throw fail(t);
+        }
+    }
+
+    /**
+     * Gets the value of a double property, or of a numeric one converted to double.
+     */
+    public double getDouble(final Object bean) throws InvocationTargetException {
+        if (doubleGetter == null) {
+            return ((Number) get(bean)).doubleValue();
+        }
+        try {
+            return (double) doubleGetter.invokeExact(bean);
+        } catch (final Throwable t) {
+            throw fail(t);
+        }
+    }
+
+    /**
+     * Gets the value of a boolean property.
+     */
+    public boolean getBoolean(final Object bean) throws InvocationTargetException {
+        if (booleanGetter == null) {
+            return ((Boolean) get(bean)).booleanValue();
+        }
+        try {
+            return (boolean) booleanGetter.invokeExact(bean);
+        } catch (final Throwable t) {
+            throw fail(t);
+        }
+    }
+
+    /**
+     * Sets the value of the property.
+     *
+     * @param bean
+     *            the instance to write
+     * @param value
+     *            the value, of the type of the property
+     * @throws InvocationTargetException
+     *             if the setter method throws
+     * @throws UnsupportedOperationException
+     *             if the property is read only
+     */
+    public void set(final Object bean, /* @CheckForNull */final Object value) throws InvocationTargetException {
+        final MethodHandle handle = checkWritable(setter);
+        try {
+            handle.invokeExact(bean, value);
+        } catch (final Throwable t) {
+            throw fail(t);
+        }
+    }
+
+    /**
+     * Sets the value of an int property, or of one an int converts to.
+     */
+    public void setInt(final Object bean, final int value) throws InvocationTargetException {
+        if (intSetter == null) {
+            set(bean, Integer.valueOf(value));
+            return;
+        }
+        try {
+            intSetter.invokeExact(bean, value);
+        } catch (final Throwable t) {
+            throw fail(t);
+        }
+    }
+
+    /**
+     * Sets the value of a long property, or of one a long converts to.
+     */
+    public void setLong(final Object bean, final long value) throws InvocationTargetException {
+        if (longSetter == null) {
+            set(bean, Long.valueOf(value));
+            return;
+        }
+        try {
+            longSetter.invokeExact(bean, value);
+        } catch (final Throwable t) {
+            throw fail(t);
+        }
+    }
+
+    /**
+     * Sets the value of a double property.
+     */
+    public void setDouble(final Object bean, final double value) throws InvocationTargetException {
+        if (doubleSetter == null) {
+            set(bean, Double.valueOf(value));
+            return;
+        }
+        try {
+            doubleSetter.invokeExact(bean, value);
+        } catch (final Throwable t) {
+            throw fail(t);
+        }
+    }
+
+    /**
+     * Sets the value of a boolean property.
+     */
+    public void setBoolean(final Object bean, final boolean value) throws InvocationTargetException {
+        if (booleanSetter == null) {
+            set(bean, Boolean.valueOf(value));
+            return;
+        }
+        try {
+            booleanSetter.invokeExact(bean, value);
+        } catch (final Throwable t) {
+            throw fail(t);
+        }
+    }
+
+    private MethodHandle checkReadable(/* @CheckForNull */final MethodHandle handle) {
+        if (handle == null) {
+            throw new UnsupportedOperationException("Property " + name + " of " + setterMember.getDeclaringClass().getName() + " is write only");
+        }
+        return handle;
+    }
+
+    private MethodHandle checkWritable(/* @CheckForNull */final MethodHandle handle) {
+        if (handle == null) {
+            throw new UnsupportedOperationException("Property " + name + " of " + getterMember.getDeclaringClass().getName() + " is read only");
+        }
+        return handle;
+    }
+
+    /**
+     * Returns what a getter or setter method threw, wrapped by the handle. Failures of field accesses, and of the
+     * accessor itself, are unchecked and thrown as is.
+     */
+    private static InvocationTargetException fail(final Throwable t) {
+        if (t instanceof InvocationTargetException) {
+            return (InvocationTargetException) t;
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        throw new UndeclaredThrowableException(t);
+    }
+
+    @Override
+    public String toString() {
+        return "PropertyAccessor[" + (getterMember != null ? getterMember : "") + (setterMember != null && setterMember != getterMember ? " " + setterMember : "") + "]";
+    }
+}
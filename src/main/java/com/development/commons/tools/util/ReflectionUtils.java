@@ -26,12 +26,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 // import edu.umd.cs.findbugs.annotations.CheckForNull;
 // import edu.umd.cs.findbugs.annotations.DefaultAnnotation;
@@ -46,14 +48,248 @@ import java.util.Set;
 // @DefaultAnnotation(NonNull.class)
 public final class ReflectionUtils {
 
-    private static class ReflectionUtilsCache<T extends AccessibleObject> {
-        private static final long serialVersionUID = 1L;
+    /**
+     * The reflective metadata of one class, built on first use. Held in a {@link ClassValue}, so it goes away with the class and never pins a class loader. All the lists and maps
+     * are immutable once published; callers get copies.
+     */
+    private static final class ReflectionUtilsCache {
+        private static final int GETTER_EXCLUDED_MODIFIERS = Modifier.ABSTRACT | Modifier.PRIVATE | Modifier.PROTECTED | Modifier.STATIC;
+
+        private final Class<?> clazz;
+
+        /** non-static fields, superclass fields first, as {@link ReflectionUtils#getFields(Class)} */
+        private volatile List<Field> fields;
+
+        /** the first of {@link #fields} for each case folded name */
+        private volatile Map<String, Field> fieldsByName;
+
+        /** non-static methods, superclass methods first, as {@link ReflectionUtils#getMethods(Class)} */
+        private volatile List<Method> methods;
+
+        /** public getters (subclass first) by case folded method name, with their position in that order */
+        private volatile Map<String, Getter> gettersByName;
+
+        /** public one argument "set" methods, subclass first, by case folded method name */
+        private volatile Map<String, List<Method>> settersByName;
+
+        private volatile Map<String, Method> propertyGetterMap;
+
+        private final ConcurrentHashMap<AnnotationFilter, List<? extends AccessibleObject>> annotated = new ConcurrentHashMap<AnnotationFilter, List<? extends AccessibleObject>>();
+
+        /** compiled accessors by case folded property name */
+        private final ConcurrentHashMap<String, PropertyAccessor> propertyAccessors = new ConcurrentHashMap<String, PropertyAccessor>();
+
+        /** compiled field accessors by case folded field name */
+        private final ConcurrentHashMap<String, PropertyAccessor> fieldAccessors = new ConcurrentHashMap<String, PropertyAccessor>();
+
+        private ReflectionUtilsCache(final Class<?> clazz) {
+            this.clazz = clazz;
+        }
+
+        List<Field> fields() {
+            List<Field> result = fields;
+            if (result == null) {
+                result = Collections.unmodifiableList(getFields(clazz, Modifier.STATIC));
+                fields = result;
+            }
+            return result;
+        }
+
+        Field field(final String name) {
+            Map<String, Field> map = fieldsByName;
+            if (map == null) {
+                map = new HashMap<String, Field>();
+                for (final Field field : fields()) {
+                    final String key = foldCase(field.getName());
+                    if (!map.containsKey(key)) {
+                        map.put(key, field);
+                    }
+                }
+                fieldsByName = map;
+            }
+            return map.get(foldCase(name));
+        }
+
+        List<Method> methods() {
+            List<Method> result = methods;
+            if (result == null) {
+                result = Collections.unmodifiableList(getMethods(clazz, Modifier.STATIC));
+                methods = result;
+            }
+            return result;
+        }
+
+        Method getter(final String propertyName) {
+            Map<String, Getter> map = gettersByName;
+            if (map == null) {
+                map = new HashMap<String, Getter>();
+                int order = 0;
+                for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+                    for (final Method m : c.getDeclaredMethods()) {
+                        if ((m.getModifiers() & GETTER_EXCLUDED_MODIFIERS) == 0 && isGetterMethod(m)) {
+                            final String key = foldCase(m.getName());
+                            if (!map.containsKey(key)) {
+                                map.put(key, new Getter(m, order));
+                            }
+                            order++;
+                        }
+                    }
+                }
+                gettersByName = map;
+            }
+            // the first of "get" and "is" in the order they were found
+            final Getter get = map.get(foldCase("get" + propertyName));
+            final Getter is = map.get(foldCase("is" + propertyName));
+            if (get == null) {
+                return is == null ? null : is.method;
+            }
+            return is == null || get.order < is.order ? get.method : is.method;
+        }
+
+        List<Method> setters(final String propertyName) {
+            Map<String, List<Method>> map = settersByName;
+            if (map == null) {
+                map = new HashMap<String, List<Method>>();
+                for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+                    for (final Method m : c.getDeclaredMethods()) {
+                        if ((m.getModifiers() & GETTER_EXCLUDED_MODIFIERS) == 0 && m.getParameterTypes().length == 1 && m.getName().length() >= 3
+                                && m.getName().substring(0, 3).equalsIgnoreCase("set")) {
+                            final String key = foldCase(m.getName());
+                            List<Method> list = map.get(key);
+                            if (list == null) {
+                                list = new ArrayList<Method>(1);
+                                map.put(key, list);
+                            }
+                            list.add(m);
+                        }
+                    }
+                }
+                settersByName = map;
+            }
+            final List<Method> result = map.get(foldCase("set" + propertyName));
+            return result == null ? Collections.<Method>emptyList() : result;
+        }
+
+        Map<String, Method> propertyGetterMap() {
+            Map<String, Method> result = propertyGetterMap;
+            if (result == null) {
+                result = Collections.unmodifiableMap(buildPropertyGetterMap(clazz));
+                propertyGetterMap = result;
+            }
+            return result;
+        }
+
+        PropertyAccessor propertyAccessor(final String propertyName) throws NoSuchFieldException {
+            final String key = foldCase(propertyName);
+            PropertyAccessor result = propertyAccessors.get(key);
+            if (result == null) {
+                final Method getter = getter(propertyName);
+                final Method setter = getter != null ? getSetterMethod(clazz, propertyName, getter.getReturnType()) : getSetterMethod(clazz, propertyName);
+                if (getter == null && setter == null) {
+                    throw new NoSuchFieldException(propertyName);
+                }
+                result = PropertyAccessor.forMethods(propertyName, getter, setter);
+                propertyAccessors.putIfAbsent(key, result);
+            }
+            return result;
+        }
+
+        PropertyAccessor fieldAccessor(final String name) throws NoSuchFieldException {
+            final String key = foldCase(name);
+            PropertyAccessor result = fieldAccessors.get(key);
+            if (result == null) {
+                result = PropertyAccessor.forField(getField(clazz, name));
+                fieldAccessors.putIfAbsent(key, result);
+            }
+            return result;
+        }
 
-        public ReflectionUtilsCache() {
-            super();
+        @SuppressWarnings("unchecked")
+        <T extends AccessibleObject> List<T> annotated(final List<T> members, final boolean areFields, final boolean with,
+                final Class<?>[] annotationClasses) {
+            final AnnotationFilter filter = new AnnotationFilter(areFields, with, annotationClasses);
+            List<T> result = (List<T>) annotated.get(filter);
+            if (result == null) {
+                final List<T> list = new ArrayList<T>();
+                for (final T member : members) {
+                    if (isAnnotationPresent(member.getAnnotations(), annotationClasses) == with) {
+                        list.add(member);
+                    }
+                }
+                result = Collections.unmodifiableList(list);
+                annotated.putIfAbsent(filter, result);
+            }
+            return result;
         }
     }
 
+    private static final class Getter {
+        private final Method method;
+
+        private final int order;
+
+        private Getter(final Method method, final int order) {
+            this.method = method;
+            this.order = order;
+        }
+    }
+
+    /**
+     * Key of an annotation filtered list of fields or methods.
+     */
+    private static final class AnnotationFilter {
+        private final boolean fields;
+
+        private final boolean with;
+
+        private final Class<?>[] annotationClasses;
+
+        private AnnotationFilter(final boolean fields, final boolean with, final Class<?>[] annotationClasses) {
+            this.fields = fields;
+            this.with = with;
+            this.annotationClasses = annotationClasses.clone();
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(annotationClasses) * 4 + (fields ? 2 : 0) + (with ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof AnnotationFilter)) {
+                return false;
+            }
+            final AnnotationFilter other = (AnnotationFilter) obj;
+            return fields == other.fields && with == other.with && Arrays.equals(annotationClasses, other.annotationClasses);
+        }
+    }
+
+    private static final ClassValue<ReflectionUtilsCache> CACHE = new ClassValue<ReflectionUtilsCache>() {
+        @Override
+        protected ReflectionUtilsCache computeValue(final Class<?> type) {
+            return new ReflectionUtilsCache(type);
+        }
+    };
+
+    /**
+     * Folds the case of a name so that two names are equal after folding exactly when they are {@link String#equalsIgnoreCase}.
+     */
+    private static String foldCase(final String name) {
+        char[] chars = null;
+        for (int i = 0, n = name.length(); i < n; i++) {
+            final char c = name.charAt(i);
+            final char folded = Character.toLowerCase(Character.toUpperCase(c));
+            if (folded != c) {
+                if (chars == null) {
+                    chars = name.toCharArray();
+                }
+                chars[i] = folded;
+            }
+        }
+        return chars == null ? name : new String(chars);
+    }
+
     private ReflectionUtils() {
         super();
     }
@@ -62,13 +298,7 @@ public final class ReflectionUtils {
      * Get a field by name.
      */
     public static Field getField(final Class<?> clazz, final String name) throws NoSuchFieldException {
-        Field result = null;
-        for (final Field field : getFields(clazz)) {
-            if (field.getName().equalsIgnoreCase(name)) {
-                result = field;
-                break;
-            }
-        }
+        final Field result = CACHE.get(clazz).field(name);
         if (result == null) {
             throw new NoSuchFieldException(name);
         }
@@ -151,7 +381,7 @@ public final class ReflectionUtils {
      *
      * @return true if any of the appropriate positive values are found.
      */
-    private static boolean toBoolean(final String s) {
+    static boolean toBoolean(final String s) {
         if (s == null) {
             return false;
         }
@@ -251,6 +481,32 @@ public final class ReflectionUtils {
         invokeMethod(object, setter, value);
     }
 
+    /**
+     * Returns the compiled accessor of a pseudo field, through its public getter and the public setter taking the getter's type. Resolved once per class and property; use it
+     * instead of {@link #getPseudoFieldValue(Object, String)} and {@link #setPseudoFieldValue(Object, String, Object)} to access the same property of many instances.
+     *
+     * @param clazz
+     *            the class declaring or inheriting the property
+     * @param propertyName
+     *            the name of the property, case insensitive
+     * @throws NoSuchFieldException
+     *             if there is neither a getter nor a setter
+     */
+    public static PropertyAccessor getPropertyAccessor(final Class<?> clazz, final String propertyName) throws NoSuchFieldException {
+        return CACHE.get(clazz).propertyAccessor(propertyName);
+    }
+
+    /**
+     * Returns the compiled accessor of a field, as found by {@link #getField(Class, String)}, private or not. Resolved once per class and field; use it instead of
+     * {@link #getFieldValue(Object, String)} and {@link #setFieldValue(Object, String, Object)} to access the same field of many instances.
+     *
+     * @throws NoSuchFieldException
+     *             if there is no such field
+     */
+    public static PropertyAccessor getFieldAccessor(final Class<?> clazz, final String name) throws NoSuchFieldException {
+        return CACHE.get(clazz).fieldAccessor(name);
+    }
+
     /**
      * Get a method by name.
      */
@@ -439,7 +695,7 @@ public final class ReflectionUtils {
      * List of all the fields of the class, and all of its superclasses. NOTE: This returns the most common kind of fields which by default excludes {@link Modifier#STATIC} fields.
      */
     public static List<Field> getFields(final Class<?> clazz) {
-        return getFields(clazz, Modifier.STATIC);
+        return new ArrayList<Field>(CACHE.get(clazz).fields());
     }
 
     /**
@@ -447,7 +703,7 @@ public final class ReflectionUtils {
      * methods.
      */
     public static List<Method> getMethods(final Class<?> clazz) {
-        return getMethods(clazz, Modifier.STATIC);
+        return new ArrayList<Method>(CACHE.get(clazz).methods());
     }
 
     /**
@@ -522,27 +778,7 @@ public final class ReflectionUtils {
      */
     // @CheckForNull
     public static Method getGetterMethod(final Class<?> clazz, final String propertyName) {
-        Method result = null;
-        final int excludedModifiers = Modifier.ABSTRACT | Modifier.PRIVATE | Modifier.PROTECTED | Modifier.STATIC;
-        final String name1 = "get" + propertyName;
-        final String name2 = "is" + propertyName;
-        MAIN_LOOP: for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
-            for (final Method m : c.getDeclaredMethods()) {
-                final int methodModifiers = m.getModifiers();
-                if ((methodModifiers & excludedModifiers) != 0) {
-                    continue;
-                }
-                final String methodName = m.getName();
-                if ((!name1.equalsIgnoreCase(methodName)) && (!name2.equalsIgnoreCase(methodName))) {
-                    continue;
-                }
-                if (isGetterMethod(m)) {
-                    result = m;
-                    break MAIN_LOOP;
-                }
-            }
-        }
-        return result;
+        return CACHE.get(clazz).getter(propertyName);
     }
 
     /**
@@ -550,27 +786,8 @@ public final class ReflectionUtils {
      */
     // @CheckForNull
     public static Method getSetterMethod(final Class<?> clazz, final String propertyName) {
-        Method result = null;
-        final int excludedModifiers = Modifier.ABSTRACT | Modifier.PRIVATE | Modifier.PROTECTED | Modifier.STATIC;
-        final String name = "set" + propertyName;
-        MAIN_LOOP: for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
-            for (final Method m : c.getDeclaredMethods()) {
-                final int methodModifiers = m.getModifiers();
-                if ((methodModifiers & excludedModifiers) != 0) {
-                    continue;
-                }
-                final String methodName = m.getName();
-                if (!name.equalsIgnoreCase(methodName)) {
-                    continue;
-                }
-                if (m.getParameterTypes().length != 1) {
-                    continue;
-                }
-                result = m;
-                break MAIN_LOOP;
-            }
-        }
-        return result;
+        final List<Method> setters = CACHE.get(clazz).setters(propertyName);
+        return setters.isEmpty() ? null : setters.get(0);
     }
 
     /**
@@ -578,30 +795,12 @@ public final class ReflectionUtils {
      */
     // @CheckForNull
     public static Method getSetterMethod(final Class<?> clazz, final String propertyName, final Class<?> type) {
-        Method result = null;
-        final int excludedModifiers = Modifier.ABSTRACT | Modifier.PRIVATE | Modifier.PROTECTED | Modifier.STATIC;
-        final String name = "set" + propertyName;
-        MAIN_LOOP: for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
-            for (final Method m : c.getDeclaredMethods()) {
-                final int methodModifiers = m.getModifiers();
-                if ((methodModifiers & excludedModifiers) != 0) {
-                    continue;
-                }
-                final String methodName = m.getName();
-                if (!name.equalsIgnoreCase(methodName)) {
-                    continue;
-                }
-                if (m.getParameterTypes().length != 1) {
-                    continue;
-                }
-                if (!m.getParameterTypes()[0].isAssignableFrom(type)) {
-                    continue;
-                }
-                result = m;
-                break MAIN_LOOP;
+        for (final Method m : CACHE.get(clazz).setters(propertyName)) {
+            if (m.getParameterTypes()[0].isAssignableFrom(type)) {
+                return m;
             }
         }
-        return result;
+        return null;
     }
 
     /**
@@ -613,6 +812,10 @@ public final class ReflectionUtils {
      * @return map of getter Methods keyed by property name
      */
     public static Map<String, Method> getPropertyGetterMap(final Class<?> c) {
+        return new LinkedHashMap<String, Method>(CACHE.get(c).propertyGetterMap());
+    }
+
+    private static Map<String, Method> buildPropertyGetterMap(final Class<?> c) {
         // returning a map: key == property name, value == getter method
         final Map<String, Method> result = new LinkedHashMap<String, Method>();
 
@@ -682,56 +885,32 @@ public final class ReflectionUtils {
      * Get all the fields of this object and its superclasses that are annotated with this annotation.
      */
     public static List<Field> getFieldsWithAnnotation(final Class<?> clazz, final Class<?>... annotationClasss) {
-        final List<Field> result = new ArrayList<Field>();
-        final List<Field> fields = getFields(clazz);
-        for (final Field f : fields) {
-            if (isAnnotationPresent(f.getAnnotations(), annotationClasss)) {
-                result.add(f);
-            }
-        }
-        return result;
+        final ReflectionUtilsCache cache = CACHE.get(clazz);
+        return new ArrayList<Field>(cache.annotated(cache.fields(), true, true, annotationClasss));
     }
 
     /**
      * Get all the fields of this object and its superclasses that are not annotated with this annotation.
      */
     public static List<Field> getFieldsWithoutAnnotation(final Class<?> clazz, final Class<?>... annotationClasss) {
-        final List<Field> result = new ArrayList<Field>();
-        final List<Field> fields = getFields(clazz);
-        for (final Field f : fields) {
-            if (!isAnnotationPresent(f.getAnnotations(), annotationClasss)) {
-                result.add(f);
-            }
-        }
-        return result;
+        final ReflectionUtilsCache cache = CACHE.get(clazz);
+        return new ArrayList<Field>(cache.annotated(cache.fields(), true, false, annotationClasss));
     }
 
     /**
      * Get all the methods of this object and its superclasses that are annotated with this annotation.
      */
     public static List<Method> getMethodsWithAnnotation(final Class<?> clazz, final Class<?>... annotationClasses) {
-        final List<Method> result = new ArrayList<Method>();
-        final List<Method> methods = getMethods(clazz);
-        for (final Method m : methods) {
-            if (isAnnotationPresent(m.getAnnotations(), annotationClasses)) {
-                result.add(m);
-            }
-        }
-        return result;
+        final ReflectionUtilsCache cache = CACHE.get(clazz);
+        return new ArrayList<Method>(cache.annotated(cache.methods(), false, true, annotationClasses));
     }
 
     /**
      * Get all the methods of this object and its superclasses that are not annotated with this annotation.
      */
     public static List<Method> getMethodsWithoutAnnotation(final Class<?> clazz, final Class<?>... annotationClasses) {
-        final List<Method> result = new ArrayList<Method>();
-        final List<Method> methods = getMethods(clazz);
-        for (final Method m : methods) {
-            if (!isAnnotationPresent(m.getAnnotations(), annotationClasses)) {
-                result.add(m);
-            }
-        }
-        return result;
+        final ReflectionUtilsCache cache = CACHE.get(clazz);
+        return new ArrayList<Method>(cache.annotated(cache.methods(), false, false, annotationClasses));
     }
 
     /**
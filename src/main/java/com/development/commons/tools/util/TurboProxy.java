@@ -3,12 +3,17 @@ package com.development.commons.tools.util;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import com.google.common.collect.MapMaker;
 
@@ -25,6 +30,23 @@ public abstract class TurboProxy {
     /** cache of proxy class mappings */
     private static Map<Class<?>, ProxyClass> proxyClassCache = new MapMaker().concurrencyLevel(DEFAULT_CONCURRENCY_LEVEL).weakKeys().weakValues().makeMap();
 
+    /** index of equals in the proxy methods */
+    public static final int EQUALS_INDEX = 0;
+
+    /** index of hashCode in the proxy methods */
+    public static final int HASH_CODE_INDEX = 1;
+
+    /** index of toString in the proxy methods */
+    public static final int TO_STRING_INDEX = 2;
+
+    /** cache of the method indexes of the generated proxy classes */
+    private static final ClassValue<MethodIndex> methodIndexes = new ClassValue<MethodIndex>() {
+        @Override
+        protected MethodIndex computeValue(final Class<?> type) {
+            return new MethodIndex(type);
+        }
+    };
+
     /** parameter types of a proxy class constructor */
     private static final Class[] constructorParams = { InvocationHandler.class };
 
@@ -38,7 +60,61 @@ public abstract class TurboProxy {
      * @return the proxy instance
      */
     public static Object newProxyInstance(final Object obj, final InvocationHandler ih) {
-        final Class<?> oc = obj.getClass();
+        return newProxyInstance(getProxyClass(obj.getClass()), ih);
+    }
+
+    /**
+     * Create an instance of object proxy dispatching to an {@link IndexedInvocationHandler}. The handler gets the index
+     * of the method called, see {@link #getProxyMethods(Class)}, rather than having to look the method up. equals,
+     * hashCode and toString calls don't reach the handler: they are answered by <code>obj</code> itself, a proxy being
+     * equal to the objects <code>obj</code> is equal to and to other indexed proxies of objects <code>obj</code> is
+     * equal to.
+     *
+     * @param obj
+     *            the object to be proxied
+     * @param ih
+     *            the indexed invocation handler for the proxy
+     * @return the proxy instance
+     */
+    public static Object newIndexedProxyInstance(final Object obj, final IndexedInvocationHandler ih) {
+        final ProxyClass proxyClass = getProxyClass(obj.getClass());
+        return newProxyInstance(proxyClass, new IndexedDispatcher(obj, ih, methodIndexes.get(proxyClass.cons.getDeclaringClass())));
+    }
+
+    /**
+     * Get the methods of the proxies of a class by their index: equals, hashCode and toString at
+     * {@link #EQUALS_INDEX}, {@link #HASH_CODE_INDEX} and {@link #TO_STRING_INDEX}, then the other methods of all its
+     * interfaces, ordered by name and parameter types. A method declared by several interfaces has one index.
+     *
+     * @param c
+     *            the class of the objects proxied
+     * @return the methods by index
+     */
+    public static Method[] getProxyMethods(final Class<?> c) {
+        return methodIndexes.get(getProxyClass(c).cons.getDeclaringClass()).methods.clone();
+    }
+
+    /**
+     * Get the index of a method of the proxies of a class, see {@link #getProxyMethods(Class)}.
+     *
+     * @param c
+     *            the class of the objects proxied
+     * @param method
+     *            a method of one of its interfaces, or equals, hashCode or toString
+     * @return the index, or -1 if the proxies don't have the method
+     */
+    public static int getMethodIndex(final Class<?> c, final Method method) {
+        return methodIndexes.get(getProxyClass(c).cons.getDeclaringClass()).indexOf(method);
+    }
+
+    /**
+     * Get the cached proxy class of a class
+     *
+     * @param oc
+     *            the class of the object to be proxied
+     * @return the proxy class
+     */
+    private static ProxyClass getProxyClass(final Class<?> oc) {
         ProxyClass proxyClass = proxyClassCache.get(oc);
 
         if (proxyClass == null) {
@@ -46,7 +122,10 @@ public abstract class TurboProxy {
             proxyClass = new ProxyClass(genClass, ProxyAccessHelper.needsNewInstanceCheck(genClass));
             proxyClassCache.put(oc, proxyClass);
         }
+        return proxyClass;
+    }
 
+    private static Object newProxyInstance(final ProxyClass proxyClass, final InvocationHandler ih) {
         final Constructor<?> cons = proxyClass.cons;
         if (System.getSecurityManager() != null && proxyClass.needsNewInstanceCheck) {
             // create proxy instance with doPrivilege as the proxy class may
@@ -87,6 +166,139 @@ public abstract class TurboProxy {
         }
     }
 
+    /**
+     * Invocation handler of the proxies created by {@link TurboProxy#newIndexedProxyInstance(Object, IndexedInvocationHandler)}.
+     */
+    public interface IndexedInvocationHandler {
+        /**
+         * Processes a method call on a proxy.
+         *
+         * @param proxy
+         *            the proxy the method was called on
+         * @param index
+         *            the index of the method, see {@link TurboProxy#getProxyMethods(Class)}
+         * @param method
+         *            the method
+         * @param args
+         *            the arguments, or null if the method has none
+         * @return the value to return from the method call
+         * @throws Throwable
+         *             the exception to throw from the method call
+         */
+        Object invoke(Object proxy, int index, Method method, Object[] args) throws Throwable;
+    }
+
+    /**
+     * Resolves the methods called on a proxy class to their index
+     */
+    private static class MethodIndex {
+        private final Method[] methods;
+
+        /** indexes by method signature */
+        private final Map<String, Integer> bySignature = new HashMap<String, Integer>();
+
+        /**
+         * indexes by the Method instances the proxy class passes, learned as they come; copied on write as there are
+         * only as many as the methods
+         */
+        private volatile Map<Method, Integer> byIdentity = new IdentityHashMap<Method, Integer>();
+
+        MethodIndex(final Class<?> proxyClass) {
+            final TreeMap<String, Method> sorted = new TreeMap<String, Method>();
+            for (final Class<?> intf : proxyClass.getInterfaces()) {
+                for (final Method m : intf.getMethods()) {
+                    if (!Modifier.isStatic(m.getModifiers()) && !sorted.containsKey(signature(m))) {
+                        sorted.put(signature(m), m);
+                    }
+                }
+            }
+            final List<Method> list = new ArrayList<Method>();
+            for (final String name : new String[] { "equals", "hashCode", "toString" }) {
+                final Method m = name.equals("equals") ? getObjectMethod(name, Object.class) : getObjectMethod(name);
+                sorted.remove(signature(m));
+                list.add(m);
+            }
+            list.addAll(sorted.values());
+
+            methods = list.toArray(new Method[list.size()]);
+            for (int i = 0; i < methods.length; ++i) {
+                bySignature.put(signature(methods[i]), i);
+            }
+        }
+
+        int indexOf(final Method method) {
+            Integer index = byIdentity.get(method);
+            if (index == null) {
+                index = bySignature.get(signature(method));
+                if (index == null) {
+                    return -1;
+                }
+                synchronized (this) {
+                    final Map<Method, Integer> copy = new IdentityHashMap<Method, Integer>(byIdentity);
+                    copy.put(method, index);
+                    byIdentity = copy;
+                }
+            }
+            return index;
+        }
+
+        private static Method getObjectMethod(final String name, final Class<?>... parameterTypes) {
+            try {
+                return Object.class.getMethod(name, parameterTypes);
+            } catch (final NoSuchMethodException e) {
+                throw new InternalError(e.toString());
+            }
+        }
+
+        private static String signature(final Method m) {
+            final StringBuilder sb = new StringBuilder(m.getName()).append('(');
+            for (final Class<?> type : m.getParameterTypes()) {
+                sb.append(type.getName()).append(',');
+            }
+            return sb.append(')').toString();
+        }
+    }
+
+    /**
+     * The invocation handler of the indexed proxies: answers equals, hashCode and toString from the proxied object and
+     * hands the other calls to the indexed handler with their index
+     */
+    private static class IndexedDispatcher implements InvocationHandler {
+        private final Object target;
+        private final IndexedInvocationHandler handler;
+        private final MethodIndex methodIndex;
+
+        IndexedDispatcher(final Object target, final IndexedInvocationHandler handler, final MethodIndex methodIndex) {
+            this.target = target;
+            this.handler = handler;
+            this.methodIndex = methodIndex;
+        }
+
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final int index = methodIndex.indexOf(method);
+            switch (index) {
+            case EQUALS_INDEX:
+                final Object other = args[0];
+                if (other == proxy) {
+                    return Boolean.TRUE;
+                }
+                if (other != null && Proxy.isProxyClass(other.getClass())) {
+                    final InvocationHandler otherHandler = Proxy.getInvocationHandler(other);
+                    if (otherHandler instanceof IndexedDispatcher) {
+                        return target.equals(((IndexedDispatcher) otherHandler).target);
+                    }
+                }
+                return target.equals(other);
+            case HASH_CODE_INDEX:
+                return target.hashCode();
+            case TO_STRING_INDEX:
+                return target.toString();
+            default:
+                return handler.invoke(proxy, index, method, args);
+            }
+        }
+    }
+
     /**
      * Core presentation of the proxy class
      */
@@ -0,0 +1,370 @@
+/*
+ * $Id$
+ *
+ * Copyright (C) 2006 SuccessFactors, Inc.
+ * All Rights Reserved
+ */
+package com.development.commons.tools.util.html;
+
+import java.awt.Color;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * CSSDeclarations -- the parsed, immutable form of an inline style
+ * attribute: its declarations in order, with their values already
+ * typed by CSSStyleParser.  Instances are shared through the cache
+ * of CSSUtils.getDeclarations(), so they must never be modified.
+ *
+ * <p>Property names are compared ignoring case.  When a property is
+ * declared more than once, the lookups by name return the last
+ * declaration, as the cascade would.
+ *
+ * @see CSSUtils#getDeclarations(String)
+ * @version $Revision$
+ */
+public final class CSSDeclarations
+{
+    /**
+     * A typed CSS value.
+     */
+    public static final class Value
+    {
+        public static final int NUMBER = 1;
+        public static final int PERCENT = 2;
+        public static final int LENGTH = 3;
+        public static final int STRING = 4;
+        public static final int IDENT = 5;
+        public static final int COLOR = 6;
+        public static final int URL = 7;
+        /** the comma separating the values of a list, e.g. of fonts */
+        public static final int COMMA = 8;
+
+        private final int _kind;
+        private final float _number;
+        private final int _rgb;
+        /** the units of a LENGTH, or the text of a STRING, IDENT or URL */
+        private final String _string;
+
+        Value(int kind, float number, int rgb, String string) {
+            _kind = kind;
+            _number = number;
+            _rgb = rgb;
+            _string = string;
+        }
+
+        /**
+         * @return one of the kind constants of this class.
+         */
+        public int getKind() {
+            return _kind;
+        }
+
+        /**
+         * @return the number of a NUMBER, PERCENT or LENGTH.
+         */
+        public float getNumber() {
+            return _number;
+        }
+
+        /**
+         * @return the units of a LENGTH, e.g. "px".
+         */
+        public String getUnits() {
+            return _kind == LENGTH ? _string : null;
+        }
+
+        /**
+         * @return the text of a STRING, IDENT or URL, unescaped.
+         */
+        public String getString() {
+            return _kind == LENGTH ? null : _string;
+        }
+
+        /**
+         * @return the 0xRRGGBB value of a COLOR.
+         */
+        public int getRGB() {
+            return _rgb;
+        }
+
+        /**
+         * Returns the color of a COLOR, or of an IDENT naming a CSS
+         * color.
+         *
+         * @return the color, or null if the value is not a color.
+         */
+        public Color getColor() {
+            if (_kind == COLOR) {
+                return new Color(_rgb);
+            }
+            if (_kind == IDENT) {
+                return CSSUtils.cssNamedColor(_string);
+            }
+            return null;
+        }
+
+        /**
+         * Returns the value in CSS notation, formatted like the
+         * CSSStyleParser.value() callback.
+         */
+        @Override
+        public String toString() {
+            switch (_kind) {
+            case NUMBER:
+                return Float.toString(_number);
+            case PERCENT:
+                return (int) (_number + 0.5f) + "%";
+            case LENGTH:
+                return _number + _string;
+            case STRING:
+                return "'" + CSSUtils.escapeString(_string) + "'";
+            case COLOR:
+                String str = Integer.toHexString(_rgb | 0x1000000);
+                return "#" + str.substring(str.length() - 6);
+            case URL:
+                return "url('" + CSSUtils.escapeString(_string) + "')";
+            case COMMA:
+                return ",";
+            default:
+                return _string;
+            }
+        }
+    }
+
+    private final String[] _names;
+    private final List<Value>[] _values;
+    private final boolean[] _important;
+
+    /** the index of the last declaration of each lower case name */
+    private final Map<String, Integer> _index;
+
+    /** the offset of the parse error, or -1 */
+    private final int _errorOffset;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private CSSDeclarations(List<String> names, List<List<Value>> values, List<Boolean> important, int errorOffset) {
+        int n = names.size();
+        _names = names.toArray(new String[n]);
+        _values = new List[n];
+        _important = new boolean[n];
+        _index = new HashMap<String, Integer>(n * 2);
+        for (int i = 0; i < n; ++i) {
+            _values[i] = Collections.unmodifiableList(values.get(i));
+            _important[i] = important.get(i);
+            _index.put(_names[i].toLowerCase(Locale.ENGLISH), i);
+        }
+        _errorOffset = errorOffset;
+    }
+
+    /**
+     * Parses a style.  Prefer CSSUtils.getDeclarations(), which caches
+     * the result.
+     *
+     * @param style the content of a style attribute.
+     * @return the declarations.  If the style does not parse, the
+     * declarations before the error.
+     */
+    public static CSSDeclarations parse(CharSequence style) {
+        Builder builder = new Builder(style);
+        int errorOffset = -1;
+        try {
+            builder.parse();
+        } catch (ParseException e) {
+            errorOffset = e.getErrorOffset();
+        }
+        return new CSSDeclarations(builder._names, builder._values, builder._important, errorOffset);
+    }
+
+    /**
+     * @return true if the whole style parsed.
+     */
+    public boolean isValid() {
+        return _errorOffset == -1;
+    }
+
+    /**
+     * @return the offset of the parse error, or -1 if the style is
+     * valid.
+     */
+    public int getErrorOffset() {
+        return _errorOffset;
+    }
+
+    /**
+     * @return the number of declarations, including repeated ones.
+     */
+    public int size() {
+        return _names.length;
+    }
+
+    /**
+     * @return the property name of the declaration at
+     * <code>index</code>, as it appeared in the style.
+     */
+    public String getName(int index) {
+        return _names[index];
+    }
+
+    /**
+     * @return the values of the declaration at <code>index</code>.
+     */
+    public List<Value> getValues(int index) {
+        return _values[index];
+    }
+
+    /**
+     * @return true if the declaration at <code>index</code> is
+     * "!important".
+     */
+    public boolean isImportant(int index) {
+        return _important[index];
+    }
+
+    private int indexOf(String property) {
+        Integer index = _index.get(property);
+        if (index == null) {
+            index = _index.get(property.toLowerCase(Locale.ENGLISH));
+        }
+        return index == null ? -1 : index.intValue();
+    }
+
+    /**
+     * @return true if <code>property</code> is declared.
+     */
+    public boolean contains(String property) {
+        return indexOf(property) != -1;
+    }
+
+    /**
+     * Returns the values of a property.
+     *
+     * @param property the property name, e.g. "font-family".
+     * @return the values, or an empty list if the property is not
+     * declared.
+     */
+    public List<Value> getValues(String property) {
+        int index = indexOf(property);
+        return index == -1 ? Collections.<Value>emptyList() : _values[index];
+    }
+
+    /**
+     * Returns the first value of a property, e.g. the only value of
+     * "color".
+     *
+     * @param property the property name.
+     * @return the value, or null if the property is not declared.
+     */
+    public Value getValue(String property) {
+        List<Value> values = getValues(property);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * Returns the last color value of a property, either a COLOR or
+     * an IDENT naming a CSS color.
+     *
+     * @param property the property name, e.g. "background".
+     * @return the color, or null if the property has no color value.
+     */
+    public Color getColor(String property) {
+        Color color = null;
+        for (Value value : getValues(property)) {
+            Color c = value.getColor();
+            if (c != null) {
+                color = c;
+            }
+        }
+        return color;
+    }
+
+    /**
+     * @return true if the last declaration of <code>property</code> is
+     * "!important".
+     */
+    public boolean isImportant(String property) {
+        int index = indexOf(property);
+        return index != -1 && _important[index];
+    }
+
+    /**
+     * Collects the declarations from the CSSStyleParser callbacks.
+     */
+    private static final class Builder extends CSSStyleParser {
+
+        final List<String> _names = new ArrayList<String>();
+        final List<List<Value>> _values = new ArrayList<List<Value>>();
+        final List<Boolean> _important = new ArrayList<Boolean>();
+
+        private static final Value COMMA_VALUE = new Value(Value.COMMA, 0, 0, null);
+
+        private List<Value> _current;
+
+        Builder(CharSequence style) {
+            super(style);
+        }
+
+        private void add(Value value) {
+            _current.add(value);
+        }
+
+        @Override
+        protected void declaration(String name) {
+            _current = new ArrayList<Value>(2);
+            _names.add(name);
+            _values.add(_current);
+            _important.add(Boolean.FALSE);
+        }
+
+        @Override
+        protected void number(float number) {
+            add(new Value(Value.NUMBER, number, 0, null));
+        }
+
+        @Override
+        protected void percent(float percent) {
+            add(new Value(Value.PERCENT, percent, 0, null));
+        }
+
+        @Override
+        protected void length(float length, String units) {
+            add(new Value(Value.LENGTH, length, 0, units));
+        }
+
+        @Override
+        protected void string(String string) {
+            add(new Value(Value.STRING, 0, 0, string));
+        }
+
+        @Override
+        protected void ident(String ident) {
+            add(new Value(Value.IDENT, 0, 0, ident));
+        }
+
+        @Override
+        protected void color(int rgb) {
+            add(new Value(Value.COLOR, 0, rgb, null));
+        }
+
+        @Override
+        protected void url(String url) {
+            add(new Value(Value.URL, 0, 0, url));
+        }
+
+        @Override
+        protected void comma() {
+            add(COMMA_VALUE);
+        }
+
+        @Override
+        protected void important() {
+            _important.set(_important.size() - 1, Boolean.TRUE);
+        }
+    }
+
+} // CSSDeclarations
@@ -6,10 +6,7 @@
  */
 package com.development.commons.tools.util.html;
 
-import java.nio.CharBuffer;
 import java.text.ParseException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * CSSStyleParser
@@ -21,7 +18,12 @@ public class CSSStyleParser {
 
     static final boolean debug = false;
 
-    CharBuffer _buffer;
+    /** the style being parsed */
+    final String _input;
+    /** the offset of the next character to tokenize */
+    int _pos;
+    /** the length of _input */
+    final int _end;
 
     int _tokenKind;
     int _tokenColor;
@@ -30,8 +32,9 @@ public class CSSStyleParser {
     String _tokenUnits;
 
     public CSSStyleParser(CharSequence style) {
-        char[] charArray = style.toString().toCharArray(); // Workaround for AYT-3651
-        _buffer = CharBuffer.wrap(charArray);
+        // a snapshot, in case the sequence is changed while parsing
+        _input = style.toString();
+        _end = _input.length();
     }
 
     //==================================================================
@@ -117,7 +120,7 @@ public class CSSStyleParser {
     }
 
     public int position() {
-        return _buffer.position();
+        return _pos;
     }
 
     void parseDeclarations() throws ParseException {
@@ -149,7 +152,7 @@ public class CSSStyleParser {
 
         if (_tokenKind != IDENT) {
             throw new ParseException(
-                    "expected style name", _buffer.position());
+                    "expected style name", _pos);
         }
 
 //    if (debug) logger.info("declaration: '"+_tokenString+"'");
@@ -158,7 +161,7 @@ public class CSSStyleParser {
 
         if (nextToken() != COLON) {
             throw new ParseException(
-                    "expected ':' after style name", _buffer.position());
+                    "expected ':' after style name", _pos);
         }
 
         _tokenKind = nextToken();
@@ -248,7 +251,7 @@ public class CSSStyleParser {
 
             default:
                 throw new ParseException(
-                        "expected style value", _buffer.position());
+                        "expected style value", _pos);
         }
 
         _tokenKind = nextToken();
@@ -256,109 +259,298 @@ public class CSSStyleParser {
 
     //==================================================================
     // Tokenizer Routines
+    //
+    // The tokens are scanned character by character.  Each consumeXXX
+    // method accepts exactly what the regular expression in its
+    // comment would match at the current position, and leaves the
+    // position unchanged if it returns false.
     //==================================================================
 
-    private static Pattern PATTERN_IDENT = Pattern.compile(
-            "[a-zA-Z\u00a1-\u00ff][-a-zA-Z0-9\u00a1-\u00ff]*");
-    private static final Pattern PATTERN_HEXCOLOR = Pattern.compile(
-            "#([0-9a-fA-F]+)");
-    private static final Pattern PATTERN_RGB = Pattern.compile(
-            "rgb\\(" +
-                    "\\s*([0-9]+(?:\\.[0-9]+)?|\\.[0-9]+)(%?)\\s*," +
-                    "\\s*([0-9]+(?:\\.[0-9]+)?|\\.[0-9]+)(%?)\\s*," +
-                    "\\s*([0-9]+(?:\\.[0-9]+)?|\\.[0-9]+)(%?)\\s*\\)",
-            Pattern.CASE_INSENSITIVE);
+    /** units of a NUMBER token, as returned for lower case input */
+    private static final String[] UNITS = {
+            "pt", "mm", "cm", "pc", "in", "px", "em", "ex"
+    };
 
-    private static final String REGEX_STRING =
-            "\"(?:[\\t -~\200-\377&&[^\"\\\\]]|(?:\\\\[\\r\\n\\t -~\200-\377]))*\"|" +
-                    "\'(?:[\\t -~\200-\377&&[^\'\\\\]]|(?:\\\\[\\r\\n\\t -~\200-\377]))*\'";
+    /** exactly representable powers of ten for parseFloat() */
+    private static final float[] POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
 
-    //according to http://stackoverflow.com/questions/15082010/stackoverflowerror-when-matching-large-input-using-regex
-    //adding + at the end to resolve StackOverflowError problem to make quantifier possessive
-    private static final String REGEX_URL =
-            "(?:[!-~&&[^\'\"\\(\\)\\\\]]|\\\\(?:[ -~\200-\377&&[^0-9a-fA-F]]|[0-9a-fA-F]{1,4}[ \\t\\r\\n]?))*+";
+    static boolean isSpace(char ch) {
+        return ch == ' ' || ch == '\n' || ch == '\t' || ch == '\r';
+    }
 
-    private static final Pattern PATTERN_STRING = Pattern.compile(
-            REGEX_STRING);
+    /**
+     * The characters matched by regex <code>\s</code>.
+     */
+    private static boolean isRegexSpace(char ch) {
+        return isSpace(ch) || ch == '\013' || ch == '\f';
+    }
 
-    private static final Pattern PATTERN_URL = Pattern.compile(
-            "[uU][rR][lL]\\(\\s*((?:" + REGEX_STRING + ")|(?:" + REGEX_URL + "))\\s*\\)");
+    private static boolean isDigit(char ch) {
+        return '0' <= ch && ch <= '9';
+    }
 
-    private static final Pattern PATTERN_NUMBER = Pattern.compile(
-            "([+-]?\\d+(?:\\.\\d+)?|\\.\\d+)(%|pt|mm|cm|pc|in|px|em|ex)?",
-            Pattern.CASE_INSENSITIVE);
+    private static boolean isIdentStart(char ch) {
+        return ('a' <= ch && ch <= 'z') || ('A' <= ch && ch <= 'Z') || ('\u00a1' <= ch && ch <= '\u00ff');
+    }
 
-    private static final Pattern PATTERN_IMPORTANT = Pattern.compile(
-            "!\\s*important");
+    private static boolean isIdentPart(char ch) {
+        return isIdentStart(ch) || isDigit(ch) || ch == '-';
+    }
 
-    static boolean isSpace(char ch) {
-        return ch == ' ' || ch == '\n' || ch == '\t' || ch == '\r';
+    /**
+     * The characters allowed in a quoted string, unescaped (not
+     * counting the quotes and backslash) and after a backslash.
+     */
+    private static boolean isStringChar(char ch) {
+        return ch == '\t' || (' ' <= ch && ch <= '~') || ('\200' <= ch && ch <= '\377');
+    }
+
+    private char peek(int offset) {
+        return _pos + offset < _end ? _input.charAt(_pos + offset) : '\0';
+    }
+
+    private int skipRegexSpaces(int i) {
+        while (i < _end && isRegexSpace(_input.charAt(i))) {
+            ++i;
+        }
+        return i;
+    }
+
+    /**
+     * Scans <code>[0-9]+(?:\.[0-9]+)?|\.[0-9]+</code> from
+     * <code>i</code>.
+     *
+     * @return the end of the number, or -1 if there is none.
+     */
+    private int scanUnsignedNumber(int i) {
+        int start = i;
+        while (i < _end && isDigit(_input.charAt(i))) {
+            ++i;
+        }
+        if (i + 1 < _end && _input.charAt(i) == '.' && isDigit(_input.charAt(i + 1))) {
+            i += 2;
+            while (i < _end && isDigit(_input.charAt(i))) {
+                ++i;
+            }
+        }
+        return i == start ? -1 : i;
     }
 
-    private void advance(Matcher m) {
-        _buffer.position(_buffer.position() + m.end());
+    /**
+     * Float.parseFloat() of _input[start..end), which holds an
+     * optionally signed number as matched by scanUnsignedNumber.  Up to
+     * seven significant digits and ten decimals, the digits and the
+     * power of ten are exact floats and a single division gives the
+     * correctly rounded result, without creating a String.
+     */
+    private float parseFloat(int start, int end) {
+        boolean negative = false;
+        int i = start;
+        char ch = _input.charAt(i);
+        if (ch == '-' || ch == '+') {
+            negative = ch == '-';
+            ++i;
+        }
+
+        int mantissa = 0;
+        int decimals = -1;
+        for (; i < end; ++i) {
+            ch = _input.charAt(i);
+            if (ch == '.') {
+                decimals = 0;
+                continue;
+            }
+            mantissa = mantissa * 10 + (ch - '0');
+            if (mantissa >= (1 << 24)) {
+                return Float.parseFloat(_input.substring(start, end));
+            }
+            if (decimals >= 0) {
+                ++decimals;
+            }
+        }
+
+        if (decimals >= POWERS_OF_TEN.length) {
+            return Float.parseFloat(_input.substring(start, end));
+        }
+
+        float value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+        return negative ? -value : value;
     }
 
     boolean consumeRGB() {
-        Matcher m = PATTERN_RGB.matcher(_buffer);
-        if (!m.lookingAt()) {
+        // rgb\(\s*(NUM)(%?)\s*,\s*(NUM)(%?)\s*,\s*(NUM)(%?)\s*\)
+        // case-insensitive, NUM as in scanUnsignedNumber
+
+        if (_pos + 4 > _end
+            || (_input.charAt(_pos) | 0x20) != 'r'
+            || (_input.charAt(_pos + 1) | 0x20) != 'g'
+            || (_input.charAt(_pos + 2) | 0x20) != 'b'
+            || _input.charAt(_pos + 3) != '(') {
             return false;
         }
 
-        float r = Float.parseFloat(m.group(1));
-        if ("%".equals(m.group(2))) r *= 2.55f;
-        if (r >= 256) r = 255;
+        int i = _pos + 4;
+        int rgb = 0;
 
-        float g = Float.parseFloat(m.group(3));
-        if ("%".equals(m.group(4))) g *= 2.55f;
-        if (g >= 256) g = 255;
+        for (int component = 0; component < 3; ++component) {
+            i = skipRegexSpaces(i);
+            int start = i;
+            i = scanUnsignedNumber(i);
+            if (i == -1) {
+                return false;
+            }
+
+            float value = parseFloat(start, i);
+            if (i < _end && _input.charAt(i) == '%') {
+                value *= 2.55f;
+                ++i;
+            }
+            if (value >= 256) {
+                value = 255;
+            }
+            rgb = (rgb << 8) | (int) value;
 
-        float b = Float.parseFloat(m.group(5));
-        if ("%".equals(m.group(6))) b *= 2.55f;
-        if (b >= 256) b = 255;
+            i = skipRegexSpaces(i);
+            if (i >= _end || _input.charAt(i) != (component < 2 ? ',' : ')')) {
+                return false;
+            }
+            ++i;
+        }
 
-        _tokenColor = (((int) r) << 16) | (((int) g) << 8) | ((int) b);
-        advance(m);
+        _tokenColor = rgb;
+        _pos = i;
         return true;
     }
 
     boolean consumeURL() {
-        try {
+        // [uU][rR][lL]\(\s*(STRING|URLCHARS)\s*\)
+
+        if (_pos + 4 > _end
+            || (_input.charAt(_pos) | 0x20) != 'u'
+            || (_input.charAt(_pos + 1) | 0x20) != 'r'
+            || (_input.charAt(_pos + 2) | 0x20) != 'l'
+            || _input.charAt(_pos + 3) != '(') {
+            return false;
+        }
+
+        int start = skipRegexSpaces(_pos + 4);
+        int end;
+        String url;
 
-            Matcher m = PATTERN_URL.matcher(_buffer);
-            if (!m.lookingAt()) {
+        if (start < _end && (_input.charAt(start) == '\'' || _input.charAt(start) == '\"')) {
+            end = scanString(start);
+            if (end == -1) {
                 return false;
             }
+            url = unescape(start + 1, end - 1);
+        } else {
+            end = scanUrl(start);
+            url = unescape(start, end);
+        }
+
+        int i = skipRegexSpaces(end);
+        if (i >= _end || _input.charAt(i) != ')') {
+            return false;
+        }
 
-            String str = m.group(1);
+        _tokenString = url;
+        _pos = i + 1;
+        return true;
+    }
 
-            if (str.length() > 0 && (str.charAt(0) == '\'' || str.charAt(0) == '\"')) {
-                _tokenString = unescape(str, 1, str.length() - 1);
+    /**
+     * Scans the unquoted URL characters from <code>i</code>:
+     * <pre>
+     * (?:[!-~&amp;&amp;[^'"()\\]]
+     *   |\\(?:[ -~\200-\377&amp;&amp;[^0-9a-fA-F]]|[0-9a-fA-F]{1,4}[ \t\r\n]?))*+
+     * </pre>
+     *
+     * @return the end of the URL.
+     */
+    private int scanUrl(int i) {
+        while (i < _end) {
+            char ch = _input.charAt(i);
+            if (ch == '\\') {
+                if (i + 1 >= _end) {
+                    return i;
+                }
+                ch = _input.charAt(i + 1);
+                if (fromHex(ch) != -1) {
+                    int j = i + 2;
+                    while (j < i + 5 && j < _end && fromHex(_input.charAt(j)) != -1) {
+                        ++j;
+                    }
+                    if (j < _end) {
+                        ch = _input.charAt(j);
+                        if (ch == ' ' || ch == '\t' || ch == '\r' || ch == '\n') {
+                            ++j;
+                        }
+                    }
+                    i = j;
+                } else if ((' ' <= ch && ch <= '~') || ('\200' <= ch && ch <= '\377')) {
+                    i += 2;
+                } else {
+                    return i;
+                }
+            } else if ('!' <= ch && ch <= '~' && ch != '\'' && ch != '\"' && ch != '(' && ch != ')') {
+                ++i;
             } else {
-                _tokenString = unescape(str, 0, str.length());
+                return i;
             }
+        }
+        return i;
+    }
 
-            advance(m);
-            return true;
-
-        } catch (StackOverflowError error) {
-//      logger.error("UI-6008 CSSStyleParser stackoverflow error. String to parser is:'" + _buffer + "'", error);
-            return false;
+    /**
+     * Scans a quoted string starting at the quote at <code>i</code>:
+     * <pre>
+     * "(?:[\t -~\200-\377&amp;&amp;[^"\\]]|(?:\\[\r\n\t -~\200-\377]))*"
+     * </pre>
+     * or the same with single quotes.
+     *
+     * @return the end of the string, after the closing quote, or -1
+     * if it is not a valid string.
+     */
+    private int scanString(int i) {
+        char quote = _input.charAt(i++);
+        while (i < _end) {
+            char ch = _input.charAt(i++);
+            if (ch == quote) {
+                return i;
+            }
+            if (ch == '\\') {
+                if (i >= _end) {
+                    return -1;
+                }
+                ch = _input.charAt(i++);
+                if (!isStringChar(ch) && ch != '\r' && ch != '\n') {
+                    return -1;
+                }
+            } else if (!isStringChar(ch)) {
+                return -1;
+            }
         }
+        return -1;
     }
 
     boolean consumeHexColor() {
-        Matcher m = PATTERN_HEXCOLOR.matcher(_buffer);
-        if (!m.lookingAt()) {
-            return false;
+        // #([0-9a-fA-F]+), either 3 or 6 digits
+
+        int i = _pos + 1;
+        int rgb = 0;
+        int digit;
+        while (i < _end && (digit = fromHex(_input.charAt(i))) != -1) {
+            rgb = (rgb << 4) | digit;
+            ++i;
         }
 
-        int len = m.end(1);
-        int rgb = Integer.parseInt(m.group(1), 16);
+        int len = i - _pos;
 
         if (len == 7) {
             _tokenColor = rgb;
-            advance(m);
+            _pos = i;
             return true;
         }
 
@@ -367,7 +559,7 @@ public class CSSStyleParser {
             int g = (rgb >> 4) & 0xf;
             int b = rgb & 0xf;
             _tokenColor = r * 0x110000 + g * 0x1100 + b * 0x11;
-            advance(m);
+            _pos = i;
             return true;
         }
 
@@ -386,16 +578,25 @@ public class CSSStyleParser {
         }
     }
 
-    private String unescape(String str, int startIndex, int endIndex) {
-        StringBuffer buf = new StringBuffer(endIndex - startIndex);
+    /**
+     * Returns _input[startIndex..endIndex) with CSS escapes replaced.
+     */
+    private String unescape(int startIndex, int endIndex) {
+        int i = _input.indexOf('\\', startIndex);
+        if (i == -1 || i >= endIndex) {
+            return _input.substring(startIndex, endIndex);
+        }
+
+        StringBuilder buf = new StringBuilder(endIndex - startIndex);
+        buf.append(_input, startIndex, i);
 
-        for (int i = startIndex; i < endIndex; ++i) {
-            char ch = str.charAt(i);
+        for (; i < endIndex; ++i) {
+            char ch = _input.charAt(i);
             if (ch != '\\') {
                 buf.append(ch);
             } else {
                 if (i + 1 < endIndex) {
-                    ch = str.charAt(++i);
+                    ch = _input.charAt(++i);
                     int value = 0;
 
                     if ((value = fromHex(ch)) == -1) {
@@ -404,12 +605,12 @@ public class CSSStyleParser {
                         int lim = Math.min(i + 4, endIndex);
                         int hex;
 
-                        while (i + 1 < lim && (hex = fromHex(str.charAt(i + 1))) != -1) {
+                        while (i + 1 < lim && (hex = fromHex(_input.charAt(i + 1))) != -1) {
                             value = value * 16 + hex;
                             ++i;
                         }
 
-                        if (i + 1 < endIndex && str.charAt(i + 1) == ' ') {
+                        if (i + 1 < endIndex && _input.charAt(i + 1) == ' ') {
                             ++i;
                         }
 
@@ -423,97 +624,124 @@ public class CSSStyleParser {
     }
 
     boolean consumeString() {
-        Matcher m = PATTERN_STRING.matcher(_buffer);
-        if (!m.lookingAt()) {
+        int end = scanString(_pos);
+        if (end == -1) {
             return false;
         }
 
-        String str = m.group();
-        _tokenString = unescape(str, 1, str.length() - 1);
-        advance(m);
+        _tokenString = unescape(_pos + 1, end - 1);
+        _pos = end;
         return true;
     }
 
     boolean consumeIdent() {
-        Matcher m = PATTERN_IDENT.matcher(_buffer);
-        if (!m.lookingAt()) {
+        // [a-zA-Z\u00a1-\u00ff][-a-zA-Z0-9\u00a1-\u00ff]*
+
+        if (!isIdentStart(peek(0))) {
             return false;
         }
 
-        _tokenString = m.group();
-        advance(m);
+        int i = _pos + 1;
+        while (i < _end && isIdentPart(_input.charAt(i))) {
+            ++i;
+        }
+
+        _tokenString = _input.substring(_pos, i);
+        _pos = i;
         return true;
     }
 
     boolean consumeNumber() {
-        Matcher m = PATTERN_NUMBER.matcher(_buffer);
-        if (!m.lookingAt()) {
+        // ([+-]?\d+(?:\.\d+)?|\.\d+)(%|pt|mm|cm|pc|in|px|em|ex)?
+        // units case-insensitive
+
+        int i = _pos;
+        char ch = peek(0);
+        if ((ch == '-' || ch == '+') && isDigit(peek(1))) {
+            ++i;
+        }
+        i = scanUnsignedNumber(i);
+        if (i == -1) {
             return false;
         }
 
-        _tokenNumber = Float.parseFloat(m.group(1));
-        _tokenUnits = m.group(2);
-        advance(m);
+        _tokenNumber = parseFloat(_pos, i);
+        _tokenUnits = null;
+
+        if (i < _end && _input.charAt(i) == '%') {
+            _tokenUnits = "%";
+            ++i;
+        } else if (i + 1 < _end) {
+            char c1 = _input.charAt(i);
+            char c2 = _input.charAt(i + 1);
+            for (String units : UNITS) {
+                if ((c1 | 0x20) == units.charAt(0) && (c2 | 0x20) == units.charAt(1)) {
+                    _tokenUnits = (c1 == units.charAt(0) && c2 == units.charAt(1))
+                            ? units : _input.substring(i, i + 2);
+                    i += 2;
+                    break;
+                }
+            }
+        }
+
+        _pos = i;
         return true;
     }
 
     boolean consumeImportant() {
-        Matcher m = PATTERN_IMPORTANT.matcher(_buffer);
-        if (!m.lookingAt()) {
+        // !\s*important
+
+        int i = skipRegexSpaces(_pos + 1);
+        if (!_input.startsWith("important", i)) {
             return false;
         }
 
-        advance(m);
+        _pos = i + "important".length();
         return true;
     }
 
     int nextToken() throws ParseException {
-        for (; ; ) {
-            if (_buffer.remaining() == 0) {
-                return EOF;
-            }
-            if (!isSpace(_buffer.charAt(0))) {
-                break;
-            }
-            _buffer.get();
+        while (_pos < _end && isSpace(_input.charAt(_pos))) {
+            ++_pos;
+        }
+        if (_pos == _end) {
+            return EOF;
         }
 
-        Matcher m;
-        int tokenStart = _buffer.position();
-        switch (_buffer.charAt(0)) {
+        switch (_input.charAt(_pos)) {
             case ':':
-                _buffer.get();
+                ++_pos;
                 return COLON;
             case '-':
                 if (consumeNumber()) {
                     return NUMBER;
                 }
-                _buffer.get();
+                ++_pos;
                 return MINUS;
             case '+':
-                _buffer.get();
+                ++_pos;
                 return PLUS;
             case '/':
-                _buffer.get();
+                ++_pos;
                 return SLASH;
             case ',':
-                _buffer.get();
+                ++_pos;
                 return COMMA;
             case ';':
-                _buffer.get();
+                ++_pos;
                 return SEMICOLON;
             case '!':
                 if (consumeImportant()) {
                     return IMPORTANT;
                 }
                 throw new ParseException(
-                        "unexpected character sequence", _buffer.position());
+                        "unexpected character sequence", _pos);
             case '#':
                 if (consumeHexColor()) {
                     return COLOR;
                 }
                 throw new ParseException(
-                        "invalid #RGB color", _buffer.position());
+                        "invalid #RGB color", _pos);
 
             case 'r':
             case 'R':
@@ -533,7 +761,7 @@ public class CSSStyleParser {
                     return STRING;
                 }
                 throw new ParseException(
-                        "invalid quoted string", _buffer.position());
+                        "invalid quoted string", _pos);
         }
 
         if (consumeIdent()) {
@@ -545,7 +773,7 @@ public class CSSStyleParser {
         }
 
         throw new ParseException(
-                "unrecognized character sequence", _buffer.position());
+                "unrecognized character sequence", _pos);
     }
 
 } // CSSStyleParser
@@ -8,7 +8,9 @@ package com.development.commons.tools.util.html;
 
 import java.awt.Color;
 import java.util.HashMap;
-import java.text.ParseException;
+import java.util.List;
+
+import com.development.commons.tools.util.LruCache;
 
 /**
  * CSSUtils
@@ -172,45 +174,96 @@ public class CSSUtils
     return (Color)_cssColorNameMap.get(name);
   }
 
+  /** the maximum number of parsed styles kept by getDeclarations() */
+  private static final int DECLARATION_CACHE_SIZE = 1024;
+
+  /** longer styles are parsed each time rather than cached */
+  private static final int MAX_CACHED_STYLE_LENGTH = 512;
+
+  private static final LruCache<String,CSSDeclarations> _declarationCache =
+    new LruCache<String,CSSDeclarations>(DECLARATION_CACHE_SIZE);
+
+  /**
+   * Returns the parsed declarations of an inline style.  The same
+   * style strings tend to repeat across the elements of a document,
+   * so the result is cached and shared; it is immutable.
+   *
+   * @param style the content of a style attribute.
+   * @return the declarations, never null.  Check isValid() to see
+   * whether the whole style parsed.
+   */
+  public static CSSDeclarations getDeclarations(String style) {
+    if (style.length() > MAX_CACHED_STYLE_LENGTH) {
+      return CSSDeclarations.parse(style);
+    }
+    CSSDeclarations decls = _declarationCache.get(style);
+    if (decls == null) {
+      decls = CSSDeclarations.parse(style);
+      _declarationCache.put(style, decls);
+    }
+    return decls;
+  }
+
+  /**
+   * Returns the value of a property of an inline style, in CSS
+   * notation, e.g. "12.0px" for "font-size".
+   *
+   * @return the value, or null if the property is not declared.
+   */
+  public static String getPropertyValue(String style, String property) {
+    List<CSSDeclarations.Value> values = getDeclarations(style).getValues(property);
+    if (values.isEmpty()) {
+      return null;
+    }
+    StringBuilder buf = new StringBuilder();
+    for (CSSDeclarations.Value value : values) {
+      if (buf.length() > 0 && value.getKind() != CSSDeclarations.Value.COMMA) {
+        buf.append(' ');
+      }
+      buf.append(value);
+    }
+    return buf.toString();
+  }
+
+  /**
+   * Returns the color of a property of an inline style, e.g. "color"
+   * or "border-color".
+   *
+   * @return the color, or null if the property has no color value.
+   */
+  public static Color getPropertyColor(String style, String property) {
+    return getDeclarations(style).getColor(property);
+  }
+
   /**
    * Extracts and returns the background color from a CSS style
    * string.
+   *
+   * @return the color, or null if there is none or the style does
+   * not parse.
    */
   public static Color extractBackgroundColorFromStyle(String style) {
-    try {
-      return (new CSSStyleParser(style) {
-        boolean background;
-        Color color;
-
-        protected void declaration(String name) {
-          background = ("background".equalsIgnoreCase(name) ||
-                        "background-color".equalsIgnoreCase(name));
-        }
-
-        protected void color(int rgb) {
-          if (background) {
-            color = new Color(rgb);
-          }
-        }
+    CSSDeclarations decls = getDeclarations(style);
+    if (!decls.isValid()) {
+      return null;
+    }
 
-        protected void ident(String name) {
-          if (background) {
-            Color c = cssNamedColor(name);
-            if (c != null) {
-              color = c;
-            }
+    // "background" and "background-color" may both be declared, the
+    // last color wins
+    Color color = null;
+    for (int i=0, n=decls.size() ; i<n ; ++i) {
+      String name = decls.getName(i);
+      if ("background".equalsIgnoreCase(name) ||
+          "background-color".equalsIgnoreCase(name)) {
+        for (CSSDeclarations.Value value : decls.getValues(i)) {
+          Color c = value.getColor();
+          if (c != null) {
+            color = c;
           }
         }
-
-        Color color() throws ParseException {
-          parse();
-          return color;
-        }
-      }).color();
-    } catch (ParseException e) {
-      e.printStackTrace();
-      return null;
+      }
     }
+    return color;
   }
 
   public static StringBuffer escapeString(StringBuffer buf, String str) {
@@ -0,0 +1,151 @@
+/*
+ * $Id$
+ *
+ * Copyright (C) 2006 SuccessFactors, Inc.
+ * All Rights Reserved
+ */
+package com.development.commons.tools.util.html;
+
+import java.util.Arrays;
+
+/**
+ * HtmlEntityTrie -- a character trie over the named HTML entities.
+ * HtmlParser walks it one character at a time while scanning an
+ * entity reference in its buffer, so that decoding "&amp;nbsp;" needs
+ * neither a substring nor a hash lookup.
+ *
+ * <p>Nodes are ints.  The root's children are held in a table indexed
+ * by character; deeper nodes, which have few children, are kept as
+ * sibling lists.  A node that does not exist is represented by
+ * NO_NODE, which is also a valid argument to child() so callers can
+ * keep walking without checking.
+ *
+ * @version $Revision$
+ */
+final class HtmlEntityTrie
+{
+    /** the root node */
+    static final int ROOT = 0;
+
+    /** returned by child() when there is no such node */
+    static final int NO_NODE = -1;
+
+    /** children of the root indexed by (ASCII) character */
+    private final int[] _rootChildren = new int[128];
+
+    /** the character leading to each node */
+    private char[] _chars;
+
+    /** the first child of each node, or NO_NODE */
+    private int[] _firstChild;
+
+    /** the next sibling of each node, or NO_NODE */
+    private int[] _nextSibling;
+
+    /** the decoded entity of each node, or '\0' if no entity ends there */
+    private char[] _values;
+
+    /** number of nodes, including the root */
+    private int _size;
+
+    /**
+     * Builds the trie from a comma separated list of "c:name" entries,
+     * where c is the entity's character.
+     *
+     * @param entities the entity list
+     */
+    HtmlEntityTrie(String entities) {
+        int capacity = entities.length();
+        _chars = new char[capacity];
+        _firstChild = new int[capacity];
+        _nextSibling = new int[capacity];
+        _values = new char[capacity];
+        Arrays.fill(_rootChildren, NO_NODE);
+
+        _firstChild[ROOT] = NO_NODE;
+        _nextSibling[ROOT] = NO_NODE;
+        _size = 1;
+
+        for (String entity : entities.split(",")) {
+            int node = ROOT;
+            for (int i = 2, n = entity.length(); i < n; ++i) {
+                node = childOrAdd(node, entity.charAt(i));
+            }
+            _values[node] = entity.charAt(0);
+        }
+
+        _chars = Arrays.copyOf(_chars, _size);
+        _firstChild = Arrays.copyOf(_firstChild, _size);
+        _nextSibling = Arrays.copyOf(_nextSibling, _size);
+        _values = Arrays.copyOf(_values, _size);
+    }
+
+    private int childOrAdd(int node, char ch) {
+        int child = child(node, ch);
+        if (child != NO_NODE) {
+            return child;
+        }
+
+        child = _size++;
+        _chars[child] = ch;
+        _firstChild[child] = NO_NODE;
+        if (node == ROOT) {
+            _nextSibling[child] = NO_NODE;
+            _rootChildren[ch] = child;
+        } else {
+            _nextSibling[child] = _firstChild[node];
+            _firstChild[node] = child;
+        }
+        return child;
+    }
+
+    /**
+     * Returns the child of <code>node</code> reached by
+     * <code>ch</code>.
+     *
+     * @param node a node or NO_NODE
+     * @param ch the next character of the entity name
+     * @return the child node, or NO_NODE
+     */
+    int child(int node, char ch) {
+        if (node == ROOT) {
+            return ch < 128 ? _rootChildren[ch] : NO_NODE;
+        }
+        if (node == NO_NODE) {
+            return NO_NODE;
+        }
+        for (int child = _firstChild[node]; child != NO_NODE; child = _nextSibling[child]) {
+            if (_chars[child] == ch) {
+                return child;
+            }
+        }
+        return NO_NODE;
+    }
+
+    /**
+     * Returns the entity that ends at <code>node</code>.
+     *
+     * @param node a node or NO_NODE
+     * @return the decoded character, or '\0' if the characters walked
+     * so far are not a complete entity name.
+     */
+    char value(int node) {
+        return node == NO_NODE ? '\0' : _values[node];
+    }
+
+    /**
+     * Decodes a complete entity name.
+     *
+     * @param name the entity name without '&amp;' and ';'
+     * @return the decoded character, or '\0' if there is no such
+     * entity.
+     */
+    char decode(CharSequence name) {
+        int node = ROOT;
+        for (int i = 0, n = name.length(); i < n && node != NO_NODE; ++i) {
+            node = child(node, name.charAt(i));
+        }
+        return node == ROOT ? '\0' : value(node);
+    }
+
+} // HtmlEntityTrie
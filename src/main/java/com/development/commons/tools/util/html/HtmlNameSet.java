@@ -0,0 +1,117 @@
+/*
+ * $Id$
+ *
+ * Copyright (C) 2006 SuccessFactors, Inc.
+ * All Rights Reserved
+ */
+package com.development.commons.tools.util.html;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * HtmlNameSet -- an immutable, case-insensitive set of ASCII names,
+ * such as attribute or CSS property names.  Like HtmlTags, it can test
+ * a name held in a parse buffer without creating a String.
+ *
+ * @version $Revision$
+ */
+final class HtmlNameSet
+{
+    /** open addressing table of lower case names, size a power of 2 */
+    private final String[] _table;
+
+    HtmlNameSet(Collection<String> names) {
+        int size = 8;
+        while (size < names.size() * 2) {
+            size <<= 1;
+        }
+        _table = new String[size];
+
+        for (String name : names) {
+            String lower = name.toLowerCase(Locale.ENGLISH);
+            if (!contains(lower)) {
+                int slot = hash(lower, 0, lower.length());
+                while (_table[slot & (size - 1)] != null) {
+                    ++slot;
+                }
+                _table[slot & (size - 1)] = lower;
+            }
+        }
+    }
+
+    /**
+     * Case-insensitive hash.  Folding with 0x20 lower-cases ASCII
+     * letters; the compare in contains() rules out the collisions it
+     * causes among other characters.
+     */
+    private static int hash(CharSequence name, int off, int len) {
+        int h = len;
+        for (int i = off, end = off + len; i < end; ++i) {
+            h = h * 31 + (name.charAt(i) | 0x20);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static int hash(char[] name, int off, int len) {
+        int h = len;
+        for (int i = off, end = off + len; i < end; ++i) {
+            h = h * 31 + (name[i] | 0x20);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Tests if the set contains the name in
+     * <code>buf[off..off+len)</code>, ignoring case.
+     */
+    boolean contains(char[] buf, int off, int len) {
+        int mask = _table.length - 1;
+        for (int slot = hash(buf, off, len); ; ++slot) {
+            String name = _table[slot & mask];
+            if (name == null) {
+                return false;
+            }
+            if (name.length() == len && matches(name, buf, off)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Tests if the set contains <code>name</code>, ignoring case.
+     */
+    boolean contains(CharSequence name) {
+        int len = name.length();
+        int mask = _table.length - 1;
+        for (int slot = hash(name, 0, len); ; ++slot) {
+            String entry = _table[slot & mask];
+            if (entry == null) {
+                return false;
+            }
+            if (entry.length() == len) {
+                int i = 0;
+                while (i < len && entry.charAt(i) == toLower(name.charAt(i))) {
+                    ++i;
+                }
+                if (i == len) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    private static boolean matches(String name, char[] buf, int off) {
+        for (int i = 0, n = name.length(); i < n; ++i) {
+            if (name.charAt(i) != toLower(buf[off + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char toLower(char ch) {
+        return ('A' <= ch && ch <= 'Z') ? (char)(ch + ('a' - 'A')) : ch;
+    }
+
+} // HtmlNameSet
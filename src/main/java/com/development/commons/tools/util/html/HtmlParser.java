@@ -6,12 +6,10 @@
  */
 package com.development.commons.tools.util.html;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
 
 /**
  * HtmlParser -- A forgiving HTML parser based on the XML Pull Parser
@@ -19,6 +17,17 @@ import java.util.Set;
  * creating an HtmlParser, call <code>next()</code> repeatedly until
  * it returns <code>EOF</code>.
  *
+ * <p>The input may be given as a String, which is parsed in place,
+ * or as a Reader or CharSequence, which is parsed incrementally
+ * through a sliding window.  In the incremental case only the
+ * unconsumed input (and the token being parsed) is kept in memory,
+ * and long runs of text may be returned as several consecutive TEXT
+ * tokens.
+ *
+ * <p>In span mode (see <code>setSpanMode</code>) the parser allocates
+ * nothing per token: text, tag names and attributes are returned as
+ * spans of its buffers and decoded only on demand.
+ *
  * @see #next()
  * @author Jeffrey Ichnowski
  * @version $Revision$
@@ -26,15 +35,14 @@ import java.util.Set;
 public class HtmlParser
 {
     // ===============================================================
-    // Implementation note: there is definite room for optimization in
-    // how the text is gathered.  Better memory utilization may be
-    // gained by reusing a single StringBuilder.  But caution is advised, as JVM implementations
-    // can differ a lot on whether or not reusing the StringBuilder is
-    // an effective strategy.  Another option might be to gether HTML
-    // content into a character array.
+    // Implementation note: text and attribute values are first
+    // scanned as spans of _data and then decoded from the span.  In
+    // span mode the decoding is skipped until the caller asks for
+    // the text, so a caller copying the input through does not pay
+    // for a StringBuilder per token.
     //
-    // Another potential optimization is getting rid of the need to do
-    // a toUpperCase on the lookup in _closeTagRequired.
+    // Tag names are resolved once into HtmlTags ids, so the element
+    // stack and the close-tag-required checks work on ints.
     // ===============================================================
 
     /**
@@ -95,28 +103,10 @@ public class HtmlParser
     private static final int STATE_POPPING = 2;
 
     /**
-     * This is a set of all the HTML 4.01 tags that require a closing
-     * tag.  The list was generated from the loose DTD
-     * (http://www.w3.org/TR/html4/sgml/loosedtd.html).  Some tags
-     * were added to the list that the DTD does not require, such as
-     * TR and TD, because browsers tend to behave poorly without the
-     * their close tags in practice.
-     */
-    private static final Set<String> _closeTagRequired = new HashSet<String>(
-        Arrays.asList(
-            ("TT,I,B,U,S,STRIKE,BIG,SMALL,EM,STRONG,DFN,CODE,SAMP,KBD,VAR,"+
-             "CITE,ABBR,ACRONYM,SUB,SUP,SPAN,BDO,FONT,ADDRESS,DIV,CENTER,A,"+
-             "MAP,OBJECT,APPLET,H1,H2,H3,H4,H5,H6,PRE,Q,BLOCKQUOTE,INS,DEL,"+
-             "DL,DT,DD,OL,DIR,MENU,UL,FORM,LABEL,SELECT,OPTGROUP,OPTION,"+
-             "TEXTAREA,FIELDSET,LEGEND,BUTTON,TABLE,CAPTION,TR,TH,TD,"+
-             "FRAMESET,IFRAME,NOFRAMES,TITLE,STYLE,SCRIPT,NOSCRIPT")
-            .split(",")));
-
-    /**
-     * This is a map of named HTML entities to their character code.
-     * (String keys, Character values)
+     * A trie of named HTML entities and their character code.  parseAmp
+     * walks it while scanning the entity name in _data.
      */
-    private static final Map<String,Character> _nameToEntityMap = new HashMap<String,Character>();
+    private static final HtmlEntityTrie _entityTrie;
     static {
         // Copied from HTML 4.01 spec (with a few regex replaces...)
         //
@@ -130,7 +120,7 @@ public class HtmlParser
         // It would also have been possible to implement this as a
         // series of calls such as:
         //
-        // _nameToEntityMap.put("name", new Character((char)1234));
+        // _entityTrie.add("name", (char)1234);
         //
         // The way below however reduces the class size by:
         //
@@ -397,13 +387,18 @@ public class HtmlParser
              "\u203a:rsaquo,"+
              "\u20ac:euro";
 
-        for (String entity : entities.split(",")) {
-            _nameToEntityMap.put(entity.substring(2),entity.charAt(0));
-        }
+        _entityTrie = new HtmlEntityTrie(entities);
     }
 
     /**
-     * HTML data to parse
+     * Default size of the sliding window used when parsing from a
+     * Reader or CharSequence.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 8192;
+
+    /**
+     * HTML data to parse.  When parsing incrementally this is the
+     * sliding window over the input.
      */
     char[] _data;
     /**
@@ -423,30 +418,74 @@ public class HtmlParser
     int _state;
 
     /**
-     * The text gathered from parsing TEXT and COMMENT blocks.
+     * When true, text and attribute values are only decoded when
+     * asked for.
+     */
+    boolean _spanMode;
+
+    /**
+     * The offset within _data of the token being parsed.
+     */
+    int _tokenStart;
+
+    /**
+     * The span within _data of the last TEXT, COMMENT or DOCTYPE.
+     * The characters before _textDecodeFrom are literal markup (such
+     * as the "&lt;" of a broken tag) that is not subject to entity
+     * decoding.
+     */
+    int _textStart;
+    int _textDecodeFrom;
+    int _textEnd;
+
+    /**
+     * The text gathered from parsing TEXT and COMMENT blocks.  In span
+     * mode this is only filled in by getText().
      */
     StringBuilder _text;
 
     /**
-     * The name of the tag for START_TAG or END_TAG
+     * The name of the tag for START_TAG or END_TAG, created from the
+     * name span by getName().
      */
     String _tagName;
 
+    /**
+     * The span within _nameBuffer of the name of the tag for START_TAG
+     * or END_TAG.  _nameLength is -1 for other tokens.
+     */
+    int _nameStart;
+    int _nameLength;
+
+    /**
+     * The HtmlTags id of _tagName
+     */
+    int _tagId;
+
     /**
      * The number of attributes parsed with the start tag
      */
     int _attrCount;
 
     /**
-     * The names of the attributes parsed.
+     * The names of the attributes parsed.  In span mode these are
+     * created by getAttributeName().
      */
     String[] _attrNames;
 
     /**
-     * The values of the attributes parsed.
+     * The values of the attributes parsed.  In span mode these are
+     * created by getAttributeValue().
      */
     String[] _attrValues;
 
+    /**
+     * The spans within _data of the attributes parsed, four ints per
+     * attribute: name start, name length, value start, value length.
+     * The value length is -1 if the attribute has no value.
+     */
+    int[] _attrSpans;
+
     /**
      * The index into the _elementStack at which the parser should
      * stop popping of END_TAGs when _state == STATE_POPPING.  Used to
@@ -455,11 +494,48 @@ public class HtmlParser
     int _popIndex;
 
     /**
-     * A stack of opened (START_TAG) elements that require closing
-     * tags (END_TAG).  Elements are pushed and popped from the end of
-     * the ArrayList to get O(1) performance.
+     * A stack of the HtmlTags ids of opened (START_TAG) elements that
+     * may require closing tags (END_TAG).  Elements are pushed and
+     * popped from the end of the array to get O(1) performance.
+     */
+    int[] _elementStack;
+
+    /**
+     * The tag names of the elements in _elementStack, as they
+     * appeared in the input.  The names are stacked one after the
+     * other in _nameBuffer, _elementNameStarts holds the offset of
+     * each.
+     */
+    char[] _nameBuffer;
+    int[] _elementNameStarts;
+
+    /**
+     * The number of elements in _elementStack
+     */
+    int _elementCount;
+
+    /**
+     * Input not yet copied into _data when parsing from a Reader, or
+     * null.
+     */
+    Reader _reader;
+
+    /**
+     * Input not yet copied into _data when parsing from a
+     * CharSequence, or null.
+     */
+    CharSequence _source;
+
+    /**
+     * Offset of the next character of _source to copy into _data.
+     */
+    int _sourceOffset;
+
+    /**
+     * The size _data is shrunk back to after a token that did not fit
+     * into the window has been consumed.
      */
-    ArrayList _elementStack;
+    int _windowSize;
 
     /**
      * Creates an HTMLParser to parse and HTML string.  The next call
@@ -469,18 +545,248 @@ public class HtmlParser
      * @see #next()
      */
     public HtmlParser(String str) {
-        _data = str.toCharArray();
+        this(str.toCharArray(), str.length());
+    }
+
+    /**
+     * Creates an HtmlParser that parses the characters of a Reader
+     * incrementally, using the default window size.  The parser does
+     * not close the reader.
+     *
+     * @param reader the HTML to parse.
+     * @see #next()
+     */
+    public HtmlParser(Reader reader) {
+        this(reader, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Creates an HtmlParser that parses the characters of a Reader
+     * incrementally.  The window grows beyond <code>windowSize</code>
+     * only while a single tag, comment or entity does not fit into it.
+     * The parser does not close the reader.  An IOException thrown by
+     * the reader is rethrown from next() as an UncheckedIOException.
+     *
+     * @param reader the HTML to parse.
+     * @param windowSize the initial size of the character window.
+     * @see #next()
+     */
+    public HtmlParser(Reader reader, int windowSize) {
+        this(newWindow(windowSize), 0);
+        _reader = reader;
+    }
+
+    /**
+     * Creates an HtmlParser that parses a CharSequence incrementally,
+     * so that a StringBuilder or CharBuffer need not be copied as a
+     * whole.
+     *
+     * @param source the HTML to parse.
+     * @see #next()
+     */
+    public HtmlParser(CharSequence source) {
+        this(newWindow(Math.max(1, Math.min(source.length(), DEFAULT_WINDOW_SIZE))), 0);
+        _source = source;
+    }
+
+    /**
+     * Common constructor.  <code>data</code> is the complete input
+     * for the String constructor, or the initial (empty) window for
+     * the incremental modes.
+     */
+    private HtmlParser(char[] data, int limit) {
+        _data = data;
         _offset = 0;
-        _limit = _data.length;
+        _limit = limit;
+        _windowSize = data.length;
 
         _attrCount = 0;
         _attrNames = new String[16];
         _attrValues = new String[16];
+        _attrSpans = new int[16 * 4];
+
+        _state = STATE_NORMAL;
+        _nameLength = -1;
+
+        _popIndex = -1;
+        _elementStack = new int[16];
+        _elementNameStarts = new int[17];
+        _nameBuffer = new char[128];
+        _elementCount = 0;
+    }
+
+    private static char[] newWindow(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("window size must be positive (was " + windowSize + ")");
+        }
+        return new char[windowSize];
+    }
+
+    /**
+     * Resets the parser to parse <code>source</code> from the
+     * beginning, as if it had just been created.  The buffers of the
+     * previous parse are reused, which makes a parser worth keeping
+     * around (see HtmlParserPool) when many small documents are
+     * parsed.  A document that does not fit into the current buffer
+     * or the default window is parsed incrementally instead of
+     * growing the buffer to its size.  The span mode is kept.
+     *
+     * @param source the HTML to parse.
+     * @see #next()
+     */
+    public void reset(CharSequence source) {
+        int length = source.length();
+
+        if (length <= Math.max(_data.length, DEFAULT_WINDOW_SIZE)) {
+            if (length > _data.length) {
+                _data = new char[DEFAULT_WINDOW_SIZE];
+            }
+            copyChars(source, 0, length, _data, 0);
+            _limit = length;
+            _source = null;
+        } else {
+            if (_data.length < DEFAULT_WINDOW_SIZE) {
+                _data = new char[DEFAULT_WINDOW_SIZE];
+            }
+            _limit = 0;
+            _source = source;
+        }
+
+        _offset = 0;
+        _sourceOffset = 0;
+        _reader = null;
+        _windowSize = Math.min(_data.length, DEFAULT_WINDOW_SIZE);
+
+        Arrays.fill(_attrNames, 0, _attrCount, null);
+        Arrays.fill(_attrValues, 0, _attrCount, null);
+        _attrCount = 0;
 
         _state = STATE_NORMAL;
+        _text = null;
+        _textStart = _textDecodeFrom = _textEnd = 0;
+        _tagName = null;
+        _tagId = HtmlTags.UNKNOWN;
+        _nameLength = -1;
 
         _popIndex = -1;
-        _elementStack = new ArrayList(16);
+        _elementCount = 0;
+    }
+
+    /**
+     * Copies source[from..to) into dst, without going through charAt()
+     * for the common CharSequence implementations.
+     */
+    private static void copyChars(CharSequence source, int from, int to, char[] dst, int dstBegin) {
+        if (source instanceof String) {
+            ((String)source).getChars(from, to, dst, dstBegin);
+        } else if (source instanceof StringBuilder) {
+            ((StringBuilder)source).getChars(from, to, dst, dstBegin);
+        } else {
+            for (int i = from; i < to; ++i) {
+                dst[dstBegin++] = source.charAt(i);
+            }
+        }
+    }
+
+    /**
+     * Switches span mode on or off.  In span mode the parser does not
+     * create any objects for the tokens it returns.  Text, tag names
+     * and attributes are instead available as spans of a character
+     * buffer (see getBuffer(), getTextStart(), getNameBuffer() and
+     * friends), and text and attribute values are only decoded when
+     * getText(), appendText(), getAttributeValue() or
+     * appendAttributeValue() is called.
+     *
+     * <p>Spans refer to the raw input, entity references and all, and
+     * remain valid only until the next call to next().  The span
+     * methods may be used in either mode; span mode only saves the
+     * decoding of text that the caller does not ask for.
+     *
+     * @param spanMode true to decode text and attribute values on
+     * demand.
+     */
+    public void setSpanMode(boolean spanMode) {
+        _spanMode = spanMode;
+    }
+
+    /**
+     * @return true if the parser is in span mode.
+     * @see #setSpanMode(boolean)
+     */
+    public boolean isSpanMode() {
+        return _spanMode;
+    }
+
+    /**
+     * Reads more input into the window when parsing incrementally.
+     * Characters before _offset are never discarded here, since the
+     * caller may still refer to them as the start of the current
+     * token; the window grows instead if it is full.
+     *
+     * @return true if at least one character was added, false at the
+     * end of input.
+     */
+    private boolean fill() {
+        if (_reader == null && _source == null) {
+            return false;
+        }
+
+        if (_limit == _data.length) {
+            _data = Arrays.copyOf(_data, _data.length * 2);
+        }
+
+        int n;
+        if (_source != null) {
+            n = Math.min(_data.length - _limit, _source.length() - _sourceOffset);
+            copyChars(_source, _sourceOffset, _sourceOffset + n, _data, _limit);
+            _sourceOffset += n;
+            if (n == 0) {
+                _source = null;
+                return false;
+            }
+        } else {
+            try {
+                do {
+                    n = _reader.read(_data, _limit, _data.length - _limit);
+                } while (n == 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (n == -1) {
+                _reader = null;
+                return false;
+            }
+        }
+
+        _limit += n;
+        return true;
+    }
+
+    /**
+     * Called at a token boundary to discard the consumed part of the
+     * window.  The copy is only done once at least half the window has
+     * been consumed to keep the cost per character constant, and a
+     * window that was grown for an oversized token is shrunk back.
+     */
+    private void slideWindow() {
+        if (_reader == null && _source == null) {
+            return;
+        }
+
+        int remaining = _limit - _offset;
+
+        if (_data.length > _windowSize && remaining <= _windowSize / 2) {
+            char[] window = new char[_windowSize];
+            System.arraycopy(_data, _offset, window, 0, remaining);
+            _data = window;
+        } else if (_offset > 0 && (remaining == 0 || _offset >= _data.length / 2)) {
+            System.arraycopy(_data, _offset, _data, 0, remaining);
+        } else {
+            return;
+        }
+
+        _offset = 0;
+        _limit = remaining;
     }
 
     /**
@@ -494,7 +800,8 @@ public class HtmlParser
      * there is no such entity.
      */
     public static final Character decodeNamedEntity(String entityName) {
-        return _nameToEntityMap.get(entityName);
+        char entity = _entityTrie.decode(entityName);
+        return entity == '\0' ? null : Character.valueOf(entity);
     }
 
     /**
@@ -542,7 +849,7 @@ public class HtmlParser
      * a space.
      */
     private boolean skipSpaces() {
-        if (_offset >= _limit) {
+        if (_offset >= _limit && !fill()) {
             return false;
         }
 
@@ -551,7 +858,7 @@ public class HtmlParser
         }
 
         do {
-            if (++_offset >= _limit) {
+            if (++_offset >= _limit && !fill()) {
                 return true;
             }
         } while (isSpace(_data[_offset]));
@@ -563,17 +870,118 @@ public class HtmlParser
      * Returns the text parsed when next() returns TEXT or COMMENT.
      */
     public String getText() {
+        if (_text == null) {
+            _text = new StringBuilder(_textEnd - _textStart);
+            decodeText(_text);
+        }
         return _text.toString();
     }
 
+    /**
+     * Appends the text parsed when next() returns TEXT or COMMENT to
+     * <code>buf</code>, without creating an intermediate String.
+     *
+     * @param buf the buffer to append to
+     */
+    public void appendText(StringBuilder buf) {
+        if (_text != null) {
+            buf.append(_text);
+        } else {
+            decodeText(buf);
+        }
+    }
+
+    /**
+     * Returns the buffer holding the text and attribute spans of the
+     * last token.  The buffer may be replaced and its content changed
+     * by the next call to next().
+     *
+     * @return the buffer holding the spans of the last token.
+     * @see #getTextStart()
+     * @see #getAttributeValueStart(int)
+     */
+    public char[] getBuffer() {
+        return _data;
+    }
+
+    /**
+     * Returns the offset within getBuffer() of the text when next()
+     * returns TEXT, COMMENT or DOCTYPE.  The span holds the text as it
+     * appeared in the input, entity references are not decoded.
+     *
+     * @return the offset of the text
+     */
+    public int getTextStart() {
+        return _textStart;
+    }
+
+    /**
+     * Returns the length of the text span when next() returns TEXT,
+     * COMMENT or DOCTYPE.
+     *
+     * @return the length of the text span
+     * @see #getTextStart()
+     */
+    public int getTextLength() {
+        return _textEnd - _textStart;
+    }
+
     /**
      * Returns the name of the tag when next() returns START_TAG or
      * END_TAG
      */
     public String getName() {
+        if (_tagName == null && _nameLength >= 0) {
+            _tagName = new String(_nameBuffer, _nameStart, _nameLength);
+        }
         return _tagName;
     }
 
+    /**
+     * Returns the buffer holding the tag name span.  This is not the
+     * same buffer as getBuffer(), since END_TAGs inserted by the
+     * parser name tags that may no longer be in the window.
+     *
+     * @return the buffer holding the tag name span
+     * @see #getNameStart()
+     */
+    public char[] getNameBuffer() {
+        return _nameBuffer;
+    }
+
+    /**
+     * Returns the offset within getNameBuffer() of the name of the
+     * tag when next() returns START_TAG or END_TAG.
+     *
+     * @return the offset of the tag name
+     */
+    public int getNameStart() {
+        return _nameStart;
+    }
+
+    /**
+     * Returns the length of the name of the tag when next() returns
+     * START_TAG or END_TAG, or -1 for other tokens.
+     *
+     * @return the length of the tag name
+     * @see #getNameStart()
+     */
+    public int getNameLength() {
+        return _nameLength;
+    }
+
+    /**
+     * Returns the HtmlTags id of the tag when next() returns
+     * START_TAG or END_TAG.  Tags not defined by HTML 4.01 return
+     * HtmlTags.UNKNOWN, use getName() to tell them apart.
+     *
+     * @return the id of the tag
+     * @see HtmlTags
+     */
+    public int getTagId() {
+        return _tagId;
+    }
+
     /**
      * Returns the number of attributes found on the last tag.
      *
@@ -590,8 +998,9 @@ public class HtmlParser
      * @return name of the attribute at <tt>index</tt>.
      */
     public String getAttributeName(int index) {
-        if (index >= _attrCount) {
-            throw new IndexOutOfBoundsException(index+" >= "+_attrCount);
+        checkAttributeIndex(index);
+        if (_attrNames[index] == null) {
+            _attrNames[index] = new String(_data, _attrSpans[index*4], _attrSpans[index*4 + 1]);
         }
         return _attrNames[index];
     }
@@ -605,10 +1014,88 @@ public class HtmlParser
      * specify a value.
      */
     public String getAttributeValue(int index) {
+        checkAttributeIndex(index);
+        if (_attrValues[index] == null && _attrSpans[index*4 + 3] >= 0) {
+            StringBuilder value = new StringBuilder(_attrSpans[index*4 + 3]);
+            appendAttributeValue(index, value);
+            _attrValues[index] = value.toString();
+        }
+        return _attrValues[index];
+    }
+
+    /**
+     * Appends the decoded value of the attribute at index
+     * <tt>index</tt> to <code>buf</code>.  Nothing is appended if the
+     * attribute has no value.
+     *
+     * @param index the index of the value
+     * @param buf the buffer to append to
+     */
+    public void appendAttributeValue(int index, StringBuilder buf) {
+        checkAttributeIndex(index);
+        if (_attrValues[index] != null) {
+            buf.append(_attrValues[index]);
+        } else if (_attrSpans[index*4 + 3] > 0) {
+            int start = _attrSpans[index*4 + 2];
+            decode(_data, start, start + _attrSpans[index*4 + 3], buf);
+        }
+    }
+
+    /**
+     * Returns the offset within getBuffer() of the name of the
+     * attribute at index <tt>index</tt>.
+     *
+     * @param index the index of the attribute
+     * @return the offset of the attribute name
+     */
+    public int getAttributeNameStart(int index) {
+        checkAttributeIndex(index);
+        return _attrSpans[index*4];
+    }
+
+    /**
+     * Returns the length of the name of the attribute at index
+     * <tt>index</tt>.
+     *
+     * @param index the index of the attribute
+     * @return the length of the attribute name
+     */
+    public int getAttributeNameLength(int index) {
+        checkAttributeIndex(index);
+        return _attrSpans[index*4 + 1];
+    }
+
+    /**
+     * Returns the offset within getBuffer() of the value of the
+     * attribute at index <tt>index</tt>, not including the quotes.
+     * The span holds the value as it appeared in the input, entity
+     * references are not decoded.
+     *
+     * @param index the index of the attribute
+     * @return the offset of the attribute value
+     */
+    public int getAttributeValueStart(int index) {
+        checkAttributeIndex(index);
+        return _attrSpans[index*4 + 2];
+    }
+
+    /**
+     * Returns the length of the value of the attribute at index
+     * <tt>index</tt>.
+     *
+     * @param index the index of the attribute
+     * @return the length of the attribute value span, or -1 if the
+     * HTML did not specify a value.
+     */
+    public int getAttributeValueLength(int index) {
+        checkAttributeIndex(index);
+        return _attrSpans[index*4 + 3];
+    }
+
+    private void checkAttributeIndex(int index) {
         if (index >= _attrCount) {
             throw new IndexOutOfBoundsException(index+" >= "+_attrCount);
         }
-        return _attrValues[index];
     }
 
     /**
@@ -631,6 +1118,31 @@ public class HtmlParser
      * @return one of TEXT, START_TAG, END_TAG, COMMENT, or EOF.
      */
     public int next() {
+        slideWindow();
+
+        _tagName = null;
+        _nameLength = -1;
+
+        int type = nextToken();
+
+        if (type == TEXT || type == COMMENT || type == DOCTYPE) {
+            _textEnd = _offset;
+            if (_spanMode) {
+                _text = null;
+            } else {
+                _text = new StringBuilder(_textEnd - _textStart);
+                decodeText(_text);
+            }
+        }
+
+        return type;
+    }
+
+    /**
+     * Parses the next token.  Text tokens only record their span,
+     * next() decodes them.
+     */
+    private int nextToken() {
         char ch;
         int n;
 
@@ -638,11 +1150,11 @@ public class HtmlParser
         case STATE_OPENCLOSE:
             _state = STATE_NORMAL;
 
-            if (_closeTagRequired.contains(_tagName.toUpperCase())) {
+            if (HtmlTags.isCloseTagRequired(_tagId)) {
               // if the close tag is required pop it from the stack
               // (it was pushed by startTag), and return the end tag.
 
-              _elementStack.remove(_elementStack.size()-1);
+              popElement();
               return END_TAG;
             }
 
@@ -659,25 +1171,28 @@ public class HtmlParser
         }
 
       for(;;) {
-        if (_offset == _limit) {
+        if (_offset >= _limit && !fill()) {
 
-            n = _elementStack.size();
-            while (n > 0 && !_closeTagRequired.contains(((String)_elementStack.get(n-1)).toUpperCase())) {
-                _elementStack.remove(--n);
+            n = _elementCount;
+            while (n > 0 && !HtmlTags.isCloseTagRequired(_elementStack[n-1])) {
+                --n;
             }
+            _elementCount = n;
 
             if (n != 0) {
                 // close off opened tags before returning EOF
-                _tagName = (String)_elementStack.remove(n-1);
+                popElement();
                 return END_TAG;
             }
 
             return EOF;
         }
 
+        _tokenStart = _offset;
+
         if (_data[_offset] == '<') {
-            if (++_offset >= _limit) {
-                _text = new StringBuilder("<");
+            if (++_offset >= _limit && !fill()) {
+                beginText();
                 return TEXT;
             }
 
@@ -695,13 +1210,13 @@ public class HtmlParser
                 if (isAlpha(ch)) {
                     return parseStartTag();
                 } else {
-                    _text = new StringBuilder("<");
+                    beginText();
                     parseText();
                     return TEXT;
                 }
             }
         } else {
-            _text = new StringBuilder();
+            beginText();
             parseText();
             return TEXT;
 
@@ -710,53 +1225,131 @@ public class HtmlParser
     }
 
     /**
-     * Parses text content.  Assumes that _text has already be
-     * initialized before this method is called.
+     * Starts a text token at _tokenStart.  The characters up to
+     * _offset have already been consumed as markup that turned out
+     * not to be a tag or comment, they are returned literally.
+     */
+    private void beginText() {
+        _textStart = _tokenStart;
+        _textDecodeFrom = _offset;
+    }
+
+    /**
+     * Appends the text of the last text token, decoding the entity
+     * references after its literal prefix.
+     */
+    private void decodeText(StringBuilder buf) {
+        buf.append(_data, _textStart, _textDecodeFrom - _textStart);
+        decode(_data, _textDecodeFrom, _textEnd, buf);
+    }
+
+    /**
+     * Parses text content.  Assumes that beginText() has already been
+     * called.
      */
     private void parseText() {
-        while (_offset < _limit) {
-            char ch = _data[_offset];
-            switch (ch) {
-            case '&':
-                parseAmp(_text);
-                break;
-            case '<':
+        parseText(true);
+    }
+
+    /**
+     * Parses text content, up to the next '&lt;'.  When reading
+     * incrementally and <code>mayEndAtWindow</code> is true, the text
+     * ends at the window boundary instead of growing the window to
+     * hold the whole run of text; the next call to next() continues
+     * with another TEXT.  The text is then cut before an entity
+     * reference that may continue past the window, so that each TEXT
+     * decodes on its own.
+     */
+    private void parseText(boolean mayEndAtWindow) {
+        for (;;) {
+            while (_offset < _limit) {
+                if (_data[_offset] == '<') {
+                    return;
+                }
+                ++_offset;
+            }
+
+            if (mayEndAtWindow && _offset > _textStart
+                && (_reader != null || _source != null)) {
+                int cut = openReferenceStart();
+                if (cut > _textStart) {
+                    _offset = cut;
+                    return;
+                }
+            }
+
+            if (!fill()) {
                 return;
-            default:
-                _text.append(ch);
-                _offset++;
             }
         }
     }
 
     /**
-     * parseAmp is called by parseText to handle entity references.
-     * It will return with _data[_offset] positioned after all the
-     * characters processed by this method.  E.g. the next character
-     * that the caller should process will be in _data[_offset].
+     * Returns the offset of the '&amp;' of an entity reference that
+     * runs up to _offset, or _offset if there is none.
      */
-    private void parseAmp(StringBuilder buf) {
-        assert _offset < _limit;
-        assert _data[_offset] == '&';
+    private int openReferenceStart() {
+        for (int i = _offset; --i >= _textDecodeFrom; ) {
+            char ch = _data[i];
+            if (ch == '&') {
+                return i;
+            }
+            if (!isAlphaNumeric(ch) && ch != '#') {
+                break;
+            }
+        }
+        return _offset;
+    }
 
-        int startOffset = _offset;
+    /**
+     * Appends the characters data[offset..limit) to buf, decoding
+     * entity references.
+     */
+    private static void decode(char[] data, int offset, int limit, StringBuilder buf) {
+        int run = offset;
+        while (offset < limit) {
+            if (data[offset] == '&') {
+                buf.append(data, run, offset - run);
+                offset = decodeReference(data, offset, limit, buf);
+                run = offset;
+            } else {
+                ++offset;
+            }
+        }
+        buf.append(data, run, limit - run);
+    }
 
-        if (++_offset >= _limit) {
+    /**
+     * Decodes the entity reference starting at data[offset], which
+     * must be an '&amp;', and appends it to buf.  A reference that is
+     * not valid is appended as text.  The reference ends at the first
+     * character that cannot be part of it, or at limit.
+     *
+     * @return the offset of the first character after the reference,
+     * e.g. the next character that the caller should process.
+     */
+    private static int decodeReference(char[] data, int offset, int limit, StringBuilder buf) {
+        assert offset < limit;
+        assert data[offset] == '&';
+
+        int startOffset = offset;
+
+        if (++offset >= limit) {
             buf.append('&');
-            return;
+            return offset;
         }
 
-        char ch = _data[_offset];
+        char ch = data[offset];
 
         if (ch == '#') {
             // numeric reference
 
-            if (++_offset >= _limit) {
-                buf.append(_data, startOffset, 2); // '&#'
-                return;
+            if (++offset >= limit) {
+                buf.append(data, startOffset, 2); // '&#'
+                return offset;
             }
 
-            ch = _data[_offset];
+            ch = data[offset];
 
             if (ch == 'x' || ch == 'X') {
                 // hexidecimal
@@ -764,42 +1357,43 @@ public class HtmlParser
                 int value = 0;
 
                 for (;;) {
-                    if (++_offset >= _limit) {
-                        buf.append(_data, startOffset, _offset - startOffset);
-                        return;
+                    if (++offset >= limit) {
+                        buf.append(data, startOffset, offset - startOffset);
+                        return offset;
                     }
 
-                    ch = _data[_offset];
+                    ch = data[offset];
 
                     if (ch == ';') {
-                        if (_offset == startOffset + 3) {
+                        if (offset == startOffset + 3) {
                             // didn't see any hex letters yet, this is
                             // not a valid escape, just output
                             // directly
-                            buf.append(_data, startOffset, _offset - startOffset);
+                            buf.append(data, startOffset, offset - startOffset);
                         } else {
-                            buf.append((char)value);
+                            appendCodePoint(buf, value);
                         }
-                        _offset++;
-                        return;
+                        return offset + 1;
                     }
 
-                    value = value * 16;
-
+                    int digit;
                     if ('0' <= ch && ch <= '9') {
-                        value += ch - '0';
+                        digit = ch - '0';
                     } else if ('a' <= ch && ch <= 'f') {
-                        value += ch - ('a' - 10);
+                        digit = ch - ('a' - 10);
                     } else if ('A' <= ch && ch <= 'F') {
-                        value += ch - ('A' - 10);
+                        digit = ch - ('A' - 10);
                     } else {
                         // bad character.  Let the caller handle it.
-                        // (e.g. don't increment _offset)
+                        // (e.g. don't increment offset)
 
                         // append what we've encountered up to now as text.
-                        buf.append(_data, startOffset, _offset - startOffset);
-                        return;
+                        buf.append(data, startOffset, offset - startOffset);
+                        return offset;
                     }
+
+                    // saturate rather than overflow, see appendCodePoint
+                    value = value > Character.MAX_CODE_POINT ? value : value * 16 + digit;
                 }
 
             } else if ('0' <= ch && ch <= '9') {
@@ -808,72 +1402,91 @@ public class HtmlParser
                 int value = ch - '0';
 
                 for (;;) {
-                    if (++_offset >= _limit) {
-                        buf.append(_data, startOffset, _offset - startOffset);
-                        return;
+                    if (++offset >= limit) {
+                        buf.append(data, startOffset, offset - startOffset);
+                        return offset;
                     }
 
-                    ch = _data[_offset];
+                    ch = data[offset];
 
                     if (ch == ';') {
-                        _offset++;
-                        buf.append((char)value);
-                        return;
+                        appendCodePoint(buf, value);
+                        return offset + 1;
                     }
 
                     if ('0' <= ch && ch <= '9') {
-                        value = value * 10 + (ch - '0');
+                        value = value > Character.MAX_CODE_POINT ? value : value * 10 + (ch - '0');
                     } else {
                         // bad character.  Let the caller handle it.
-                        // (e.g. don't increment _offset)
+                        // (e.g. don't increment offset)
 
                         // append what we've encountered up to now as text.
-                        buf.append(_data, startOffset, _offset - startOffset);
-                        return;
+                        buf.append(data, startOffset, offset - startOffset);
+                        return offset;
                     }
                 }
 
+            } else {
+                // neither hex nor decimal, output '&#' as text
+                buf.append(data, startOffset, 2);
+                return offset;
             }
 
         } else if (isAlpha(ch)) {
-            // character entity reference (by name)
+            // character entity reference (by name).  The name is
+            // matched against the entity trie as it is scanned.
+
+            int node = _entityTrie.child(HtmlEntityTrie.ROOT, ch);
 
             for (;;) {
-                if (++_offset >= _limit) {
-                    buf.append(_data, startOffset, _offset - startOffset);
-                    return;
+                if (++offset >= limit) {
+                    buf.append(data, startOffset, offset - startOffset);
+                    return offset;
                 }
 
-                ch = _data[_offset];
+                ch = data[offset];
 
                 if (ch == ';') {
-                    String name = new String(_data, startOffset+1, _offset - startOffset - 1);
-
-                    // System.out.println("Got Entity Name: '"+name+"'");
-
-                    Character entity = (Character)_nameToEntityMap.get(name);
-                    if (entity == null) {
+                    char entity = _entityTrie.value(node);
+                    if (entity == '\0') {
                         // unknown entity, output all as text
-                        buf.append(_data, startOffset, _offset - startOffset);
+                        buf.append(data, startOffset, offset - startOffset);
                     } else {
-                        buf.append(entity.charValue());
+                        buf.append(entity);
                     }
-                    ++_offset;
-                    return;
+                    return offset + 1;
                 }
 
                 if (!isAlpha(ch) && !('0' <= ch && ch <= '9')) {
                     // bad character.  Let the caller handle it.
-                    // (e.g. don't increment _offset)
+                    // (e.g. don't increment offset)
 
                     // append what we've encountered up to now as text.
-                    buf.append(_data, startOffset, _offset - startOffset);
-                    return;
+                    buf.append(data, startOffset, offset - startOffset);
+                    return offset;
                 }
+
+                node = _entityTrie.child(node, ch);
             }
 
         } else {
             buf.append('&');
+            return offset;
+        }
+    }
+
+    /**
+     * Appends the character of a numeric reference.  Values beyond
+     * the BMP are appended as a surrogate pair, values beyond Unicode
+     * as the replacement character.
+     */
+    private static void appendCodePoint(StringBuilder buf, int value) {
+        if (value <= Character.MAX_VALUE) {
+            buf.append((char)value);
+        } else if (value <= Character.MAX_CODE_POINT) {
+            buf.appendCodePoint(value);
+        } else {
+            buf.append('\ufffd');
         }
     }
 
@@ -889,12 +1502,8 @@ public class HtmlParser
         assert _data[_offset] == '!';
         assert _data[_offset-1] == '<';
 
-        int startOffset = _offset - 1;
-
-        _text = new StringBuilder();
-
-        if (++_offset >= _limit) {
-            _text.append("<!");
+        if (++_offset >= _limit && !fill()) {
+            beginText();
             return TEXT;
         }
 
@@ -902,31 +1511,31 @@ public class HtmlParser
        //This is not a comment but Text
        if (_data[_offset] == 'D' || _data[_offset] == 'd') {
             _tagName = "!DOCTYPE";
-            _text.append("<!");
-            parseText();
+            _tagId = HtmlTags.UNKNOWN;
+            beginText();
+            parseText(false);
             return DOCTYPE;
         }
         if (_data[_offset] != '-') {
-            _text.append("<!");
+            beginText();
             parseText();
             return TEXT;
         }
 
-        if (++_offset >= _limit) {
-            _text.append("<!-");
-            parseText();
+        if (++_offset >= _limit && !fill()) {
+            beginText();
             return TEXT;
         }
 
         if (_data[_offset] != '-') {
-            _text.append("<!-");
+            beginText();
             parseText();
             return TEXT;
         }
 
         for (;;) {
-            if (++_offset >= _limit) {
-                _text.append(_data, startOffset, _offset - startOffset);
+            if (++_offset >= _limit && !fill()) {
+                beginText();
                 return TEXT;
             }
 
@@ -934,8 +1543,8 @@ public class HtmlParser
                 continue;
             }
 
-            if (++_offset >= _limit) {
-                _text.append(_data, startOffset, _offset - startOffset);
+            if (++_offset >= _limit && !fill()) {
+                beginText();
                 return TEXT;
             }
 
@@ -943,17 +1552,18 @@ public class HtmlParser
                 continue;
             }
 
-            if (++_offset >= _limit) {
-                _text.append(_data, startOffset, _offset - startOffset);
+            if (++_offset >= _limit && !fill()) {
+                beginText();
                 return TEXT;
             }
 
 
             if (_data[_offset] == '>') {
-                _text.append(_data, startOffset, ++_offset - startOffset);
+                ++_offset;
+                beginText();
                 return COMMENT;
             } else {
-                _text.append(_data, startOffset, _offset - startOffset);
+                beginText();
                 parseText();
                 return TEXT;
             }
@@ -972,7 +1582,6 @@ public class HtmlParser
         assert _data[_offset - 1] == '<';
 
         int startOffset = _offset - 1;
-        int rollBack = -1;
 
         char ch = _data[_offset];
 
@@ -981,8 +1590,8 @@ public class HtmlParser
         _attrCount = 0;
 
         for (;;) {
-            if (++_offset >= _limit) {
-                _text = new StringBuilder().append(_data, startOffset, _offset - startOffset);
+            if (++_offset >= _limit && !fill()) {
+                beginText();
                 return TEXT;
             }
 
@@ -993,35 +1602,32 @@ public class HtmlParser
             }
         }
 
-        _tagName = new String(_data, startOffset + 1, _offset - startOffset - 1);
+        int nameLength = _offset - startOffset - 1;
 
         if (skipSpaces()) {
             boolean skippedSpaces;
             do {
-                String attrName = parseAttrName();
-                String attrValue;
+                int attrStart = _offset;
 
-                if (attrName == null) {
+                if (!parseAttrName()) {
                     break;
                 }
 
+                int index = addAttribute(attrStart, _offset - attrStart);
+
                 skippedSpaces = skipSpaces();
 
-                if (_offset < _limit && _data[_offset] == '=') {
+                if ((_offset < _limit || fill()) && _data[_offset] == '=') {
                     ++_offset;
                     skipSpaces();
-                    attrValue = parseAttrValue();
+                    parseAttrValue(index);
                     skippedSpaces = skipSpaces();
-                } else {
-                    attrValue = null;
                 }
-
-                addAttribute(attrName, attrValue);
             } while (skippedSpaces);
         }
 
-        if (_offset >= _limit) {
-            _text = new StringBuilder().append(_data, startOffset, _offset - startOffset);
+        if (_offset >= _limit && !fill()) {
+            beginText();
             return TEXT;
         }
 
@@ -1029,44 +1635,56 @@ public class HtmlParser
 
         if (ch == '>') {
             ++_offset;
-            startTag();
+            startTag(startOffset + 1, nameLength);
             return START_TAG;
         }
 
         if (ch == '/') {
-            if (++_offset >= _limit) {
-                _text = new StringBuilder().append(_data, startOffset, _offset - startOffset);
+            if (++_offset >= _limit && !fill()) {
+                beginText();
                 return TEXT;
             }
 
             if (_data[_offset] == '>') {
                 _state = STATE_OPENCLOSE;
                 ++_offset;
-                startTag();
+                startTag(startOffset + 1, nameLength);
                 return START_TAG;
             }
 
-            _text = new StringBuilder().append(_data, startOffset, _offset - startOffset);
+            beginText();
             parseText();
             return TEXT;
         }
 
-        _text = new StringBuilder().append(_data, startOffset, _offset - startOffset);
+        beginText();
         parseText();
         return TEXT;
     }
 
-    private void addAttribute(String name, String value) {
+    /**
+     * Adds an attribute without a value and returns its index.  The
+     * name is only copied into a String when not in span mode.
+     */
+    private int addAttribute(int nameStart, int nameLength) {
         if (_attrCount >= _attrNames.length) {
             int newLen = _attrNames.length * 2;
             _attrNames = grow(_attrNames, newLen);
             _attrValues = grow(_attrValues, newLen);
+            _attrSpans = Arrays.copyOf(_attrSpans, newLen * 4);
         }
 
-        _attrNames[_attrCount] = name;
-        _attrValues[_attrCount] = value;
+        int index = _attrCount++;
+
+        _attrSpans[index*4] = nameStart;
+        _attrSpans[index*4 + 1] = nameLength;
+        _attrSpans[index*4 + 2] = -1;
+        _attrSpans[index*4 + 3] = -1;
+
+        _attrNames[index] = _spanMode ? null : new String(_data, nameStart, nameLength);
+        _attrValues[index] = null;
 
-        ++_attrCount;
+        return index;
     }
 
     private static String[] grow(String[] array, int newLen) {
@@ -1078,10 +1696,10 @@ public class HtmlParser
     /**
      * Called by parseStartTag when a valid start tag was parsed.
      * This method handles updating internal state related to the
-     * start of a tag.  _tagName is expected to already be filled in
-     * with the started tag.
+     * start of a tag.  The tag name is at _data[nameStart], its id is
+     * looked up here.
      */
-    private void startTag() {
+    private void startTag(int nameStart, int nameLength) {
         // If the DTD specifies that the close tag is optional, don't
         // push the element onto the stack.  This is especially
         // important for tags like <img> where automatic popping of
@@ -1092,87 +1710,103 @@ public class HtmlParser
         // return it as a tag.  This allows MS extensions like <o:p>
         // through.
 
-      //if (_closeTagRequired.contains(_tagName.toUpperCase())) {
-            _elementStack.add(_tagName);
+        _tagId = HtmlTags.lookup(_data, nameStart, nameLength);
+
+      //if (HtmlTags.isCloseTagRequired(_tagId)) {
+            if (_elementCount == _elementStack.length) {
+                _elementStack = Arrays.copyOf(_elementStack, _elementCount * 2);
+                _elementNameStarts = Arrays.copyOf(_elementNameStarts, _elementCount * 2 + 1);
+            }
+
+            _nameStart = _elementNameStarts[_elementCount];
+            _nameLength = nameLength;
+
+            if (_nameStart + nameLength > _nameBuffer.length) {
+                _nameBuffer = Arrays.copyOf(_nameBuffer, Math.max(_nameBuffer.length * 2, _nameStart + nameLength));
+            }
+            System.arraycopy(_data, nameStart, _nameBuffer, _nameStart, nameLength);
+
+            _elementStack[_elementCount] = _tagId;
+            ++_elementCount;
+            _elementNameStarts[_elementCount] = _nameStart + nameLength;
       //}
     }
 
     /**
-     * Parses and returns attribute name.  If the next characters do
-     * not make up a valid attribute name, this method returns
-     * <code>null</code> instead.
+     * Pops the top element off the stack into the tag name span and
+     * _tagId.
      */
-    private String parseAttrName() {
-        if (_offset >= _limit) {
-            return null;
+    private void popElement() {
+        --_elementCount;
+        _tagId = _elementStack[_elementCount];
+        _nameStart = _elementNameStarts[_elementCount];
+        _nameLength = _elementNameStarts[_elementCount + 1] - _nameStart;
+    }
+
+    /**
+     * Parses an attribute name.  If the next characters do not make
+     * up a valid attribute name, this method returns
+     * <code>false</code> instead.
+     */
+    private boolean parseAttrName() {
+        if (_offset >= _limit && !fill()) {
+            return false;
         }
 
         if (!isAlpha(_data[_offset])) {
-            return null;
+            return false;
         }
 
-        int startOffset = _offset;
-
         do {
-            if (++_offset >= _limit) {
+            if (++_offset >= _limit && !fill()) {
                 break;
             }
         } while (isAttrNamePart(_data[_offset]));
 
-        return new String(_data, startOffset, _offset - startOffset);
+        return true;
     }
 
     /**
-     * Parses and returns and attribute value.
+     * Parses an attribute value into the attribute at
+     * <code>index</code>.  The value is scanned up to the closing
+     * quote, or for unquoted values the next space or '&gt;'; entity
+     * references never run past these, so the value span is decoded
+     * on its own (when not in span mode, right away).
      */
-    private String parseAttrValue() {
-        if (_offset >= _limit) {
-            return "";
-        }
+    private void parseAttrValue(int index) {
+        int start = _offset;
+        int end = _offset;
 
-        char quoteCh = _data[_offset];
-        StringBuilder value = new StringBuilder();
+        if (_offset < _limit || fill()) {
+            char quoteCh = _data[_offset];
 
-        if (quoteCh == '\'' || quoteCh == '\"') {
-            if (++_offset >= _limit) {
-                return "";
-            }
-
-            while (_offset < _limit) {
-                char ch = _data[_offset];
-
-                if (ch == quoteCh) {
+            if (quoteCh == '\'' || quoteCh == '\"') {
+                start = ++_offset;
+                while ((_offset < _limit || fill()) && _data[_offset] != quoteCh) {
                     ++_offset;
-                    return value.toString();
                 }
-
-                if (ch == '&') {
-                    parseAmp(value);
-                } else {
-                    value.append(ch);
-
-                    if (++_offset >= _limit) {
-                        return "";
-                    }
+                end = _offset;
+                if (_offset < _limit) {
+                    ++_offset;
                 }
-            }
-        } else {
-            while (!isSpace(quoteCh) && quoteCh != '>') {
-                if (quoteCh == '&') {
-                    parseAmp(value);
-                } else {
-                    value.append(quoteCh);
-
-                    if (++_offset >= _limit) {
-                        return "";
-                    }
+            } else {
+                while ((_offset < _limit || fill()) && !isSpace(_data[_offset]) && _data[_offset] != '>') {
+                    ++_offset;
                 }
-
-                quoteCh = _data[_offset];
+                end = _offset;
             }
+        }
+
+        _attrSpans[index*4 + 2] = start;
+        _attrSpans[index*4 + 3] = end - start;
 
+        if (_spanMode) {
+            _attrValues[index] = null;
+        } else {
+            StringBuilder value = new StringBuilder(end - start);
+            decode(_data, start, end, value);
+            _attrValues[index] = value.toString();
         }
-        return value.toString();
     }
 
     /**
@@ -1189,23 +1823,22 @@ public class HtmlParser
 
         int startOffset = _offset;
 
-        if (++_offset >= _limit) {
-            _text = new StringBuilder("</");
+        if (++_offset >= _limit && !fill()) {
+            beginText();
             return TEXT;
         }
 
         char ch = _data[_offset];
 
         if (!isAlpha(ch)) {
-            _text = new StringBuilder("</");
+            beginText();
             parseText();
             return TEXT;
         }
 
         do {
-            if (++_offset >= _limit) {
-                _text = new StringBuilder()
-                    .append(_data, startOffset-1, _offset - startOffset + 1);
+            if (++_offset >= _limit && !fill()) {
+                beginText();
                 return TEXT;
             }
 
@@ -1213,9 +1846,10 @@ public class HtmlParser
         } while (isAlphaNumeric(ch) || ch == ':' || ch=='-');
 
         if (ch == '>') {
-            String endedTag = new String(_data, startOffset+1, _offset - startOffset - 1);
+            int nameLength = _offset - startOffset - 1;
+            int endedTagId = HtmlTags.lookup(_data, startOffset+1, nameLength);
+            _popIndex = lastIndexOf(endedTagId, startOffset+1, nameLength);
             _offset++;
-            _popIndex = lastIndexOfIgnoreCase(_elementStack, endedTag);
 
             if (_popIndex == -1) {
                 // closed off a tag that isn't currently open, don't
@@ -1224,19 +1858,18 @@ public class HtmlParser
                 // dynamic content close off its containing static
                 // layout.
 
-            	_text = new StringBuilder("");
+                _textStart = _textDecodeFrom = _offset;
                 return TEXT;
             }
 
-            // preserve the case of the closed tag
-            _elementStack.set(_popIndex, endedTag);
+            // preserve the case of the closed tag.  The names matched
+            // ignoring case, so they have the same length.
+            System.arraycopy(_data, startOffset+1, _nameBuffer, _elementNameStarts[_popIndex], nameLength);
             popTags();
             return END_TAG;
         }
 
-        _text = new StringBuilder()
-            .append(_data, startOffset-1, _offset - startOffset + 1);
-
+        beginText();
         parseText();
         return TEXT;
     }
@@ -1249,14 +1882,15 @@ public class HtmlParser
      * and the state is returned to normal.
      */
     private void popTags() {
-        int top = _elementStack.size() - 1;
+        int top = _elementCount - 1;
         while (top > _popIndex
-               && !_closeTagRequired.contains(((String)_elementStack.get(top)).toUpperCase()))
+               && !HtmlTags.isCloseTagRequired(_elementStack[top]))
         {
-            _elementStack.remove(top--);
+            --top;
         }
 
-        _tagName = (String)_elementStack.remove(top);
+        _elementCount = top + 1;
+        popElement();
 
         _state = (_popIndex == top)
             ? STATE_NORMAL : STATE_POPPING;
@@ -1273,7 +1907,7 @@ public class HtmlParser
         assert _data[_offset] == '?';
 
         for (;;) {
-          if(++_offset >= _limit) {
+          if(++_offset >= _limit && !fill()) {
             break;
           }
 
@@ -1286,21 +1920,25 @@ public class HtmlParser
 
 
     /**
-     * Quick (re-)implementation of ArrayList.lastIndexOf that does a
-     * case-insensitive comparison instead of the standard .equals
-     * call.
+     * Returns the index of the innermost open element matching an end
+     * tag whose name is at _data[nameStart].  HTML 4.01 elements are
+     * matched by id, other elements by a case-insensitive comparison
+     * of their names.
      */
-    private static int lastIndexOfIgnoreCase(ArrayList list, String str) {
-        if (str == null) {
-            // this branch is added for completeness.
-            // Case-insensitivity doesn't apply to null, so just call
-            // the original implemention that has direct underlying
-            // array access instead (read: "faster").
-            return list.lastIndexOf(str);
+    private int lastIndexOf(int tagId, int nameStart, int nameLength) {
+        if (tagId != HtmlTags.UNKNOWN) {
+            for (int i = _elementCount ; --i >= 0 ; ) {
+                if (_elementStack[i] == tagId) {
+                    return i;
+                }
+            }
+            return -1;
         }
 
-        for (int i=list.size() ; --i >= 0 ; ) {
-            if (str.equalsIgnoreCase((String)list.get(i))) {
+        for (int i = _elementCount ; --i >= 0 ; ) {
+            if (_elementStack[i] == HtmlTags.UNKNOWN
+                && _elementNameStarts[i + 1] - _elementNameStarts[i] == nameLength
+                && regionMatchesIgnoreCase(_elementNameStarts[i], nameStart, nameLength)) {
                 return i;
             }
         }
@@ -1308,4 +1946,19 @@ public class HtmlParser
         return -1;
     }
 
+    /**
+     * Compares a stacked tag name with a name in _data.  Tag names are
+     * ASCII, so ASCII case folding is enough.
+     */
+    private boolean regionMatchesIgnoreCase(int stackOffset, int dataOffset, int length) {
+        for (int i = 0; i < length; ++i) {
+            char a = _nameBuffer[stackOffset + i];
+            char b = _data[dataOffset + i];
+            if (a != b && (a | 0x20) != (b | 0x20)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 } // HtmlParser
@@ -0,0 +1,198 @@
+/*
+ * $Id$
+ *
+ * Copyright (C) 2006 SuccessFactors, Inc.
+ * All Rights Reserved
+ */
+package com.development.commons.tools.util.html;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * HtmlParserPool -- a bounded pool of HtmlParsers for code that parses
+ * many documents, such as batch sanitisation.  A parser taken from
+ * the pool with borrow() is reset to the given input and should be
+ * given back with release() once the caller is done with it.  At most
+ * <code>capacity</code> idle parsers are kept; when the pool is empty
+ * borrow() simply creates a new parser.
+ *
+ * <p>parseAll() processes a list of documents on a ForkJoinPool,
+ * each task reusing a single parser for its share of the documents.
+ *
+ * @see HtmlParser#reset(CharSequence)
+ * @version $Revision$
+ */
+public class HtmlParserPool
+{
+    /**
+     * Parsers whose buffer grew beyond this many characters are not
+     * kept, so that one huge document does not pin its buffer.
+     */
+    static final int MAX_RETAINED_BUFFER = 4 * HtmlParser.DEFAULT_WINDOW_SIZE;
+
+    /**
+     * parseAll() splits the documents into about this many tasks per
+     * worker thread.
+     */
+    private static final int TASKS_PER_THREAD = 8;
+
+    /** the idle parsers */
+    private final ArrayBlockingQueue<HtmlParser> _idle;
+
+    /** the span mode of the parsers handed out */
+    private final boolean _spanMode;
+
+    /**
+     * Creates a pool of parsers in normal mode.
+     *
+     * @param capacity the maximum number of idle parsers kept.
+     */
+    public HtmlParserPool(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Creates a pool of parsers.
+     *
+     * @param capacity the maximum number of idle parsers kept.
+     * @param spanMode the span mode of the parsers handed out.
+     * @see HtmlParser#setSpanMode(boolean)
+     */
+    public HtmlParserPool(int capacity, boolean spanMode) {
+        _idle = new ArrayBlockingQueue<HtmlParser>(capacity);
+        _spanMode = spanMode;
+    }
+
+    /**
+     * Returns a parser for <code>source</code>, reusing an idle parser
+     * if there is one.
+     *
+     * @param source the HTML to parse.
+     * @return a parser positioned at the beginning of source.
+     */
+    public HtmlParser borrow(CharSequence source) {
+        HtmlParser parser = _idle.poll();
+        if (parser == null) {
+            parser = new HtmlParser("");
+        }
+        parser.setSpanMode(_spanMode);
+        parser.reset(source);
+        return parser;
+    }
+
+    /**
+     * Gives a parser back to the pool.  The parser must not be used by
+     * the caller afterwards.  It is dropped if the pool is full.
+     *
+     * @param parser a parser obtained from borrow().
+     */
+    public void release(HtmlParser parser) {
+        if (parser._data.length <= MAX_RETAINED_BUFFER) {
+            // drop the reference to the input
+            parser.reset("");
+            _idle.offer(parser);
+        }
+    }
+
+    /**
+     * @return the number of idle parsers in the pool.
+     */
+    public int size() {
+        return _idle.size();
+    }
+
+    /**
+     * Parses each document with <code>handler</code> on the common
+     * ForkJoinPool.
+     *
+     * @see #parseAll(List, Function, ForkJoinPool)
+     */
+    public <R> List<R> parseAll(List<? extends CharSequence> documents,
+                                Function<? super HtmlParser, ? extends R> handler) {
+        return parseAll(documents, handler, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parses each document with <code>handler</code> in parallel.  The
+     * handler is called with a parser positioned at the beginning of
+     * the document and is expected to consume it; its return value is
+     * the result for the document.  The documents are split into
+     * ranges, each processed by one task with one parser taken from
+     * this pool, so the handler may be called from several threads at
+     * once but each parser is only used by one thread at a time.
+     *
+     * @param documents the documents to parse.
+     * @param handler called once per document.
+     * @param forkJoinPool the pool to run on.
+     * @return the results, in the order of <code>documents</code>.
+     */
+    public <R> List<R> parseAll(List<? extends CharSequence> documents,
+                                Function<? super HtmlParser, ? extends R> handler,
+                                ForkJoinPool forkJoinPool) {
+        Object[] results = new Object[documents.size()];
+        int batchSize = Math.max(1, documents.size() / (forkJoinPool.getParallelism() * TASKS_PER_THREAD));
+
+        forkJoinPool.invoke(new ParseTask(documents, 0, results.length, batchSize, handler, results));
+
+        @SuppressWarnings("unchecked")
+        List<R> list = (List<R>)Arrays.asList(results);
+        return list;
+    }
+
+    private class ParseTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends CharSequence> _documents;
+        private final int _start;
+        private final int _end;
+        private final int _batchSize;
+        private final Function<? super HtmlParser, ?> _handler;
+        private final Object[] _results;
+
+        ParseTask(List<? extends CharSequence> documents, int start, int end, int batchSize,
+                  Function<? super HtmlParser, ?> handler, Object[] results) {
+            _documents = documents;
+            _start = start;
+            _end = end;
+            _batchSize = batchSize;
+            _handler = handler;
+            _results = results;
+        }
+
+        @Override
+        protected void compute() {
+            if (_end - _start <= _batchSize) {
+                parse();
+            } else {
+                int middle = _start + (_end - _start) / 2;
+                invokeAll(new ParseTask(_documents, _start, middle, _batchSize, _handler, _results),
+                          new ParseTask(_documents, middle, _end, _batchSize, _handler, _results));
+            }
+        }
+
+        private void parse() {
+            if (_start == _end) {
+                return;
+            }
+
+            HtmlParser parser = borrow(_documents.get(_start));
+            try {
+                for (int i = _start; i < _end; ++i) {
+                    if (i != _start) {
+                        parser.reset(_documents.get(i));
+                    }
+                    _results[i] = _handler.apply(parser);
+                }
+            } finally {
+                release(parser);
+            }
+        }
+    }
+
+} // HtmlParserPool
@@ -0,0 +1,450 @@
+/*
+ * $Id$
+ *
+ * Copyright (C) 2006 SuccessFactors, Inc.
+ * All Rights Reserved
+ */
+package com.development.commons.tools.util.html;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * HtmlSanitizer -- a whitelist HTML filter.  The policy, given to the
+ * constructor, lists the tags, attributes and CSS properties that may
+ * pass; everything else is removed:
+ *
+ * <ul>
+ *   <li>tags that are not allowed are dropped, their content is kept,
+ *   except for SCRIPT and STYLE whose content is dropped as well.</li>
+ *   <li>attributes that are not allowed are dropped, as are URL
+ *   attributes (href, src...) whose scheme is not http, https, ftp or
+ *   mailto.</li>
+ *   <li>the style attribute, if allowed, is parsed with
+ *   CSSStyleParser and only the allowed properties are kept.  A style
+ *   that does not parse, and any url() value, is dropped.</li>
+ *   <li>comments, DOCTYPEs and processing instructions are
+ *   dropped.</li>
+ * </ul>
+ *
+ * <p>The sanitizer reads the events of an HtmlParser in span mode and
+ * writes the result straight to a Writer, escaping text and attribute
+ * values on the way out.  A sanitizer is immutable and may be shared
+ * between threads; sanitizeAll() runs a batch of documents in
+ * parallel on an HtmlParserPool.
+ *
+ * @version $Revision$
+ */
+public class HtmlSanitizer
+{
+    /** attributes whose value is a URL */
+    private static final HtmlNameSet URL_ATTRIBUTES = new HtmlNameSet(Arrays.asList(
+        "href", "src", "action", "background", "cite", "longdesc", "usemap",
+        "codebase", "classid", "data", "profile", "dynsrc", "lowsrc"));
+
+    /** the attribute filtered with CSSStyleParser */
+    private static final HtmlNameSet STYLE_ATTRIBUTE = new HtmlNameSet(Arrays.asList("style"));
+
+    /** URL schemes that may pass */
+    private static final HtmlNameSet URL_SCHEMES = new HtmlNameSet(Arrays.asList(
+        "http", "https", "ftp", "mailto"));
+
+    /** the size of the output buffer of a sanitize() call */
+    private static final int OUTPUT_BUFFER_SIZE = 1024;
+
+    /** the lower case tag names written, indexed by HtmlTags id */
+    private static final String[] _lowerCaseNames = new String[HtmlTags.count()];
+
+    /** elements that have no content, and so no end tag */
+    private static final boolean[] _void = new boolean[HtmlTags.count()];
+
+    /** elements whose content is dropped along with the tags */
+    private static final boolean[] _dropContent = new boolean[HtmlTags.count()];
+
+    static {
+        for (int id = 1; id < HtmlTags.count(); ++id) {
+            _lowerCaseNames[id] = HtmlTags.getName(id).toLowerCase(Locale.ENGLISH);
+        }
+        for (int id : new int[] { HtmlTags.AREA, HtmlTags.BASE, HtmlTags.BASEFONT, HtmlTags.BR,
+                                  HtmlTags.COL, HtmlTags.FRAME, HtmlTags.HR, HtmlTags.IMG,
+                                  HtmlTags.INPUT, HtmlTags.ISINDEX, HtmlTags.LINK,
+                                  HtmlTags.META, HtmlTags.PARAM }) {
+            _void[id] = true;
+        }
+        _dropContent[HtmlTags.SCRIPT] = true;
+        _dropContent[HtmlTags.STYLE] = true;
+    }
+
+    /** allowed tags, indexed by HtmlTags id */
+    private final boolean[] _allowedTags;
+
+    private final HtmlNameSet _allowedAttributes;
+
+    private final HtmlNameSet _allowedStyleProperties;
+
+    /**
+     * Creates a sanitizer.  Names are case-insensitive.  Only HTML 4.01
+     * tags (see HtmlTags) can be allowed.
+     *
+     * @param tags the allowed tags.
+     * @param attributes the allowed attributes, on any allowed tag.
+     * @param styleProperties the allowed CSS properties, used if
+     * "style" is an allowed attribute.
+     * @throws IllegalArgumentException if a tag is not an HTML 4.01
+     * tag.
+     */
+    public HtmlSanitizer(Collection<String> tags,
+                         Collection<String> attributes,
+                         Collection<String> styleProperties) {
+        _allowedTags = new boolean[HtmlTags.count()];
+        for (String tag : tags) {
+            int id = HtmlTags.lookup(tag);
+            if (id == HtmlTags.UNKNOWN) {
+                throw new IllegalArgumentException("not an HTML 4.01 tag: " + tag);
+            }
+            _allowedTags[id] = true;
+        }
+        _allowedAttributes = new HtmlNameSet(attributes);
+        _allowedStyleProperties = new HtmlNameSet(styleProperties);
+    }
+
+    /**
+     * Sanitizes an HTML fragment.
+     *
+     * @param html the HTML to sanitize.
+     * @return the sanitized HTML.
+     */
+    public String sanitize(CharSequence html) {
+        StringWriter out = new StringWriter(html.length());
+        try {
+            sanitize(new HtmlParser(html), out);
+        } catch (IOException e) {
+            // StringWriter does not throw
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Sanitizes the rest of the input of <code>parser</code> into
+     * <code>out</code>.  The parser is switched to span mode.
+     *
+     * @param parser the parser to read events from.
+     * @param out where the sanitized HTML is written.
+     * @throws IOException if writing to out fails.
+     */
+    public void sanitize(HtmlParser parser, Writer out) throws IOException {
+        parser.setSpanMode(true);
+        new Output(out).run(parser);
+    }
+
+    /**
+     * Sanitizes a batch of documents in parallel, reusing the parsers
+     * of <code>pool</code>.
+     *
+     * @param documents the documents to sanitize.
+     * @param pool the parser pool.
+     * @return the sanitized documents, in order.
+     * @see HtmlParserPool#parseAll(List, java.util.function.Function)
+     */
+    public List<String> sanitizeAll(List<? extends CharSequence> documents, HtmlParserPool pool) {
+        return pool.parseAll(documents, parser -> {
+            StringWriter out = new StringWriter();
+            try {
+                sanitize(parser, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toString();
+        });
+    }
+
+    /**
+     * Tests if a URL attribute value has an allowed scheme, or no
+     * scheme at all.  Spaces and control characters are ignored, as
+     * browsers do.
+     */
+    static boolean isAllowedUrl(CharSequence url) {
+        char[] scheme = new char[8];
+        int length = 0;
+        for (int i = 0, n = url.length(); i < n; ++i) {
+            char ch = url.charAt(i);
+            if (ch == ':') {
+                return length <= scheme.length && URL_SCHEMES.contains(scheme, 0, length);
+            }
+            if (ch == '/' || ch == '?' || ch == '#') {
+                // a relative URL
+                return true;
+            }
+            if (ch > ' ') {
+                if (length < scheme.length) {
+                    scheme[length] = ch;
+                }
+                ++length;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The state of one sanitize() call: the writer, a small output
+     * buffer and scratch buffers reused for every token.
+     */
+    private class Output {
+
+        private final Writer _out;
+        private final char[] _buf = new char[OUTPUT_BUFFER_SIZE];
+        private int _count;
+
+        /** decoded text or attribute value */
+        private final StringBuilder _scratch = new StringBuilder();
+
+        /** the filtered style */
+        private final StringBuilder _style = new StringBuilder();
+
+        /** nesting depth of elements whose content is dropped */
+        private int _dropDepth;
+
+        Output(Writer out) {
+            _out = out;
+        }
+
+        void run(HtmlParser parser) throws IOException {
+            for (int type; (type = parser.next()) != HtmlParser.EOF; ) {
+                int id = parser.getTagId();
+
+                switch (type) {
+                case HtmlParser.TEXT:
+                    if (_dropDepth == 0 && parser.getTextLength() != 0) {
+                        _scratch.setLength(0);
+                        parser.appendText(_scratch);
+                        writeEscaped(_scratch, false);
+                    }
+                    break;
+
+                case HtmlParser.START_TAG:
+                    if (!_allowedTags[id] && _dropContent[id]) {
+                        ++_dropDepth;
+                    } else if (_dropDepth == 0 && _allowedTags[id]) {
+                        startTag(parser, id);
+                    }
+                    break;
+
+                case HtmlParser.END_TAG:
+                    if (!_allowedTags[id] && _dropContent[id]) {
+                        --_dropDepth;
+                    } else if (_dropDepth == 0 && _allowedTags[id] && !_void[id]) {
+                        write('<');
+                        write('/');
+                        write(_lowerCaseNames[id]);
+                        write('>');
+                    }
+                    break;
+
+                default:
+                    // COMMENT and DOCTYPE
+                    break;
+                }
+            }
+            flush();
+        }
+
+        private void startTag(HtmlParser parser, int id) throws IOException {
+            write('<');
+            write(_lowerCaseNames[id]);
+
+            char[] data = parser.getBuffer();
+
+            for (int i = 0, n = parser.getAttributeCount(); i < n; ++i) {
+                int nameStart = parser.getAttributeNameStart(i);
+                int nameLength = parser.getAttributeNameLength(i);
+
+                if (!_allowedAttributes.contains(data, nameStart, nameLength)) {
+                    continue;
+                }
+
+                if (parser.getAttributeValueLength(i) < 0) {
+                    write(' ');
+                    writeLowerCase(data, nameStart, nameLength);
+                    continue;
+                }
+
+                _scratch.setLength(0);
+                parser.appendAttributeValue(i, _scratch);
+
+                CharSequence value = _scratch;
+                if (STYLE_ATTRIBUTE.contains(data, nameStart, nameLength)) {
+                    if (!filterStyle(_scratch)) {
+                        continue;
+                    }
+                    value = _style;
+                } else if (URL_ATTRIBUTES.contains(data, nameStart, nameLength) && !isAllowedUrl(_scratch)) {
+                    continue;
+                }
+
+                write(' ');
+                writeLowerCase(data, nameStart, nameLength);
+                write('=');
+                write('"');
+                writeEscaped(value, true);
+                write('"');
+            }
+
+            write('>');
+        }
+
+        /**
+         * Filters a style attribute into _style.
+         *
+         * @return false if nothing is left of the style.
+         */
+        private boolean filterStyle(CharSequence style) {
+            _style.setLength(0);
+            StyleFilter filter = new StyleFilter(style, _style);
+            try {
+                filter.parse();
+            } catch (ParseException e) {
+                return false;
+            }
+            filter.endDeclaration();
+            return _style.length() != 0;
+        }
+
+        private void writeLowerCase(char[] data, int start, int length) throws IOException {
+            for (int i = start, end = start + length; i < end; ++i) {
+                char ch = data[i];
+                write(('A' <= ch && ch <= 'Z') ? (char)(ch + ('a' - 'A')) : ch);
+            }
+        }
+
+        /**
+         * Writes text, escaping '&amp;', '&lt;', '&gt;' and, in
+         * attribute values, '"'.
+         */
+        private void writeEscaped(CharSequence text, boolean attribute) throws IOException {
+            for (int i = 0, n = text.length(); i < n; ++i) {
+                char ch = text.charAt(i);
+                switch (ch) {
+                case '&':
+                    write("&amp;");
+                    break;
+                case '<':
+                    write("&lt;");
+                    break;
+                case '>':
+                    write("&gt;");
+                    break;
+                case '"':
+                    if (attribute) {
+                        write("&quot;");
+                    } else {
+                        write(ch);
+                    }
+                    break;
+                default:
+                    write(ch);
+                }
+            }
+        }
+
+        private void write(String str) throws IOException {
+            for (int i = 0, n = str.length(); i < n; ++i) {
+                write(str.charAt(i));
+            }
+        }
+
+        private void write(char ch) throws IOException {
+            if (_count == _buf.length) {
+                flush();
+            }
+            _buf[_count++] = ch;
+        }
+
+        private void flush() throws IOException {
+            _out.write(_buf, 0, _count);
+            _count = 0;
+        }
+    }
+
+    /**
+     * Rebuilds a style from the CSSStyleParser callbacks, keeping only
+     * the allowed properties.
+     */
+    private class StyleFilter extends CSSStyleParser {
+
+        private final StringBuilder _out;
+
+        /** the length of _out before the current declaration */
+        private int _declarationStart;
+
+        /** true while the current declaration is being kept */
+        private boolean _keep;
+
+        /** number of values of the current declaration */
+        private int _values;
+
+        StyleFilter(CharSequence style, StringBuilder out) {
+            super(style);
+            _out = out;
+        }
+
+        void endDeclaration() {
+            if (!_keep || _values == 0) {
+                _out.setLength(_declarationStart);
+            } else {
+                _out.append(';');
+            }
+            _keep = false;
+        }
+
+        @Override
+        protected void declaration(String name) {
+            endDeclaration();
+            _declarationStart = _out.length();
+            _keep = _allowedStyleProperties.contains(name);
+            _values = 0;
+            if (_keep) {
+                if (_declarationStart != 0) {
+                    _out.append(' ');
+                }
+                _out.append(name.toLowerCase(Locale.ENGLISH)).append(':');
+            }
+        }
+
+        @Override
+        protected void value(String str) {
+            if (_keep) {
+                _out.append(' ').append(str);
+                ++_values;
+            }
+        }
+
+        @Override
+        protected void comma() {
+            if (_keep) {
+                _out.append(',');
+            }
+        }
+
+        @Override
+        protected void important() {
+            if (_keep) {
+                _out.append(" !important");
+            }
+        }
+
+        @Override
+        protected void url(String url) {
+            // url() may load anything, drop the declaration
+            _keep = false;
+        }
+    }
+
+} // HtmlSanitizer
@@ -0,0 +1,306 @@
+/*
+ * $Id$
+ *
+ * Copyright (C) 2006 SuccessFactors, Inc.
+ * All Rights Reserved
+ */
+package com.development.commons.tools.util.html;
+
+import java.util.Arrays;
+
+/**
+ * HtmlTags -- integer ids for the HTML 4.01 elements.  Tag names are
+ * resolved to ids through a case-insensitive perfect hash table, so
+ * that a tag name in a parse buffer can be identified without
+ * creating a String or upper-casing it.  Ids are small positive
+ * integers suitable for switch statements and array indexes; tags
+ * that are not defined by HTML 4.01 (e.g. MS Office's &lt;o:p&gt;)
+ * map to UNKNOWN.
+ *
+ * @see HtmlParser#getTagId()
+ * @version $Revision$
+ */
+public final class HtmlTags
+{
+    /** id of any tag not defined by HTML 4.01 */
+    public static final int UNKNOWN = 0;
+
+    public static final int A = 1;
+    public static final int ABBR = 2;
+    public static final int ACRONYM = 3;
+    public static final int ADDRESS = 4;
+    public static final int APPLET = 5;
+    public static final int AREA = 6;
+    public static final int B = 7;
+    public static final int BASE = 8;
+    public static final int BASEFONT = 9;
+    public static final int BDO = 10;
+    public static final int BIG = 11;
+    public static final int BLOCKQUOTE = 12;
+    public static final int BODY = 13;
+    public static final int BR = 14;
+    public static final int BUTTON = 15;
+    public static final int CAPTION = 16;
+    public static final int CENTER = 17;
+    public static final int CITE = 18;
+    public static final int CODE = 19;
+    public static final int COL = 20;
+    public static final int COLGROUP = 21;
+    public static final int DD = 22;
+    public static final int DEL = 23;
+    public static final int DFN = 24;
+    public static final int DIR = 25;
+    public static final int DIV = 26;
+    public static final int DL = 27;
+    public static final int DT = 28;
+    public static final int EM = 29;
+    public static final int FIELDSET = 30;
+    public static final int FONT = 31;
+    public static final int FORM = 32;
+    public static final int FRAME = 33;
+    public static final int FRAMESET = 34;
+    public static final int H1 = 35;
+    public static final int H2 = 36;
+    public static final int H3 = 37;
+    public static final int H4 = 38;
+    public static final int H5 = 39;
+    public static final int H6 = 40;
+    public static final int HEAD = 41;
+    public static final int HR = 42;
+    public static final int HTML = 43;
+    public static final int I = 44;
+    public static final int IFRAME = 45;
+    public static final int IMG = 46;
+    public static final int INPUT = 47;
+    public static final int INS = 48;
+    public static final int ISINDEX = 49;
+    public static final int KBD = 50;
+    public static final int LABEL = 51;
+    public static final int LEGEND = 52;
+    public static final int LI = 53;
+    public static final int LINK = 54;
+    public static final int MAP = 55;
+    public static final int MENU = 56;
+    public static final int META = 57;
+    public static final int NOFRAMES = 58;
+    public static final int NOSCRIPT = 59;
+    public static final int OBJECT = 60;
+    public static final int OL = 61;
+    public static final int OPTGROUP = 62;
+    public static final int OPTION = 63;
+    public static final int P = 64;
+    public static final int PARAM = 65;
+    public static final int PRE = 66;
+    public static final int Q = 67;
+    public static final int S = 68;
+    public static final int SAMP = 69;
+    public static final int SCRIPT = 70;
+    public static final int SELECT = 71;
+    public static final int SMALL = 72;
+    public static final int SPAN = 73;
+    public static final int STRIKE = 74;
+    public static final int STRONG = 75;
+    public static final int STYLE = 76;
+    public static final int SUB = 77;
+    public static final int SUP = 78;
+    public static final int TABLE = 79;
+    public static final int TBODY = 80;
+    public static final int TD = 81;
+    public static final int TEXTAREA = 82;
+    public static final int TFOOT = 83;
+    public static final int TH = 84;
+    public static final int THEAD = 85;
+    public static final int TITLE = 86;
+    public static final int TR = 87;
+    public static final int TT = 88;
+    public static final int U = 89;
+    public static final int UL = 90;
+    public static final int VAR = 91;
+
+    /**
+     * Upper case tag names indexed by id.  The order must match the
+     * constants above.
+     */
+    private static final String[] _names = {
+        null,
+        "A", "ABBR", "ACRONYM", "ADDRESS", "APPLET", "AREA", "B", "BASE",
+        "BASEFONT", "BDO", "BIG", "BLOCKQUOTE", "BODY", "BR", "BUTTON",
+        "CAPTION", "CENTER", "CITE", "CODE", "COL", "COLGROUP", "DD", "DEL",
+        "DFN", "DIR", "DIV", "DL", "DT", "EM", "FIELDSET", "FONT", "FORM",
+        "FRAME", "FRAMESET", "H1", "H2", "H3", "H4", "H5", "H6", "HEAD", "HR",
+        "HTML", "I", "IFRAME", "IMG", "INPUT", "INS", "ISINDEX", "KBD",
+        "LABEL", "LEGEND", "LI", "LINK", "MAP", "MENU", "META", "NOFRAMES",
+        "NOSCRIPT", "OBJECT", "OL", "OPTGROUP", "OPTION", "P", "PARAM", "PRE",
+        "Q", "S", "SAMP", "SCRIPT", "SELECT", "SMALL", "SPAN", "STRIKE",
+        "STRONG", "STYLE", "SUB", "SUP", "TABLE", "TBODY", "TD", "TEXTAREA",
+        "TFOOT", "TH", "THEAD", "TITLE", "TR", "TT", "U", "UL", "VAR"
+    };
+
+    /**
+     * This is a set of all the HTML 4.01 tags that require a closing
+     * tag.  The list was generated from the loose DTD
+     * (http://www.w3.org/TR/html4/sgml/loosedtd.html).  Some tags
+     * were added to the list that the DTD does not require, such as
+     * TR and TD, because browsers tend to behave poorly without the
+     * their close tags in practice.
+     */
+    private static final int[] CLOSE_TAG_REQUIRED = {
+        TT, I, B, U, S, STRIKE, BIG, SMALL, EM, STRONG, DFN, CODE, SAMP,
+        KBD, VAR, CITE, ABBR, ACRONYM, SUB, SUP, SPAN, BDO, FONT, ADDRESS,
+        DIV, CENTER, A, MAP, OBJECT, APPLET, H1, H2, H3, H4, H5, H6, PRE,
+        Q, BLOCKQUOTE, INS, DEL, DL, DT, DD, OL, DIR, MENU, UL, FORM,
+        LABEL, SELECT, OPTGROUP, OPTION, TEXTAREA, FIELDSET, LEGEND,
+        BUTTON, TABLE, CAPTION, TR, TH, TD, FRAMESET, IFRAME, NOFRAMES,
+        TITLE, STYLE, SCRIPT, NOSCRIPT
+    };
+
+    /** indexed by id */
+    private static final boolean[] _closeTagRequired = new boolean[_names.length];
+
+    /** size of the hash table, a power of 2 */
+    private static final int TABLE_SIZE = 512;
+
+    /** maps a hash slot to a tag id (UNKNOWN for empty slots) */
+    private static final byte[] _table = new byte[TABLE_SIZE];
+
+    /**
+     * The hash multiplier.  It is chosen when the class is loaded as
+     * the first multiplier for which no two tag names share a slot,
+     * which makes a lookup a single probe and compare.
+     */
+    private static final int _multiplier;
+
+    static {
+        if (_names.length - 1 != VAR) {
+            throw new AssertionError("tag names do not match tag ids");
+        }
+
+        for (int id : CLOSE_TAG_REQUIRED) {
+            _closeTagRequired[id] = true;
+        }
+
+        int multiplier = 31;
+    search:
+        for (;; multiplier += 2) {
+            Arrays.fill(_table, (byte)UNKNOWN);
+            for (int id = 1; id < _names.length; ++id) {
+                int slot = slot(_names[id], 0, _names[id].length(), multiplier);
+                if (_table[slot] != UNKNOWN) {
+                    continue search;
+                }
+                _table[slot] = (byte)id;
+            }
+            break;
+        }
+        _multiplier = multiplier;
+    }
+
+    private HtmlTags() {
+    }
+
+    /**
+     * Case-insensitive hash of name[off..off+len).  Folding with 0x20
+     * lower-cases ASCII letters and leaves digits unchanged; other
+     * characters may collide with letters, which the final compare
+     * in lookup() rules out.
+     */
+    private static int slot(CharSequence name, int off, int len, int multiplier) {
+        int h = len;
+        for (int i = off, end = off + len; i < end; ++i) {
+            h = h * multiplier + (name.charAt(i) | 0x20);
+        }
+        return (h ^ (h >>> 16)) & (TABLE_SIZE - 1);
+    }
+
+    private static int slot(char[] name, int off, int len, int multiplier) {
+        int h = len;
+        for (int i = off, end = off + len; i < end; ++i) {
+            h = h * multiplier + (name[i] | 0x20);
+        }
+        return (h ^ (h >>> 16)) & (TABLE_SIZE - 1);
+    }
+
+    /**
+     * Returns the id of the tag whose name is in
+     * <code>buf[off..off+len)</code>, ignoring case.
+     *
+     * @param buf characters containing the tag name
+     * @param off offset of the first character of the name
+     * @param len length of the name
+     * @return the tag id, or UNKNOWN
+     */
+    public static int lookup(char[] buf, int off, int len) {
+        int id = _table[slot(buf, off, len, _multiplier)];
+        if (id == UNKNOWN) {
+            return UNKNOWN;
+        }
+
+        String name = _names[id];
+        if (name.length() != len) {
+            return UNKNOWN;
+        }
+        for (int i = 0; i < len; ++i) {
+            if (toUpper(buf[off + i]) != name.charAt(i)) {
+                return UNKNOWN;
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of a tag name, ignoring case.
+     *
+     * @param name the tag name, e.g. "td" or "TD"
+     * @return the tag id, or UNKNOWN
+     */
+    public static int lookup(CharSequence name) {
+        int len = name.length();
+        int id = _table[slot(name, 0, len, _multiplier)];
+        if (id == UNKNOWN || _names[id].length() != len) {
+            return UNKNOWN;
+        }
+        for (int i = 0; i < len; ++i) {
+            if (toUpper(name.charAt(i)) != _names[id].charAt(i)) {
+                return UNKNOWN;
+            }
+        }
+        return id;
+    }
+
+    /**
+     * ASCII-only upper casing; tag names are ASCII.
+     */
+    private static char toUpper(char ch) {
+        return ('a' <= ch && ch <= 'z') ? (char)(ch - ('a' - 'A')) : ch;
+    }
+
+    /**
+     * Returns the upper case name of a tag id.
+     *
+     * @param id a tag id
+     * @return the tag name, or null for UNKNOWN
+     */
+    public static String getName(int id) {
+        return _names[id];
+    }
+
+    /**
+     * Returns the number of tag ids, including UNKNOWN.  Tag ids are
+     * in the range <code>[0, count())</code>.
+     */
+    public static int count() {
+        return _names.length;
+    }
+
+    /**
+     * Tests if the tag requires a closing tag.  UNKNOWN tags don't.
+     *
+     * @param id a tag id
+     * @return true if HtmlParser will close the tag if the input does
+     * not.
+     */
+    public static boolean isCloseTagRequired(int id) {
+        return _closeTagRequired[id];
+    }
+
+} // HtmlTags
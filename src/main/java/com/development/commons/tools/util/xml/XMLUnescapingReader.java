@@ -0,0 +1,489 @@
+/*
+ * $Id$
+ * $Revision$
+ * $Date$
+ * $Author$
+ */
+package com.development.commons.tools.util.xml;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * XMLUnescapingReader -- decodes escaped XML content on the fly. It reverses
+ * the output of the escapeContent and escapeAttribute methods without having to
+ * materialise the whole text. It decodes more than
+ * {@link XMLUtils#unescapeContent(String)}, which only handles &amp;lt; &amp;gt;
+ * &amp;apos; and &amp;amp;, and drops invalid characters, as described below.
+ *
+ * <p>
+ * The predefined entities (&amp;lt; &amp;gt; &amp;amp; &amp;apos; &amp;quot;) and
+ * decimal or hexadecimal character references (&amp;#39; &amp;#x1F600;) are
+ * decoded. Anything else starting with '&amp;' -- unknown entity names,
+ * malformed or overly long references -- is passed through unchanged. The
+ * lookahead needed to recognise a reference is bounded by
+ * {@link #MAX_REFERENCE_LENGTH} characters.
+ * </p>
+ *
+ * <p>
+ * Invalid characters are discarded the same way the XMLUtils escapers discard
+ * them (see the XMLUtils class Javadoc): control characters other than tab, CR
+ * and LF, unpaired surrogates, and U+FFFE/U+FFFF are dropped whether they occur
+ * literally or as a character reference. Character references above U+FFFF are
+ * returned as a surrogate pair.
+ * </p>
+ *
+ * <p>
+ * Instances are not thread-safe, and mark/reset is not supported.
+ * </p>
+ *
+ * @version $Revision$
+ */
+public class XMLUnescapingReader extends FilterReader {
+  /**
+   * The maximum length of a reference that will be decoded, including the
+   * leading '&amp;' and the trailing ';'. The longest canonical reference,
+   * "&amp;#x10FFFF;", is 10 characters; the rest leaves room for leading zeros.
+   */
+  static final int MAX_REFERENCE_LENGTH = 16;
+
+  /**
+   * Default size of the internal character buffer.
+   */
+  static final int DEFAULT_BUFFER_SIZE = 1024;
+
+  /**
+   * Returned by decodeReference for a sequence that is not a reference.
+   */
+  private static final int NOT_A_REFERENCE = -2;
+
+  /**
+   * Returned for a character that must be discarded.
+   */
+  private static final int DISCARD = -1;
+
+  /**
+   * Buffered input from the underlying Reader
+   */
+  private final char[] _buffer;
+
+  /**
+   * Current offset into _buffer
+   */
+  private int _offset;
+
+  /**
+   * End of valid input in _buffer
+   */
+  private int _length;
+
+  /**
+   * Set once the underlying Reader has returned end of stream
+   */
+  private boolean _eof;
+
+  /**
+   * The low surrogate of a decoded supplementary character that did not fit
+   * into the caller's array, or 0 if there is none.
+   */
+  private char _pendingLow;
+
+  /**
+   * Scratch array for the single character read() method
+   */
+  private final char[] _single = new char[1];
+
+  /**
+   * Creates an unescaping reader with the default buffer size.
+   *
+   * @param in
+   *          - the escaped XML content
+   */
+  public XMLUnescapingReader(final Reader in) {
+    this(in, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Creates an unescaping reader with the specified buffer size.
+   *
+   * @param in
+   *          - the escaped XML content
+   * @param bufferSize
+   *          - the size of the internal buffer, at least MAX_REFERENCE_LENGTH
+   * @throws IllegalArgumentException
+   *           - if bufferSize is too small to hold a reference
+   */
+  public XMLUnescapingReader(final Reader in, final int bufferSize) {
+    super(in);
+    if (bufferSize < MAX_REFERENCE_LENGTH) {
+      throw new IllegalArgumentException("Buffer size must be at least "
+          + MAX_REFERENCE_LENGTH + " (was " + bufferSize + ")");
+    }
+    _buffer = new char[bufferSize];
+  }
+
+  /**
+   * Makes sure at least <code>min</code> characters are buffered, unless the
+   * end of the underlying stream is reached first.
+   *
+   * @return the number of buffered characters
+   */
+  private int fill(final int min) throws IOException {
+    final int available = _length - _offset;
+    if (available >= min || _eof) {
+      return available;
+    }
+
+    if (_offset > 0) {
+      // move any remaining characters to the beginning of the buffer
+      System.arraycopy(_buffer, _offset, _buffer, 0, available);
+      _offset = 0;
+      _length = available;
+    }
+
+    while (_length < min) {
+      final int n = in.read(_buffer, _length, _buffer.length - _length);
+      if (n == -1) {
+        _eof = true;
+        break;
+      }
+      _length += n;
+    }
+
+    return _length - _offset;
+  }
+
+  /**
+   * Reads a single character.
+   *
+   * @return the character read, or -1 at end of stream
+   * @throws IOException
+   *           - thrown by the underlying Reader
+   */
+  @Override
+  public int read() throws IOException {
+    return read(_single, 0, 1) == -1 ? -1 : _single[0];
+  }
+
+  /**
+   * Reads unescaped characters into an array. Blocks only if no characters
+   * are buffered.
+   *
+   * @param cbuf
+   *          - the destination buffer
+   * @param off
+   *          - the offset at which to start storing characters
+   * @param len
+   *          - the maximum number of characters to read
+   * @return the number of characters read, or -1 at end of stream
+   * @throws IOException
+   *           - thrown by the underlying Reader
+   */
+  @Override
+  public int read(final char[] cbuf, final int off, final int len)
+      throws IOException {
+    if (off < 0 || len < 0 || off + len > cbuf.length) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+
+    int n = 0;
+
+    if (_pendingLow != 0) {
+      cbuf[off + n++] = _pendingLow;
+      _pendingLow = 0;
+    }
+
+    final char[] buffer = _buffer;
+
+    while (n < len) {
+      if (_offset >= _length) {
+        // don't block if something can be returned already
+        if (n > 0 || fill(1) == 0) {
+          break;
+        }
+      }
+
+      // copy the run of characters that need no attention
+      int offset = _offset;
+      final int end = _length;
+      while (offset < end && n < len) {
+        final char c = buffer[offset];
+        if (c < XMLUtils.MIN_HIGH_SURROGATE) {
+          if (c < ' ' || c == '&') {
+            break;
+          }
+        } else if (c <= XMLUtils.MAX_LOW_SURROGATE
+            || c > XMLUtils.MAX_VALID_UTF16) {
+          break;
+        }
+        cbuf[off + n++] = c;
+        ++offset;
+      }
+      _offset = offset;
+
+      if (offset >= end || n >= len) {
+        continue;
+      }
+
+      final int cp = readSpecial();
+      if (cp == DISCARD) {
+        continue;
+      }
+
+      if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+        cbuf[off + n++] = (char) cp;
+      } else {
+        cbuf[off + n++] = Character.highSurrogate(cp);
+        final char low = Character.lowSurrogate(cp);
+        if (n < len) {
+          cbuf[off + n++] = low;
+        } else {
+          _pendingLow = low;
+        }
+      }
+    }
+
+    return n > 0 ? n : -1;
+  }
+
+  /**
+   * Consumes the reference, control character or surrogate at the current
+   * offset.
+   *
+   * @return the code point to return to the caller, or DISCARD
+   */
+  private int readSpecial() throws IOException {
+    final char c = _buffer[_offset];
+
+    if (c == '&') {
+      return readReference();
+    }
+
+    if (c < ' ') {
+      // #x9 #xA and #xD are allowed, everything else between #x0 and #x1f is
+      // discarded
+      ++_offset;
+      return (c == '\t' || c == '\n' || c == '\r') ? c : DISCARD;
+    }
+
+    if (c <= XMLUtils.MAX_HIGH_SURROGATE) {
+      if (fill(2) >= 2) {
+        final char c2 = _buffer[_offset + 1];
+        if (XMLUtils.MIN_LOW_SURROGATE <= c2
+            && c2 <= XMLUtils.MAX_LOW_SURROGATE) {
+          _offset += 2;
+          return Character.toCodePoint(c, c2);
+        }
+      }
+    }
+
+    // an unpaired surrogate, #xFFFE or #xFFFF
+    ++_offset;
+    return DISCARD;
+  }
+
+  /**
+   * Consumes a reference starting with the '&amp;' at the current offset. If
+   * the input is not a decodable reference, only the '&amp;' is consumed and
+   * returned.
+   */
+  private int readReference() throws IOException {
+    final int available = fill(MAX_REFERENCE_LENGTH);
+    final char[] buffer = _buffer;
+    final int start = _offset;
+    final int limit = start + Math.min(available, MAX_REFERENCE_LENGTH);
+
+    for (int i = start + 1; i < limit; ++i) {
+      if (buffer[i] == ';') {
+        final int cp = decodeReference(buffer, start + 1, i);
+        if (cp == NOT_A_REFERENCE) {
+          break;
+        }
+        _offset = i + 1;
+        return cp;
+      }
+    }
+
+    ++_offset;
+    return '&';
+  }
+
+  /**
+   * Decodes the reference name between '&amp;' and ';'.
+   *
+   * @param buf
+   *          - the characters
+   * @param from
+   *          - the first character after '&amp;'
+   * @param to
+   *          - the index of the ';'
+   * @return the code point, DISCARD if the reference denotes an invalid
+   *         character, or NOT_A_REFERENCE
+   */
+  static int decodeReference(final char[] buf, final int from, final int to) {
+    final int len = to - from;
+
+    if (len > 1 && buf[from] == '#') {
+      int i = from + 1;
+      int radix = 10;
+      if (buf[i] == 'x' || buf[i] == 'X') {
+        radix = 16;
+        if (++i == to) {
+          return NOT_A_REFERENCE;
+        }
+      }
+
+      int cp = 0;
+      for (; i < to; ++i) {
+        final int digit = digit(buf[i], radix);
+        if (digit < 0) {
+          return NOT_A_REFERENCE;
+        }
+        // saturate instead of overflowing, the result is invalid anyway
+        cp = cp > Character.MAX_CODE_POINT ? cp : cp * radix + digit;
+      }
+
+      return isValidChar(cp) ? cp : DISCARD;
+    }
+
+    switch (len) {
+    case 2:
+      if (buf[from + 1] == 't') {
+        if (buf[from] == 'l') {
+          return '<';
+        }
+        if (buf[from] == 'g') {
+          return '>';
+        }
+      }
+      break;
+    case 3:
+      if (buf[from] == 'a' && buf[from + 1] == 'm' && buf[from + 2] == 'p') {
+        return '&';
+      }
+      break;
+    case 4:
+      if (buf[from] == 'a' && buf[from + 1] == 'p' && buf[from + 2] == 'o'
+          && buf[from + 3] == 's') {
+        return '\'';
+      }
+      if (buf[from] == 'q' && buf[from + 1] == 'u' && buf[from + 2] == 'o'
+          && buf[from + 3] == 't') {
+        return '"';
+      }
+      break;
+    default:
+      break;
+    }
+
+    return NOT_A_REFERENCE;
+  }
+
+  /**
+   * ASCII-only variant of Character.digit for radix 10 and 16.
+   */
+  private static int digit(final char c, final int radix) {
+    if ('0' <= c && c <= '9') {
+      return c - '0';
+    }
+    if (radix == 16) {
+      if ('a' <= c && c <= 'f') {
+        return c - 'a' + 10;
+      }
+      if ('A' <= c && c <= 'F') {
+        return c - 'A' + 10;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Char ::= #x9 | #xA | #xD | [#x20-#xD7FF] | [#xE000-#xFFFD] |
+   * [#x10000-#x10FFFF]
+   */
+  private static boolean isValidChar(final int cp) {
+    if (cp < 0x20) {
+      return cp == 0x9 || cp == 0xA || cp == 0xD;
+    }
+    return cp < XMLUtils.MIN_HIGH_SURROGATE
+        || (XMLUtils.MAX_LOW_SURROGATE < cp && cp <= XMLUtils.MAX_VALID_UTF16)
+        || (Character.MIN_SUPPLEMENTARY_CODE_POINT <= cp && cp <= Character.MAX_CODE_POINT);
+  }
+
+  /**
+   * Skips unescaped characters.
+   *
+   * @param n
+   *          - the number of characters to skip
+   * @return the number of characters actually skipped
+   * @throws IOException
+   *           - thrown by the underlying Reader
+   */
+  @Override
+  public long skip(final long n) throws IOException {
+    if (n < 0L) {
+      throw new IllegalArgumentException("skip value is negative");
+    }
+    final char[] scratch = new char[(int) Math.min(n, DEFAULT_BUFFER_SIZE)];
+    long remaining = n;
+    while (remaining > 0) {
+      final int r = read(scratch, 0, (int) Math.min(remaining, scratch.length));
+      if (r == -1) {
+        break;
+      }
+      remaining -= r;
+    }
+    return n - remaining;
+  }
+
+  /**
+   * Tells whether characters are buffered or the underlying Reader is ready.
+   *
+   * @return true if the next read is unlikely to block
+   * @throws IOException
+   *           - thrown by the underlying Reader
+   */
+  @Override
+  public boolean ready() throws IOException {
+    return _pendingLow != 0 || _offset < _length || in.ready();
+  }
+
+  /**
+   * Returns false -- mark is not supported.
+   *
+   * @return false
+   */
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  /**
+   * Throws IOException -- mark is not supported.
+   *
+   * @param readAheadLimit
+   *          readAheadLimit
+   * @throws IOException
+   *           - always
+   */
+  @Override
+  public void mark(final int readAheadLimit) throws IOException {
+    throw new IOException("mark/reset not supported");
+  }
+
+  /**
+   * Throws IOException -- mark/reset is not supported.
+   *
+   * @throws IOException
+   *           - always
+   */
+  @Override
+  public void reset() throws IOException {
+    throw new IOException("mark/reset not supported");
+  }
+
+} // XMLUnescapingReader
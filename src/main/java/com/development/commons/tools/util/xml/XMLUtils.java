@@ -13,7 +13,6 @@ import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
-import java.net.URL;
 import java.text.DateFormat;
 import java.text.FieldPosition;
 import java.text.ParseException;
@@ -111,72 +110,71 @@ public final class XMLUtils implements XmlTemplateConstants {
    */
   private static final TimeZone UTC_TIMEZONE = TimeZone.getTimeZone("UTC");
 
-  static DocumentBuilderFactory _safeDocumentBuilderFactory;
-  static DocumentBuilderFactory _soapDocumentBuilderFactory;
-  static {
-    try {
-      _safeDocumentBuilderFactory = DocumentBuilderFactory.newInstance();
-      _safeDocumentBuilderFactory.setCoalescing(true);
-      _safeDocumentBuilderFactory.setValidating(false);
-      _safeDocumentBuilderFactory.setIgnoringComments(true);
-      _safeDocumentBuilderFactory.setNamespaceAware(true);
-      _safeDocumentBuilderFactory.setExpandEntityReferences(false);
-
-      try {
-        final String className = _safeDocumentBuilderFactory.getClass()
-            .getName().replace('.', '/')
-            + ".class";
-        ClassLoader classloader = _safeDocumentBuilderFactory.getClass()
-            .getClassLoader();
-        if (classloader == null) {
-          classloader = ClassLoader.getSystemClassLoader();
-        }
-        final URL resource = classloader.getResource(className);
-//        logger.info("=========resourceURL: " + resource);
-      } catch (final Exception e) {
-        // for now, ignore until we fix the classpath for junit
-      }
-      try {
-        // prevent DTD recursion attacks
-        // this is documented on http://xml.apache.org/xerces2-j/properties.html
-        // NOTE: This will generate an exception in JUNIT mode since there is no
-        // security manager present.
-        _safeDocumentBuilderFactory.setAttribute(XML_SECURITY_MANAGER,
-            new org.apache.xerces.util.SecurityManager());
-      } catch (final Exception e) {
-//        logger.info("Exception " + e + " when setting the xml security manager");
-      }
-
-      _safeDocumentBuilderFactory.newDocumentBuilder(); // test
+  /**
+   * Holder for the DocumentBuilderFactory used by newSafeDocumentBuilder().
+   * Creating and testing the factory loads the whole JAXP/Xerces stack, so it
+   * is deferred until a builder is actually requested (the JVM initialises the
+   * holder class exactly once, on first access).
+   */
+  private static final class SafeDocumentBuilderFactoryHolder {
+    static final DocumentBuilderFactory FACTORY = newDocumentBuilderFactory();
+  }
 
-    } catch (final Exception e) {
-      e.printStackTrace();
-    }
+  /**
+   * Holder for the DocumentBuilderFactory used by newSoapDocumentBuilder().
+   */
+  private static final class SoapDocumentBuilderFactoryHolder {
+    static final DocumentBuilderFactory FACTORY = newDocumentBuilderFactory();
+  }
 
+  /**
+   * Creates a coalescing, namespace aware, non-validating factory with DTD
+   * recursion attack hindered.
+   */
+  private static DocumentBuilderFactory newDocumentBuilderFactory() {
+    DocumentBuilderFactory factory = null;
     try {
-      _soapDocumentBuilderFactory = DocumentBuilderFactory.newInstance();
-      _soapDocumentBuilderFactory.setCoalescing(true);
-      _soapDocumentBuilderFactory.setValidating(false);
-      _soapDocumentBuilderFactory.setIgnoringComments(true);
-      _soapDocumentBuilderFactory.setNamespaceAware(true);
-      _soapDocumentBuilderFactory.setExpandEntityReferences(false);
+      factory = DocumentBuilderFactory.newInstance();
+      factory.setCoalescing(true);
+      factory.setValidating(false);
+      factory.setIgnoringComments(true);
+      factory.setNamespaceAware(true);
+      factory.setExpandEntityReferences(false);
 
       try {
         // prevent DTD recursion attacks
         // this is documented on http://xml.apache.org/xerces2-j/properties.html
         // NOTE: This will generate an exception in JUNIT mode since there is no
         // security manager present.
-        _soapDocumentBuilderFactory.setAttribute(XML_SECURITY_MANAGER,
+        factory.setAttribute(XML_SECURITY_MANAGER,
             new org.apache.xerces.util.SecurityManager());
       } catch (final Exception e) {
 //        logger.info("Exception " + e + " when setting the xml security manager");
       }
 
-      _soapDocumentBuilderFactory.newDocumentBuilder(); // test
+      factory.newDocumentBuilder(); // test
 
     } catch (final Exception e) {
       e.printStackTrace();
     }
+    return factory;
+  }
+
+  /**
+   * Initialises the DocumentBuilderFactory instances on a daemon thread, so
+   * that the first call to newSafeDocumentBuilder() or newSoapDocumentBuilder()
+   * does not pay for loading the parser. Optional; callers that only use the
+   * escaping methods never load the parser at all.
+   */
+  public static void warmUpInBackground() {
+    final Thread thread = new Thread(new Runnable() {
+      public void run() {
+        newSafeDocumentBuilder();
+        newSoapDocumentBuilder();
+      }
+    }, "XMLUtils-warm-up");
+    thread.setDaemon(true);
+    thread.start();
   }
 
   static final char MAX_VALID_UTF16 = '\ufffd';
@@ -370,6 +368,22 @@ public final class XMLUtils implements XmlTemplateConstants {
     return unescapedContent;
   }
 
+  /**
+   * Returns a Reader that decodes entity and character references of
+   * <code>in</code> as it is read, so large escaped bodies never need to be held
+   * in memory as a whole. Unlike unescapeContent(String), which only replaces
+   * &amp;lt; &amp;gt; &amp;apos; and &amp;amp;, the reader also decodes
+   * &amp;quot; and numeric character references, and drops the characters that
+   * are invalid in XML. See {@link XMLUnescapingReader} for details.
+   *
+   * @param in
+   *          escaped content.
+   * @return a Reader producing the reconstructed original content.
+   */
+  public static Reader newUnescapingReader(final Reader in) {
+    return new XMLUnescapingReader(in);
+  }
+
   /**
    * Shortcut for escaping a single string. Equivalent to:
    *
@@ -650,7 +664,7 @@ public final class XMLUtils implements XmlTemplateConstants {
    */
   public static DocumentBuilder newSafeDocumentBuilder() {
     try {
-      return _safeDocumentBuilderFactory.newDocumentBuilder();
+      return SafeDocumentBuilderFactoryHolder.FACTORY.newDocumentBuilder();
     } catch (final ParserConfigurationException e) {
       throw (InternalError) new InternalError("ParserConfigurationException")
           .initCause(e);
@@ -663,7 +677,7 @@ public final class XMLUtils implements XmlTemplateConstants {
    */
   public static DocumentBuilder newSoapDocumentBuilder() {
     try {
-      return _soapDocumentBuilderFactory.newDocumentBuilder();
+      return SoapDocumentBuilderFactoryHolder.FACTORY.newDocumentBuilder();
     } catch (final ParserConfigurationException e) {
       throw (InternalError) new InternalError("ParserConfigurationException")
           .initCause(e);
@@ -1,11 +1,5 @@
 package com.development.commons.tools.xi.util;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.NotSerializableException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.lang.reflect.Field;
 import java.net.URL;
 import java.util.ArrayList;
@@ -16,8 +10,6 @@ import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import com.development.commons.tools.FileUtils;
-
 /**
  * Utility class for class instances. $Id$
  *
@@ -38,6 +30,11 @@ public class ClassUtils {
      */
     private static final int CLASSNAME_GROUP = 3;
 
+    /**
+     * Copies for deepCopy, on the calling thread.
+     */
+    private static final DeepCopier DEEP_COPIER = new DeepCopier();
+
     /**
      * No instances.
      */
@@ -91,7 +88,7 @@ public class ClassUtils {
     }
 
     /**
-     * Creates an identical copy of an object including all contained objects.
+     * Creates an identical copy of an object including all contained objects, see {@link DeepCopier}.
      *
      * NOTE: The object and all its children must implement the interface Serializable, otherwise you will an exception.
      *
@@ -101,31 +98,7 @@ public class ClassUtils {
      *
      */
     public static Object deepCopy(final Object oldObj) {
-        ObjectOutputStream oos = null;
-        ObjectInputStream ois = null;
-        try {
-            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            oos = new ObjectOutputStream(bos);
-            // serialize and pass the object
-            oos.writeObject(oldObj);
-            oos.flush();
-            final ByteArrayInputStream bin = new ByteArrayInputStream(bos.toByteArray());
-            ois = new ObjectInputStream(bin);
-            // return the new object
-            return ois.readObject();
-        } catch (final NotSerializableException e) {
-//            logger.error("Either the class, '" + oldObj.getClass().getName() + "', or one of its contained object classes does not implement Serializable", e);
-            throw new RuntimeException(e);
-        } catch (final IOException e) {
-//            logger.error("IOException while trying to clone an instnce of class '" + oldObj.getClass().getName() + "'", e);
-            throw new RuntimeException(e);
-        } catch (final ClassNotFoundException e) {
-//            logger.error("Failed to fine declaration for class '" + oldObj.getClass().getName() + "'", e);
-            throw new RuntimeException(e);
-        } finally {
-            FileUtils.close(oos);
-            FileUtils.close(ois);
-        }
+        return DEEP_COPIER.copy(oldObj);
     }
 
     /**
@@ -0,0 +1,695 @@
+package com.development.commons.tools.xi.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import com.development.commons.tools.FileUtils;
+import com.development.commons.tools.util.ReflectionUtils;
+
+/**
+ * Deep copies object graphs field by field, the way {@link ClassUtils#deepCopy(Object)} used to by serializing them,
+ * but without the stream. How each class is copied is worked out once, from {@link ClassUtils#getAllFields(Class)}:
+ * <ul>
+ * <li>immutable values (strings, boxed primitives, enums, BigInteger, BigDecimal, ...) are shared, not copied</li>
+ * <li>arrays and the common java.util collections and maps, including LinkedHashMap, Vector, Hashtable, EnumMap,
+ * EnumSet and the lists of Arrays.asList, are copied element by element</li>
+ * <li>other serializable classes are instantiated the way deserialization does, without running their constructors or
+ * field initializers, and their non-transient fields copied</li>
+ * <li>classes the field by field copy can't reproduce, those with a writeObject, readObject, writeReplace or readResolve
+ * method, serialPersistentFields, Externalizable or a superclass that isn't serializable, such as the
+ * Collections.unmodifiable and synchronized wrappers, need serialization, as do the other JDK classes and the classes
+ * with fields that can't be made accessible</li>
+ * </ul>
+ * As with serialization, every object of the graph must be serializable and shared references and cycles are kept. When
+ * an object of the graph needs serialization, the whole graph is copied by serializing it once, so that the references
+ * between that object and the rest of the graph are kept too.
+ *
+ * <p>
+ * With a pool, the elements of arrays and collections of at least the parallel threshold are copied concurrently on
+ * it.
+ * </p>
+ */
+public class DeepCopier {
+
+    /**
+     * The default number of elements from which arrays and collections are copied concurrently.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 10000;
+
+    /**
+     * The fewest elements copied by one task.
+     */
+    private static final int MIN_ELEMENTS_PER_TASK = 1024;
+
+    /**
+     * The number of tasks created per thread of the pool, to even out the load.
+     */
+    private static final int TASKS_PER_THREAD = 4;
+
+    private static final Set<Class<?>> IMMUTABLES = new HashSet<Class<?>>(Arrays.<Class<?>> asList(String.class, Boolean.class,
+            Character.class, Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class, BigInteger.class,
+            BigDecimal.class, Class.class, UUID.class, Locale.class, URI.class, java.time.Instant.class, java.time.LocalDate.class,
+            java.time.LocalTime.class, java.time.LocalDateTime.class, java.time.ZonedDateTime.class, java.time.OffsetDateTime.class,
+            java.time.OffsetTime.class, java.time.Duration.class, java.time.Period.class, java.time.Year.class,
+            java.time.YearMonth.class, java.time.MonthDay.class,
+            // singletons that deserialization resolves back to themselves
+            Collections.reverseOrder().getClass(), String.CASE_INSENSITIVE_ORDER.getClass(), Collections.emptyList().getClass(),
+            Collections.emptySet().getClass(), Collections.emptyMap().getClass()));
+
+    private static final Set<Class<?>> DATES = new HashSet<Class<?>>(Arrays.<Class<?>> asList(Date.class, java.sql.Date.class,
+            java.sql.Time.class, java.sql.Timestamp.class));
+
+    private static final List<Class<?>> COLLECTIONS = Arrays.<Class<?>> asList(ArrayList.class, LinkedList.class, ArrayDeque.class,
+            Vector.class, Stack.class, CopyOnWriteArrayList.class, HashSet.class, LinkedHashSet.class, HashMap.class,
+            LinkedHashMap.class, Hashtable.class, IdentityHashMap.class, ConcurrentHashMap.class);
+
+    /** the class of the lists of Arrays.asList */
+    private static final Class<?> ARRAYS_AS_LIST = Arrays.asList().getClass();
+
+    /** the ReflectionFactory creating the constructors deserialization uses, or null if the JDK has none */
+    private static final Object REFLECTION_FACTORY;
+
+    private static final Method NEW_CONSTRUCTOR_FOR_SERIALIZATION;
+
+    static {
+        Object factory = null;
+        Method method = null;
+        try {
+            final Class<?> factoryClass = Class.forName("sun.reflect.ReflectionFactory");
+            factory = factoryClass.getMethod("getReflectionFactory").invoke(null);
+            method = factoryClass.getMethod("newConstructorForSerialization", Class.class, Constructor.class);
+        } catch (final ReflectiveOperationException e) {
+            factory = null;
+        } catch (final RuntimeException e) {
+            factory = null;
+        }
+        REFLECTION_FACTORY = factory;
+        NEW_CONSTRUCTOR_FOR_SERIALIZATION = method;
+    }
+
+    private static final ClassValue<Plan> PLANS = new ClassValue<Plan>() {
+        @Override
+        protected Plan computeValue(final Class<?> type) {
+            return plan(type);
+        }
+    };
+
+    private final ForkJoinPool pool;
+
+    private final int parallelThreshold;
+
+    /**
+     * Creates a copier that copies on the calling thread.
+     */
+    public DeepCopier() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a copier that copies arrays and collections of 10000 elements or more on <code>pool</code>.
+     *
+     * @param pool
+     *            the pool to copy on
+     */
+    public DeepCopier(final ForkJoinPool pool) {
+        this(pool, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Creates a copier.
+     *
+     * @param pool
+     *            the pool to copy large arrays and collections on, or <code>null</code> to copy on the calling thread
+     * @param parallelThreshold
+     *            the number of elements from which an array or collection is copied on the pool
+     */
+    public DeepCopier(final ForkJoinPool pool, final int parallelThreshold) {
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException("parallelThreshold must be positive (was " + parallelThreshold + ")");
+        }
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Creates an identical copy of an object including all contained objects.
+     *
+     * @param oldObj
+     *            The object to be cloned
+     * @return a clone (identical copy) of oldObj
+     * @throws RuntimeException
+     *             caused by a NotSerializableException if an object of the graph is not serializable
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T copy(final T oldObj) {
+        try {
+            return (T) copy(oldObj, pool == null ? new Copies() : new ConcurrentCopies());
+        } catch (final NeedsSerialization e) {
+            return (T) serializationCopy(oldObj);
+        }
+    }
+
+    private Object copy(final Object original, final Copies copies) {
+        if (original == null) {
+            return null;
+        }
+        final Plan plan = PLANS.get(original.getClass());
+        if (plan == IMMUTABLE) {
+            return original;
+        }
+        final Object copy = copies.get(original);
+        return copy != null ? copy : plan.copy(original, copies, this);
+    }
+
+    /**
+     * Copies the elements of <code>from</code> into <code>to</code>, on the pool if there are enough of them.
+     */
+    private void copyElements(final Object[] from, final Object[] to, final Copies copies) {
+        if (pool != null && from.length >= parallelThreshold) {
+            final int perTask = Math.max(MIN_ELEMENTS_PER_TASK, from.length / (pool.getParallelism() * TASKS_PER_THREAD));
+            final CopyTask task = new CopyTask(from, to, 0, from.length, perTask, copies);
+            if (ForkJoinTask.getPool() == pool) {
+                task.invoke();
+            } else {
+                pool.invoke(task);
+            }
+        } else {
+            copyElements(from, to, 0, from.length, copies);
+        }
+    }
+
+    private void copyElements(final Object[] from, final Object[] to, final int start, final int end, final Copies copies) {
+        for (int i = start; i < end; i++) {
+            to[i] = copy(from[i], copies);
+        }
+    }
+
+    /**
+     * Copies a range of elements, splitting it in halves down to <code>perTask</code>.
+     */
+    private final class CopyTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] from;
+
+        private final Object[] to;
+
+        private final int start;
+
+        private final int end;
+
+        private final int perTask;
+
+        private final Copies copies;
+
+        CopyTask(final Object[] from, final Object[] to, final int start, final int end, final int perTask, final Copies copies) {
+            this.from = from;
+            this.to = to;
+            this.start = start;
+            this.end = end;
+            this.perTask = perTask;
+            this.copies = copies;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= perTask) {
+                copyElements(from, to, start, end, copies);
+            } else {
+                final int middle = start + (end - start) / 2;
+                invokeAll(new CopyTask(from, to, start, middle, perTask, copies), new CopyTask(from, to, middle, end, perTask, copies));
+            }
+        }
+    }
+
+    /**
+     * The copies made so far, by identity of the original.
+     */
+    private static class Copies {
+        private final IdentityHashMap<Object, Object> copies = new IdentityHashMap<Object, Object>();
+
+        Object get(final Object original) {
+            return copies.get(original);
+        }
+
+        /**
+         * Records the copy of <code>original</code>, before copying what it references so that cycles end there.
+         *
+         * @return the copy already recorded by another thread, or <code>null</code>
+         */
+        Object putIfAbsent(final Object original, final Object copy) {
+            copies.put(original, copy);
+            return null;
+        }
+    }
+
+    /**
+     * The copies made so far by several threads.
+     */
+    private static final class ConcurrentCopies extends Copies {
+        private final ConcurrentHashMap<IdentityKey, Object> copies = new ConcurrentHashMap<IdentityKey, Object>();
+
+        @Override
+        Object get(final Object original) {
+            return copies.get(new IdentityKey(original));
+        }
+
+        @Override
+        Object putIfAbsent(final Object original, final Object copy) {
+            return copies.putIfAbsent(new IdentityKey(original), copy);
+        }
+    }
+
+    /**
+     * Thrown when an object of the graph needs serialization, to copy the whole graph by serializing it instead.
+     */
+    private static final class NeedsSerialization extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        /** shared, as it has neither a stack trace nor suppressed exceptions */
+        static final NeedsSerialization INSTANCE = new NeedsSerialization();
+
+        private NeedsSerialization() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class IdentityKey {
+        private final Object object;
+
+        IdentityKey(final Object object) {
+            this.object = object;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(object);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof IdentityKey && ((IdentityKey) obj).object == object;
+        }
+    }
+
+    /**
+     * How the instances of one class are copied.
+     */
+    private abstract static class Plan {
+        /**
+         * Copies <code>original</code>, which has not been copied yet.
+         */
+        abstract Object copy(Object original, Copies copies, DeepCopier copier);
+
+        /**
+         * Records a new copy.
+         *
+         * @return the copy to go on with: <code>copy</code>, or the one another thread recorded first
+         */
+        static Object record(final Object original, final Object copy, final Copies copies) {
+            final Object raced = copies.putIfAbsent(original, copy);
+            return raced != null ? raced : copy;
+        }
+    }
+
+    private static final Plan IMMUTABLE = new Plan() {
+        @Override
+        Object copy(final Object original, final Copies copies, final DeepCopier copier) {
+            return original;
+        }
+    };
+
+    private static final Plan NOT_SERIALIZABLE = new Plan() {
+        @Override
+        Object copy(final Object original, final Copies copies, final DeepCopier copier) {
+            throw new RuntimeException(new NotSerializableException(original.getClass().getName()));
+        }
+    };
+
+    private static final Plan SERIALIZATION = new Plan() {
+        @Override
+        Object copy(final Object original, final Copies copies, final DeepCopier copier) {
+            throw NeedsSerialization.INSTANCE;
+        }
+    };
+
+    private static final Plan PRIMITIVE_ARRAY = new Plan() {
+        @Override
+        Object copy(final Object original, final Copies copies, final DeepCopier copier) {
+            final int length = Array.getLength(original);
+            final Object copy = Array.newInstance(original.getClass().getComponentType(), length);
+            System.arraycopy(original, 0, copy, 0, length);
+            return record(original, copy, copies);
+        }
+    };
+
+    private static final Plan OBJECT_ARRAY = new Plan() {
+        @Override
+        Object copy(final Object original, final Copies copies, final DeepCopier copier) {
+            final Object[] array = (Object[]) original;
+            final Object[] copy = (Object[]) Array.newInstance(original.getClass().getComponentType(), array.length);
+            final Object recorded = record(original, copy, copies);
+            if (recorded == copy) {
+                copier.copyElements(array, copy, copies);
+            }
+            return recorded;
+        }
+    };
+
+    private static final Plan DATE = new Plan() {
+        @Override
+        Object copy(final Object original, final Copies copies, final DeepCopier copier) {
+            return record(original, ((Date) original).clone(), copies);
+        }
+    };
+
+    /** EnumSets only hold enums, which are shared */
+    private static final Plan ENUM_SET = new Plan() {
+        @Override
+        Object copy(final Object original, final Copies copies, final DeepCopier copier) {
+            return record(original, ((EnumSet<?>) original).clone(), copies);
+        }
+    };
+
+    private static final Plan ENUM_MAP = new Plan() {
+        @Override
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Object copy(final Object original, final Copies copies, final DeepCopier copier) {
+            final EnumMap<?, Object> copy = new EnumMap((EnumMap) original);
+            final Object recorded = record(original, copy, copies);
+            if (recorded == copy) {
+                for (final Map.Entry<?, Object> entry : copy.entrySet()) {
+                    entry.setValue(copier.copy(entry.getValue(), copies));
+                }
+            }
+            return recorded;
+        }
+    };
+
+    /** a list of Arrays.asList, copied to another one, backed by a copy of its array */
+    private static final Plan ARRAY_LIST_VIEW = new Plan() {
+        @Override
+        Object copy(final Object original, final Copies copies, final DeepCopier copier) {
+            final Object[] elements = ((List<?>) original).toArray();
+            final Object copy = Arrays.asList(elements);
+            final Object recorded = record(original, copy, copies);
+            if (recorded == copy) {
+                copier.copyElements(elements, elements, copies);
+            }
+            return recorded;
+        }
+    };
+
+    /**
+     * Copies a collection or map of a known class, with its no-arg constructor or the comparator of a sorted one.
+     */
+    private static final class CollectionPlan extends Plan {
+        private final Constructor<?> constructor;
+
+        CollectionPlan(final Class<?> type) {
+            try {
+                this.constructor = type.getDeclaredConstructor();
+            } catch (final NoSuchMethodException e) {
+                throw new IllegalArgumentException(type.getName(), e);
+            }
+        }
+
+        @Override
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Object copy(final Object original, final Copies copies, final DeepCopier copier) {
+            final Object copy;
+            if (original instanceof TreeSet) {
+                copy = new TreeSet((Comparator) copier.copy(((TreeSet) original).comparator(), copies));
+            } else if (original instanceof TreeMap) {
+                copy = new TreeMap((Comparator) copier.copy(((TreeMap) original).comparator(), copies));
+            } else if (original instanceof LinkedHashMap) {
+                // a clone keeps whether the map is in access order, which no accessor tells
+                copy = ((LinkedHashMap) original).clone();
+                ((LinkedHashMap) copy).clear();
+            } else {
+                try {
+                    copy = constructor.newInstance();
+                } catch (final ReflectiveOperationException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            final Object recorded = record(original, copy, copies);
+            if (recorded != copy) {
+                return recorded;
+            }
+
+            if (original instanceof Map) {
+                final Map<Object, Object> map = (Map<Object, Object>) original;
+                final Object[] keys = new Object[map.size()];
+                final Object[] values = new Object[keys.length];
+                int i = 0;
+                for (final Map.Entry<Object, Object> entry : map.entrySet()) {
+                    keys[i] = entry.getKey();
+                    values[i++] = entry.getValue();
+                }
+                copier.copyElements(keys, keys, copies);
+                copier.copyElements(values, values, copies);
+                final Map<Object, Object> target = (Map<Object, Object>) copy;
+                for (i = 0; i < keys.length; i++) {
+                    target.put(keys[i], values[i]);
+                }
+            } else {
+                final Object[] elements = ((Collection<Object>) original).toArray();
+                copier.copyElements(elements, elements, copies);
+                ((Collection<Object>) copy).addAll(Arrays.asList(elements));
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Copies a plain serializable class field by field.
+     */
+    private static final class FieldPlan extends Plan {
+        /** the constructor of Object, as deserialization uses it, for the class */
+        private final Constructor<?> constructor;
+
+        /** the non-transient fields; transient ones are left at their default value */
+        private final Field[] fields;
+
+        FieldPlan(final Constructor<?> constructor, final Field[] fields) {
+            this.constructor = constructor;
+            this.fields = fields;
+        }
+
+        @Override
+        Object copy(final Object original, final Copies copies, final DeepCopier copier) {
+            try {
+                final Object copy = constructor.newInstance();
+                final Object recorded = record(original, copy, copies);
+                if (recorded != copy) {
+                    return recorded;
+                }
+                for (final Field field : fields) {
+                    final Class<?> type = field.getType();
+                    if (!type.isPrimitive()) {
+                        field.set(copy, copier.copy(field.get(original), copies));
+                    } else if (type == int.class) {
+                        field.setInt(copy, field.getInt(original));
+                    } else if (type == long.class) {
+                        field.setLong(copy, field.getLong(original));
+                    } else if (type == boolean.class) {
+                        field.setBoolean(copy, field.getBoolean(original));
+                    } else if (type == double.class) {
+                        field.setDouble(copy, field.getDouble(original));
+                    } else {
+                        field.set(copy, field.get(original));
+                    }
+                }
+                return copy;
+            } catch (final InstantiationException e) {
+                throw new RuntimeException(e);
+            } catch (final IllegalAccessException e) {
+                throw new RuntimeException(e);
+            } catch (final InvocationTargetException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
+    private static Plan plan(final Class<?> type) {
+        if (!Serializable.class.isAssignableFrom(type)) {
+            return NOT_SERIALIZABLE;
+        }
+        if (IMMUTABLES.contains(type) || Enum.class.isAssignableFrom(type) || ZoneId.class.isAssignableFrom(type)) {
+            return IMMUTABLE;
+        }
+        if (type.isArray()) {
+            return type.getComponentType().isPrimitive() ? PRIMITIVE_ARRAY : OBJECT_ARRAY;
+        }
+        if (DATES.contains(type)) {
+            return DATE;
+        }
+        if (COLLECTIONS.contains(type) || type == TreeSet.class || type == TreeMap.class) {
+            return new CollectionPlan(type);
+        }
+        if (EnumSet.class.isAssignableFrom(type)) {
+            return ENUM_SET;
+        }
+        if (type == EnumMap.class) {
+            return ENUM_MAP;
+        }
+        if (type == ARRAYS_AS_LIST) {
+            return ARRAY_LIST_VIEW;
+        }
+        // the fields of the other JDK classes are their own business, and not open to reflection from JDK 9 on
+        if (type.getClassLoader() == null || Externalizable.class.isAssignableFrom(type) || Proxy.isProxyClass(type)) {
+            return SERIALIZATION;
+        }
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+            if (!Serializable.class.isAssignableFrom(c) || hasSerializationMethods(c)) {
+                return SERIALIZATION;
+            }
+        }
+
+        final Constructor<?> constructor = serializationConstructor(type);
+        if (constructor == null) {
+            return SERIALIZATION;
+        }
+
+        final List<Field> fields = new ArrayList<Field>();
+        for (final Field field : ClassUtils.getAllFields(type)) {
+            final int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                continue;
+            }
+            try {
+                ReflectionUtils.setAccessible(field);
+            } catch (final RuntimeException e) {
+                // e.g. a field inherited from a JDK class, in a module that isn't open
+                return SERIALIZATION;
+            }
+            fields.add(field);
+        }
+        return new FieldPlan(constructor, fields.toArray(new Field[fields.size()]));
+    }
+
+    /**
+     * Returns the constructor deserialization creates instances of a serializable class with: the no-arg constructor of
+     * its first non-serializable superclass, Object here, so that no constructor or field initializer of the class
+     * runs.
+     *
+     * @return the constructor, or <code>null</code> if the JDK can't create it
+     */
+    private static Constructor<?> serializationConstructor(final Class<?> type) {
+        if (REFLECTION_FACTORY == null) {
+            return null;
+        }
+        try {
+            final Constructor<?> constructor = (Constructor<?>) NEW_CONSTRUCTOR_FOR_SERIALIZATION.invoke(REFLECTION_FACTORY, type,
+                    Object.class.getDeclaredConstructor());
+            ReflectionUtils.setAccessible(constructor);
+            return constructor;
+        } catch (final ReflectiveOperationException e) {
+            return null;
+        } catch (final RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks for the methods and fields that customize the serialization of a class.
+     */
+    private static boolean hasSerializationMethods(final Class<?> c) {
+        for (final Method m : c.getDeclaredMethods()) {
+            final String name = m.getName();
+            if (name.equals("writeObject") || name.equals("readObject") || name.equals("readObjectNoData") || name.equals("writeReplace")
+                    || name.equals("readResolve")) {
+                return true;
+            }
+        }
+        try {
+            c.getDeclaredField("serialPersistentFields");
+            return true;
+        } catch (final NoSuchFieldException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Copies an object by serializing and deserializing it.
+     *
+     * @param oldObj
+     *            The object to be cloned
+     * @return a clone (identical copy) of oldObj
+     */
+    static Object serializationCopy(final Object oldObj) {
+        ObjectOutputStream oos = null;
+        ObjectInputStream ois = null;
+        try {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            oos = new ObjectOutputStream(bos);
+            // serialize and pass the object
+            oos.writeObject(oldObj);
+            oos.flush();
+            final ByteArrayInputStream bin = new ByteArrayInputStream(bos.toByteArray());
+            ois = new ObjectInputStream(bin);
+            // return the new object
+            return ois.readObject();
+        } catch (final NotSerializableException e) {
+//            logger.error("Either the class, '" + oldObj.getClass().getName() + "', or one of its contained object classes does not implement Serializable", e);
+            throw new RuntimeException(e);
+        } catch (final IOException e) {
+//            logger.error("IOException while trying to clone an instnce of class '" + oldObj.getClass().getName() + "'", e);
+            throw new RuntimeException(e);
+        } catch (final ClassNotFoundException e) {
+//            logger.error("Failed to fine declaration for class '" + oldObj.getClass().getName() + "'", e);
+            throw new RuntimeException(e);
+        } finally {
+            FileUtils.close(oos);
+            FileUtils.close(ois);
+        }
+    }
+}
@@ -22,30 +22,92 @@ public class AnnotationIndex {
     @XStreamImplicit
     private Map<String, Set<String>> index;
 
-    private static XStream x;
     /**
-     * .
+     * Index of all gas.xml files on the context class path. Populated on first use of {@link #getAll()} or
+     * {@link #getAllFileIndex()}; reading the field directly does not trigger the scan.
+     *
+     * @deprecated use {@link #getAll()}, the field is empty until the indexes are built
      */
+    @Deprecated
     public static final AnnotationIndex ALL = new AnnotationIndex();
     /**
-     * .
+     * Per jar/directory indexes, keyed by path. Populated on first use of {@link #getAll()} or
+     * {@link #getAllFileIndex()}; reading the field directly does not trigger the scan.
+     *
+     * @deprecated use {@link #getAllFileIndex()}, the field is empty until the indexes are built
      */
+    @Deprecated
     public static final Map<String, AnnotationIndex> ALL_FILE_INDEX = new HashMap<String, AnnotationIndex>();
 
-    static {
-        try {
-            Class.forName("org.xmlpull.v1.XmlPullParserException");
-            Class.forName("org.xmlpull.v1.XmlPullParserFactory");
-            Class.forName("org.xmlpull.mxp1.MXParser");
-//            logger.info("GAS uses XPP which is a fast XML parser");
-            x = new XStream();
-        } catch (final ClassNotFoundException e) {
-//            logger.warn("GAS has to use DomDriver since XPP is not in class path");
-            x = new XStream(new DomDriver());
+    /**
+     * Lazily created XStream, so that merely touching the class does not load the XML stack.
+     */
+    private static final class XStreamHolder {
+        static final XStream X = createXStream();
+
+        private static XStream createXStream() {
+            XStream x;
+            try {
+                Class.forName("org.xmlpull.v1.XmlPullParserException");
+                Class.forName("org.xmlpull.v1.XmlPullParserFactory");
+                Class.forName("org.xmlpull.mxp1.MXParser");
+//                logger.info("GAS uses XPP which is a fast XML parser");
+                x = new XStream();
+            } catch (final ClassNotFoundException e) {
+//                logger.warn("GAS has to use DomDriver since XPP is not in class path");
+                x = new XStream(new DomDriver());
+            }
+
+            x.processAnnotations(new Class[] { AnnotationIndex.class });
+            return x;
         }
+    }
+
+    /**
+     * Scans the class path for gas.xml files the first time the indexes are requested. The JVM guarantees the scan
+     * runs exactly once, and concurrent callers wait for it to complete.
+     */
+    private static final class IndexesHolder {
+        static final boolean BUILT = buildIndexes();
+    }
 
-        x.processAnnotations(new Class[] { AnnotationIndex.class });
-        buildIndexes();
+    /**
+     * Returns the merged index of all gas.xml files on the class path, building it on first call.
+     *
+     * @return AnnotationIndex
+     */
+    public static AnnotationIndex getAll() {
+        ensureIndexesBuilt();
+        return ALL;
+    }
+
+    /**
+     * Returns the per jar/directory indexes keyed by path, building them on first call.
+     *
+     * @return Map
+     */
+    public static Map<String, AnnotationIndex> getAllFileIndex() {
+        ensureIndexesBuilt();
+        return ALL_FILE_INDEX;
+    }
+
+    private static boolean ensureIndexesBuilt() {
+        return IndexesHolder.BUILT;
+    }
+
+    /**
+     * Starts building the indexes on a daemon thread, so that the first caller of {@link #getAll()} does not have
+     * to pay for the class path scan. The thread inherits the caller's context class loader, which is the one
+     * scanned. Optional; without it the indexes are built on first use.
+     */
+    public static void warmUpInBackground() {
+        final Thread thread = new Thread(new Runnable() {
+            public void run() {
+                ensureIndexesBuilt();
+            }
+        }, "AnnotationIndex-warm-up");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
@@ -173,7 +235,7 @@ public class AnnotationIndex {
 
     private static AnnotationIndex fromXML(final URL url) {
         try {
-            return (AnnotationIndex) x.fromXML(url);
+            return (AnnotationIndex) XStreamHolder.X.fromXML(url);
         } catch (final Exception e) {
 //            logger.fatal("=================================== got error while parsing: " + url.toString());
 //            logger.catching(e);
@@ -181,7 +243,7 @@ public class AnnotationIndex {
         }
     }
 
-    private static synchronized void buildIndexes() {
+    private static synchronized boolean buildIndexes() {
         try {
             final long b = System.currentTimeMillis();
             final Enumeration<URL> urls = Thread.currentThread().getContextClassLoader().getResources(GAS_INDEX_FILE);
@@ -194,6 +256,7 @@ public class AnnotationIndex {
         } catch (final IOException e) {
             e.printStackTrace();
         }
+        return true;
     }
 
     /**
@@ -39,7 +39,7 @@ public class AnnotationScanner extends ResourceScanner {
         if (path.startsWith(filePrefix)) {
             path = path.substring(filePrefix.length());
         }
-        final AnnotationIndex annotationIndex = AnnotationIndex.ALL_FILE_INDEX.get(path);
+        final AnnotationIndex annotationIndex = AnnotationIndex.getAllFileIndex().get(path);
 
         final Set<Class<Object>> classesWithAnnotations = new HashSet<Class<Object>>();
         if (annotationIndex != null) {
@@ -29,7 +29,7 @@ public class ResourceScannerFactory {
      */
     public static <R, T extends ResourceVisitor<R>> ResourceScanner createScanner(final URL rootLocation, final String resourcePattern, final T visitor) {
         if (visitor instanceof ClassWithAnnotation && UrlUtils.isInsideJar(rootLocation)) {
-            final AnnotationIndex annotationIndex = AnnotationIndex.ALL_FILE_INDEX.get(UrlUtils.getJarName(rootLocation));
+            final AnnotationIndex annotationIndex = AnnotationIndex.getAllFileIndex().get(UrlUtils.getJarName(rootLocation));
             if (annotationIndex != null) {
                 return new AnnotationScanner(rootLocation, resourcePattern, visitor);
             }
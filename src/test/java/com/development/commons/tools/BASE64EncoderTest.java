@@ -0,0 +1,33 @@
+package com.development.commons.tools;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class BASE64EncoderTest {
+
+    @Test
+    public void testEncode() {
+        final Base64.Encoder reference = Base64.getMimeEncoder(76, new byte[] { '\n' });
+        final BASE64Encoder encoder = new BASE64Encoder();
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final Random random = new Random(5);
+            for (final int length : new int[] { 0, 1, 2, 3, 56, 57, 58, 114, 115, 57 * 5000, 57 * 5000 + 2 }) {
+                final byte[] data = new byte[length];
+                random.nextBytes(data);
+                final String expected = reference.encodeToString(data);
+
+                Assert.assertEquals(encoder.encode(data), expected, "length " + length);
+                Assert.assertEquals(new String(encoder.encodeToBytes(data), StandardCharsets.US_ASCII), expected);
+                Assert.assertEquals(encoder.encode(data, pool), expected, "parallel length " + length);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.development.commons.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class Base64CodecTest {
+
+    private static final byte[] URL_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+            .getBytes();
+
+    @Test
+    public void testMatchesStreams() throws IOException {
+        final Base64Codec url = new Base64Codec(URL_ALPHABET, (byte) '.', 10);
+        final Random random = new Random(7);
+        for (final int length : new int[] { 0, 1, 2, 3, 4, 56, 57, 58, 3000 }) {
+            final byte[] data = new byte[length];
+            random.nextBytes(data);
+
+            final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            final byte[] expected = streamEncode(new Base64OutputStream(buf), buf, data);
+            final ByteBuffer encoded = Base64Codec.DEFAULT.encode(ByteBuffer.wrap(data));
+            Assert.assertEquals(bytes(encoded.duplicate()), expected);
+            Assert.assertEquals(Base64Codec.DEFAULT.encodedLength(length), expected.length);
+            Assert.assertEquals(bytes(Base64Codec.DEFAULT.decode(encoded)), data);
+
+            final ByteArrayOutputStream urlBuf = new ByteArrayOutputStream();
+            final byte[] urlExpected = streamEncode(new Base64OutputStream(urlBuf, URL_ALPHABET, (byte) '.', 10), urlBuf, data);
+            final ByteBuffer urlEncoded = url.encode(ByteBuffer.wrap(data));
+            Assert.assertEquals(bytes(urlEncoded.duplicate()), urlExpected);
+            Assert.assertEquals(bytes(url.decode(urlEncoded)), data);
+        }
+    }
+
+    @Test
+    public void testSmallBuffers() throws IOException {
+        final byte[] data = new byte[1000];
+        new Random(3).nextBytes(data);
+        final byte[] encoded = bytes(Base64Codec.DEFAULT.encode(ByteBuffer.wrap(data)));
+
+        // direct buffers of a few bytes, so atoms and decoded bytes straddle calls
+        for (final int size : new int[] { 1, 2, 3, 5, 6, 7 }) {
+            final Base64Codec.Encoder encoder = Base64Codec.DEFAULT.newEncoder();
+            final ByteBuffer src = ByteBuffer.allocateDirect(size);
+            final ByteBuffer dst = ByteBuffer.allocateDirect(Math.max(size, 5));
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (int i = 0; i < data.length;) {
+                src.clear();
+                final int n = Math.min(size, data.length - i);
+                src.put(data, i, n).flip();
+                i += n;
+                while (src.hasRemaining()) {
+                    encoder.encode(src, dst);
+                    drain(dst, out);
+                }
+            }
+            Assert.assertTrue(encoder.finish(dst));
+            drain(dst, out);
+            Assert.assertEquals(out.toByteArray(), encoded);
+
+            final Base64Codec.Decoder decoder = Base64Codec.DEFAULT.newDecoder();
+            final ByteBuffer in = ByteBuffer.allocateDirect(size);
+            final ByteBuffer result = ByteBuffer.allocateDirect(size);
+            out.reset();
+            for (int i = 0; i < encoded.length;) {
+                in.clear();
+                final int n = Math.min(size, encoded.length - i);
+                in.put(encoded, i, n).flip();
+                i += n;
+                do {
+                    decoder.decode(in, result);
+                    drain(result, out);
+                } while (in.hasRemaining() && !decoder.isTerminated());
+            }
+            while (!decoder.isTerminated()) {
+                decoder.decode(in, result);
+                drain(result, out);
+            }
+            decoder.finish();
+            Assert.assertEquals(out.toByteArray(), data, "size " + size);
+        }
+    }
+
+    @Test
+    public void testChannels() throws IOException {
+        final byte[] data = new byte[20000];
+        new Random(11).nextBytes(data);
+
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (WritableByteChannel out = Base64Codec.DEFAULT.newEncodingChannel(Channels.newChannel(encoded))) {
+            for (int i = 0; i < data.length; i += 1001) {
+                Assert.assertEquals(out.write(ByteBuffer.wrap(data, i, Math.min(1001, data.length - i))),
+                        Math.min(1001, data.length - i));
+            }
+        }
+        Assert.assertEquals(encoded.toByteArray(), bytes(Base64Codec.DEFAULT.encode(ByteBuffer.wrap(data))));
+
+        final ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        try (ReadableByteChannel in = Base64Codec.DEFAULT
+                .newDecodingChannel(Channels.newChannel(new ByteArrayInputStream(encoded.toByteArray())))) {
+            final ByteBuffer buf = ByteBuffer.allocate(777);
+            while (in.read(buf) != -1) {
+                buf.flip();
+                decoded.write(bytes(buf));
+                buf.clear();
+            }
+        }
+        Assert.assertEquals(decoded.toByteArray(), data);
+    }
+
+    @Test
+    public void testCorrupt() {
+        for (final String input : new String[] { "QUJD\nRUZH*", "QUJDR", "QU=D", "Q===", "QU=R" }) {
+            try {
+                Base64Codec.DEFAULT.decode(ByteBuffer.wrap(input.getBytes()));
+                Assert.fail(input);
+            } catch (final Base64EncodingException expected) {
+                // expected
+            }
+        }
+        try {
+            new Base64Codec(Arrays.copyOf(URL_ALPHABET, 63), (byte) '=', 76);
+            Assert.fail();
+        } catch (final IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    private static byte[] streamEncode(final Base64OutputStream out, final ByteArrayOutputStream buf, final byte[] data)
+            throws IOException {
+        out.write(data);
+        out.close();
+        return buf.toByteArray();
+    }
+
+    private static void drain(final ByteBuffer buf, final ByteArrayOutputStream out) {
+        buf.flip();
+        out.write(bytes(buf), 0, buf.limit());
+        buf.clear();
+    }
+
+    private static byte[] bytes(final ByteBuffer buf) {
+        final byte[] b = new byte[buf.remaining()];
+        buf.get(b);
+        return b;
+    }
+}
@@ -0,0 +1,68 @@
+package com.development.commons.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class Base64InputStreamTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final Random random = new Random(42);
+        for (final int length : new int[] { 0, 1, 2, 3, 56, 57, 58, 1000, 5000 }) {
+            final byte[] data = new byte[length];
+            random.nextBytes(data);
+
+            final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            final Base64OutputStream out = new Base64OutputStream(buf);
+            out.write(data);
+            out.close();
+            final String encoded = buf.toString("US-ASCII");
+
+            for (final String text : new String[] { encoded, encoded.replace("\n", "\r\n") }) {
+                final byte[] bytes = text.getBytes("US-ASCII");
+                for (final int chunk : new int[] { 1, 2, 3, 4, 7, 100, 8192 }) {
+                    Assert.assertEquals(decode(new Base64InputStream(new ByteArrayInputStream(bytes)), chunk), data,
+                            length + "/" + chunk);
+                }
+                // one byte at a time from the underlying stream, so atoms straddle buffer refills
+                Assert.assertEquals(decode(new Base64InputStream(new TrickleInputStream(bytes)), 100), data);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testCorrupt() throws IOException {
+        decode(new Base64InputStream(new ByteArrayInputStream("QUJD\u00e9EFG".getBytes("ISO-8859-1"))), 64);
+    }
+
+    private static byte[] decode(final InputStream in, final int chunk) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] b = new byte[chunk + 2];
+        int n;
+        while ((n = in.read(b, 1, chunk)) != -1) {
+            Assert.assertTrue(n > 0 && n <= chunk);
+            Assert.assertEquals(b[0], 0);
+            Assert.assertEquals(b[chunk + 1], 0);
+            out.write(b, 1, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class TrickleInputStream extends ByteArrayInputStream {
+        TrickleInputStream(final byte[] buf) {
+            super(buf);
+        }
+
+        @Override
+        public synchronized int read(final byte[] b, final int off, final int len) {
+            return super.read(b, off, Math.min(len, 1));
+        }
+    }
+}
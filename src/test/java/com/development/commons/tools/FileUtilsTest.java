@@ -0,0 +1,169 @@
+package com.development.commons.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class FileUtilsTest {
+
+    @Test
+    public void testRead() throws IOException {
+        final byte[] data = new byte[100000];
+        new Random(1).nextBytes(data);
+        final File file = File.createTempFile("FileUtilsTest", ".bin");
+        try {
+            Files.write(file.toPath(), data);
+
+            Assert.assertEquals(FileUtils.toBytes(file), data);
+            Assert.assertEquals(FileUtils.toBytes(file.getPath()), data);
+            Assert.assertEquals(FileUtils.toBytes(file.getPath(), FileUtils.FILE), data);
+
+            final MappedByteBuffer mapped = FileUtils.map(file);
+            Assert.assertTrue(mapped.isReadOnly());
+            Assert.assertEquals(mapped.remaining(), data.length);
+            Assert.assertEquals(mapped.get(12345), data[12345]);
+
+            final InputStream in = FileUtils.toMappedInputStream(file.getPath());
+            try {
+                Assert.assertEquals(in.read(), data[0] & 0xff);
+                Assert.assertEquals(in.skip(9), 9);
+                Assert.assertEquals(in.available(), data.length - 10);
+                final byte[] rest = StringUtils.readFully(in);
+                Assert.assertEquals(rest.length, data.length - 10);
+                Assert.assertEquals(rest[0], data[10]);
+                Assert.assertEquals(in.read(), -1);
+            } finally {
+                in.close();
+            }
+
+            Files.write(file.toPath(), new byte[0]);
+            Assert.assertEquals(FileUtils.toBytes(file).length, 0);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expectedExceptions = FileNotFoundException.class)
+    public void testReadMissing() throws IOException {
+        FileUtils.toBytes("no/such/FileUtilsTest.file");
+    }
+
+    @Test
+    public void testCopyTree() throws IOException {
+        final Path root = Files.createTempDirectory("FileUtilsTest");
+        try {
+            final Path src = root.resolve("src");
+            final Random random = new Random(2);
+            long total = 0;
+            for (int i = 0; i < 200; i++) {
+                final Path file = src.resolve("d" + (i % 7)).resolve("e" + (i % 3)).resolve("f" + i + ".txt");
+                Files.createDirectories(file.getParent());
+                final byte[] data = new byte[random.nextInt(5000)];
+                random.nextBytes(data);
+                Files.write(file, data);
+                total += data.length;
+            }
+            Files.createDirectories(src.resolve("empty"));
+
+            final Path dst = root.resolve("dst");
+            final AtomicInteger notified = new AtomicInteger();
+            final TreeCopier.Progress progress = new TreeCopier(4).setListener(new TreeCopier.Listener() {
+                @Override
+                public void fileDone(final Path source, final Path target, final boolean skipped,
+                        final TreeCopier.Progress p) {
+                    notified.incrementAndGet();
+                }
+            }).copy(src, dst);
+            Assert.assertEquals(progress.getFilesCopied(), 200);
+            Assert.assertEquals(progress.getBytesCopied(), total);
+            Assert.assertTrue(progress.isDone());
+            Assert.assertEquals(notified.get(), 200);
+            Assert.assertTrue(Files.isDirectory(dst.resolve("empty")));
+            Assert.assertEquals(Files.readAllBytes(dst.resolve("d3/e1/f10.txt")),
+                    Files.readAllBytes(src.resolve("d3/e1/f10.txt")));
+
+            Files.write(src.resolve("d0/e0/f0.txt"), new byte[] { 1, 2, 3 });
+            final TreeCopier.Progress again = FileUtils.copyTree(src.toFile(), dst.toFile(), true);
+            Assert.assertEquals(again.getFilesCopied(), 1);
+            Assert.assertEquals(again.getFilesSkipped(), 199);
+            Assert.assertEquals(Files.readAllBytes(dst.resolve("d0/e0/f0.txt")), new byte[] { 1, 2, 3 });
+
+            // a RuntimeException on a copying thread fails the copy
+            try {
+                new TreeCopier(4).setListener(new TreeCopier.Listener() {
+                    @Override
+                    public void fileDone(final Path source, final Path target, final boolean skipped,
+                            final TreeCopier.Progress p) {
+                        throw new IllegalStateException("listener");
+                    }
+                }).copy(src, dst);
+                Assert.fail();
+            } catch (final IllegalStateException expected) {
+                Assert.assertEquals(expected.getMessage(), "listener");
+            }
+        } finally {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(final Path dir, final IOException e) throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testSniff() throws IOException {
+        final String[] samples = { "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>\n<a encoding=\"x\"/>",
+                "\u00ef\u00bb\u00bf<?xml version=\"1.0\" encoding=\"UTF-8\"?><a/>", "<?xml version=\"1.0\"?>\r\n<a/>",
+                "\u00fe\u00ffab<?xml", "\u00ff\u00fe<?xml encoding=\"UTF-16\"", "<html>", "<?x", "", "\u00ef\u00bb\u00bf" };
+        for (final String sample : samples) {
+            final byte[] data = sample.getBytes("ISO-8859-1");
+            final ByteBuffer buffer = ByteBuffer.allocate(data.length + 2);
+            buffer.put((byte) 'x').put(data).put((byte) 'y').flip();
+            buffer.position(1).limit(data.length + 1);
+
+            Assert.assertEquals(FileUtils.isXML(buffer), FileUtils.isXML(data), sample);
+            Assert.assertEquals(FileUtils.hasByteOrderMark(buffer), FileUtils.hasByteOrderMark(data), sample);
+            Assert.assertEquals(FileUtils.getEncodingFromXML(buffer), FileUtils.getEncodingFromXML(data), sample);
+            Assert.assertEquals(FileUtils.findFirstByte(buffer), FileUtils.findFirstByte(data), sample);
+            Assert.assertEquals(bytes(FileUtils.removeByteOrderMark(buffer)), FileUtils.removeByteOrderMark(data), sample);
+            Assert.assertEquals(buffer.position(), 1);
+
+            final PushbackInputStream in = FileUtils.toSniffableStream(new ByteArrayInputStream(data));
+            Assert.assertEquals(FileUtils.isXML(in), FileUtils.isXML(data), sample);
+            Assert.assertEquals(FileUtils.hasByteOrderMark(in), FileUtils.hasByteOrderMark(data), sample);
+            Assert.assertEquals(FileUtils.getEncodingFromXML(in), FileUtils.getEncodingFromXML(data), sample);
+            Assert.assertEquals(FileUtils.findFirstByte(in), FileUtils.findFirstByte(data), sample);
+            Assert.assertEquals(StringUtils.readFully(FileUtils.removeByteOrderMark(in)), FileUtils.removeByteOrderMark(data), sample);
+        }
+    }
+
+    private static byte[] bytes(final ByteBuffer buf) {
+        final byte[] b = new byte[buf.remaining()];
+        buf.duplicate().get(b);
+        return b;
+    }
+}
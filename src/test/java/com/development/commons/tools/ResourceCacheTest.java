@@ -0,0 +1,119 @@
+package com.development.commons.tools;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ResourceCacheTest {
+
+    @Test
+    public void testFiles() throws IOException {
+        final File file = File.createTempFile("ResourceCacheTest", ".txt");
+        try {
+            write(file, "one", 10000);
+
+            final ResourceCache cached = new ResourceCache(16, 1024, 3600000);
+            final ResourceCache validated = new ResourceCache(16, 1024, 0);
+            Assert.assertEquals(text(cached.toBytes(file.getPath())), "one");
+            Assert.assertEquals(text(validated.toBytes(file.getPath(), FileUtils.FILE)), "one");
+            Assert.assertEquals(cached.getURL(file.getPath(), FileUtils.FILE), file.toURI().toURL());
+
+            write(file, "two", 20000);
+            Assert.assertEquals(text(cached.toBytes(file.getPath())), "one");
+            Assert.assertEquals(text(StringUtils.readFully(validated.toInputStream(file.getPath(), FileUtils.FILE))), "two");
+
+            // not cached, too large
+            final ResourceCache small = new ResourceCache(16, 2, 3600000);
+            Assert.assertEquals(text(small.toBytes(file.getPath())), "two");
+            Assert.assertEquals(small.size(), 0);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testMisses() throws IOException {
+        final File file = new File(System.getProperty("java.io.tmpdir"), "ResourceCacheTest-" + System.nanoTime());
+        final ResourceCache cached = new ResourceCache(16, 1024, 3600000);
+        final ResourceCache validated = new ResourceCache(16, 1024, 0);
+        try {
+            for (final ResourceCache cache : new ResourceCache[] { cached, validated }) {
+                Assert.assertNull(cache.getURL(file.getPath(), FileUtils.FILE));
+                try {
+                    cache.toBytes(file.getPath());
+                    Assert.fail();
+                } catch (final FileNotFoundException expected) {
+                    // expected
+                }
+            }
+            Assert.assertEquals(cached.size(), 2);
+
+            write(file, "now", 10000);
+            Assert.assertNull(cached.getURL(file.getPath(), FileUtils.FILE));
+            Assert.assertEquals(text(validated.toBytes(file.getPath())), "now");
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testJarResources() throws IOException {
+        final File jar = File.createTempFile("ResourceCacheTest", ".jar");
+        final ClassLoader saved = Thread.currentThread().getContextClassLoader();
+        final URLClassLoader loader = new URLClassLoader(new URL[] { jar.toURI().toURL() }, null);
+        try {
+            writeJar(jar, "one", 100000000000L);
+            jar.setLastModified(10000000);
+            Thread.currentThread().setContextClassLoader(loader);
+
+            final ResourceCache cache = new ResourceCache(16, 1024, 0);
+            Assert.assertEquals(text(cache.toBytes("res/a.txt")), "one");
+            Assert.assertEquals(cache.getURL("res/a.txt", FileUtils.SYSTEM).getProtocol(), "jar");
+
+            // a new jar with the same entry time keeps the cached content
+            writeJar(jar, "new", 100000000000L);
+            jar.setLastModified(20000000);
+            Assert.assertEquals(text(cache.toBytes("res/a.txt", FileUtils.SYSTEM)), "one");
+
+            writeJar(jar, "two", 200000000000L);
+            jar.setLastModified(30000000);
+            Assert.assertEquals(text(cache.toBytes("res/a.txt", FileUtils.SYSTEM)), "two");
+        } finally {
+            Thread.currentThread().setContextClassLoader(saved);
+            loader.close();
+            jar.delete();
+        }
+    }
+
+    private static void write(final File file, final String text, final long mtime) throws IOException {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(mtime);
+    }
+
+    private static void writeJar(final File jar, final String text, final long time) throws IOException {
+        final JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            final JarEntry entry = new JarEntry("res/a.txt");
+            entry.setTime(time);
+            out.putNextEntry(entry);
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+    }
+
+    private static String text(final byte[] data) {
+        return new String(data, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+package com.development.commons.tools.util;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class AnnotationCacheTest {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Tagged {
+    }
+
+    public static class Parent {
+        @Tagged
+        private String secret;
+
+        @Tagged
+        public void parentMethod() {
+        }
+    }
+
+    public static class Child extends Parent {
+        @Tagged
+        protected int count;
+
+        private int plain;
+
+        @Tagged
+        public void childMethod() {
+        }
+
+        public void plainMethod() {
+        }
+    }
+
+    @Test
+    public void testLookups() throws NoSuchFieldException, NoSuchMethodException {
+        final List<Field> fields = AnnotationUtils.getAllFields(Child.class, Tagged.class);
+        Assert.assertEquals(fields.size(), 2);
+        Assert.assertTrue(fields.contains(Child.class.getDeclaredField("count")));
+        Assert.assertTrue(fields.contains(Parent.class.getDeclaredField("secret")));
+
+        final List<Method> methods = AnnotationUtils.getMethods(Child.class, Tagged.class);
+        Assert.assertEquals(methods.size(), 2);
+        Assert.assertTrue(methods.contains(Child.class.getMethod("childMethod")));
+        Assert.assertTrue(methods.contains(Child.class.getMethod("parentMethod")));
+
+        // both AnnotationUtils share the cached lists
+        Assert.assertSame(com.development.commons.tools.xi.util.AnnotationUtils.getAllFields(Child.class, Tagged.class), fields);
+        Assert.assertSame(com.development.commons.tools.xi.util.AnnotationUtils.getMethods(Child.class, Tagged.class), methods);
+
+        try {
+            methods.clear();
+            Assert.fail();
+        } catch (final UnsupportedOperationException e) {
+            // cached lists can't be changed
+        }
+        Assert.assertTrue(AnnotationCache.getMethods(Parent.class, Retention.class).isEmpty());
+    }
+
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<List<Method>>> futures = new ArrayList<Future<List<Method>>>();
+            for (int i = 0; i < 64; i++) {
+                futures.add(executor.submit(new Callable<List<Method>>() {
+                    @Override
+                    public List<Method> call() {
+                        return AnnotationCache.getMethods(Child.class, Test.class);
+                    }
+                }));
+            }
+            final List<Method> first = futures.get(0).get();
+            for (final Future<List<Method>> future : futures) {
+                Assert.assertEquals(future.get(), first);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
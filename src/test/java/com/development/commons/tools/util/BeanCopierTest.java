@@ -0,0 +1,137 @@
+package com.development.commons.tools.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.development.commons.vo.SampleVO;
+
+public class BeanCopierTest {
+
+    public static class SampleDTO {
+        private long id = -1;
+
+        private String name;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(final long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+    }
+
+    public static class FormBean {
+        private String count;
+
+        private String enabled;
+
+        private int size;
+
+        public String getCount() {
+            return count;
+        }
+
+        public void setCount(final String count) {
+            this.count = count;
+        }
+
+        public String getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final String enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(final int size) {
+            this.size = size;
+        }
+    }
+
+    public static class Settings {
+        private Integer count;
+
+        private boolean enabled;
+
+        private int size;
+
+        public Integer getCount() {
+            return count;
+        }
+
+        public void setCount(final Integer count) {
+            this.count = count;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(final int size) {
+            this.size = size;
+        }
+    }
+
+    @Test
+    public void testCopy() throws InvocationTargetException {
+        final BeanCopier<SampleVO, SampleDTO> copier = BeanCopier.forClasses(SampleVO.class, SampleDTO.class);
+        Assert.assertSame(BeanCopier.forClasses(SampleVO.class, SampleDTO.class), copier);
+        Assert.assertEquals(new HashSet<String>(copier.getPropertyNames()), new HashSet<String>(Arrays.asList("id", "name")));
+
+        final SampleVO vo = new SampleVO();
+        vo.setId(Long.valueOf(12));
+        vo.setName("twelve");
+        final SampleDTO dto = copier.copy(vo, new SampleDTO());
+        Assert.assertEquals(dto.getId(), 12L);
+        Assert.assertEquals(dto.getName(), "twelve");
+
+        // a null isn't copied to a primitive
+        vo.setId(null);
+        Assert.assertEquals(copier.copy(vo, new SampleDTO()).getId(), -1L);
+
+        final SampleVO back = BeanCopier.forClasses(SampleDTO.class, SampleVO.class).copy(dto, new SampleVO());
+        Assert.assertEquals(back.getId(), Long.valueOf(12));
+        Assert.assertEquals(back.getName(), "twelve");
+    }
+
+    @Test
+    public void testConverter() throws InvocationTargetException {
+        final FormBean form = new FormBean();
+        form.setCount(" 42 ");
+        form.setEnabled("yes");
+        form.setSize(3);
+
+        Assert.assertEquals(BeanCopier.forClasses(FormBean.class, Settings.class).getPropertyNames(), Arrays.asList("size"));
+
+        final BeanCopier<FormBean, Settings> copier = BeanCopier.forClasses(FormBean.class, Settings.class, BeanCopier.STRING_COERCION);
+        final Settings settings = copier.copy(form, new Settings());
+        Assert.assertEquals(settings.getCount(), Integer.valueOf(42));
+        Assert.assertTrue(settings.isEnabled());
+        Assert.assertEquals(settings.getSize(), 3);
+    }
+}
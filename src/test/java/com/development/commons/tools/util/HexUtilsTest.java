@@ -0,0 +1,82 @@
+package com.development.commons.tools.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class HexUtilsTest {
+
+    @Test
+    public void testEncode() throws IOException {
+        final byte[] data = { 0, 1, 0x7f, (byte) 0x80, (byte) 0xab, (byte) 0xff };
+        Assert.assertEquals(HexUtils.bytesToHex(data), "00017F80ABFF");
+        Assert.assertEquals(HexUtils.bytesToHex(data, false), "00017f80abff");
+        Assert.assertEquals(HexUtils.byteToHex((byte) 0xab), "ab");
+
+        final char[] out = { '[', 0, 0, 0, 0, ']' };
+        Assert.assertEquals(HexUtils.toHex(data, 4, 2, out, 1, true), 5);
+        Assert.assertEquals(new String(out), "[ABFF]");
+
+        final StringWriter writer = new StringWriter();
+        Assert.assertEquals(HexUtils.writeHex(new ByteArrayInputStream(data), writer, false), 6);
+        Assert.assertEquals(writer.toString(), "00017f80abff");
+    }
+
+    @Test
+    public void testParse() throws IOException {
+        Assert.assertNull(HexUtils.parseSeq(""));
+        Assert.assertEquals(HexUtils.parseSeq("00017F80abFF"), new byte[] { 0, 1, 0x7f, (byte) 0x80, (byte) 0xab, (byte) 0xff });
+        Assert.assertEquals(HexUtils.parseSeq(new StringBuilder("x0aFFx"), 1, 5), new byte[] { 0x0a, (byte) 0xff });
+        Assert.assertEquals(HexUtils.parseByte("f"), 15);
+        Assert.assertEquals(HexUtils.parseByte("00fF"), -1);
+        Assert.assertEquals(HexUtils.parseByte(""), 0);
+
+        for (final String bad : new String[] { "abc", "0g", "-1", "+f", "\u0660\u0661" }) {
+            try {
+                HexUtils.parseSeq(bad);
+                Assert.fail(bad);
+            } catch (final NumberFormatException expected) {
+                // expected
+            }
+        }
+        try {
+            HexUtils.parseByte("100");
+            Assert.fail();
+        } catch (final NumberFormatException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testStreams() throws IOException {
+        final byte[] data = new byte[20001];
+        new Random(9).nextBytes(data);
+        final StringWriter hex = new StringWriter();
+        HexUtils.writeHex(new ByteArrayInputStream(data), hex, true);
+        Assert.assertEquals(hex.toString(), HexUtils.bytesToHex(data));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // a reader returning odd sized chunks, so digit pairs straddle reads
+        final StringReader reader = new StringReader(hex.toString()) {
+            @Override
+            public int read(final char[] cbuf, final int off, final int len) throws IOException {
+                return super.read(cbuf, off, Math.min(len, 333));
+            }
+        };
+        Assert.assertEquals(HexUtils.readHex(reader, out), data.length);
+        Assert.assertEquals(out.toByteArray(), data);
+
+        try {
+            HexUtils.readHex(new StringReader("abc"), new ByteArrayOutputStream());
+            Assert.fail();
+        } catch (final NumberFormatException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.development.commons.tools.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ObjectCreatorTest {
+
+    public static class Plugin {
+        private final String name;
+
+        private final int size;
+
+        public Plugin() {
+            this("default", 0);
+        }
+
+        public Plugin(final String name, final int size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("negative size");
+            }
+            this.name = name;
+            this.size = size;
+        }
+    }
+
+    @Test
+    public void testCreateObject() throws InvocationTargetException {
+        for (int i = 0; i < 3; i++) {
+            final Plugin plugin = (Plugin) ObjectCreator.createObject(Plugin.class.getName(), "p" + i, Integer.valueOf(i));
+            Assert.assertEquals(plugin.name, "p" + i);
+            Assert.assertEquals(plugin.size, i);
+        }
+        Assert.assertEquals(((Plugin) ObjectCreator.createObject(Plugin.class.getName())).name, "default");
+        Assert.assertEquals(((Plugin) ObjectCreator.createObject(Plugin.class.getName(), (Object[]) null)).name, "default");
+        Assert.assertEquals(ObjectCreator.createObject("java.lang.StringBuilder", "abc").toString(), "abc");
+        Assert.assertTrue(ObjectCreator.createObject("java.util.ArrayList", Integer.valueOf(10)) instanceof ArrayList);
+    }
+
+    @Test
+    public void testFailures() {
+        for (int i = 0; i < 2; i++) {
+            try {
+                ObjectCreator.createObject("com.development.NoSuchPlugin", "x");
+                Assert.fail();
+            } catch (final InvocationTargetException e) {
+                Assert.assertTrue(e.getCause() instanceof ClassNotFoundException);
+            }
+            try {
+                ObjectCreator.createObject("com.development.NoSuchPlugin");
+                Assert.fail();
+            } catch (final InvocationTargetException e) {
+                Assert.assertTrue(e.getCause() instanceof ClassNotFoundException);
+            }
+            try {
+                ObjectCreator.createObject(Plugin.class.getName(), Long.valueOf(1));
+                Assert.fail();
+            } catch (final InvocationTargetException e) {
+                Assert.assertTrue(e.getCause() instanceof NoSuchMethodException);
+            }
+        }
+
+        // more names than are remembered as missing
+        for (int i = 0; i < 1000; i++) {
+            try {
+                ObjectCreator.createObject("com.development.NoSuchPlugin" + i);
+                Assert.fail();
+            } catch (final InvocationTargetException e) {
+                Assert.assertTrue(e.getCause() instanceof ClassNotFoundException);
+            }
+        }
+
+        try {
+            ObjectCreator.createObject(Plugin.class.getName(), "bad", Integer.valueOf(-1));
+            Assert.fail();
+        } catch (final InvocationTargetException e) {
+            // wrapped twice, as when ConstructorUtils invoked the constructor
+            Assert.assertTrue(e.getCause() instanceof InvocationTargetException);
+            Assert.assertEquals(e.getCause().getCause().getMessage(), "negative size");
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.development.commons.tools.util;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PropertyAccessorTest {
+
+    public static class Bean {
+        private int count;
+
+        private Long total;
+
+        private String label;
+
+        private boolean active;
+
+        private final String id = "id";
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(final int count) {
+            this.count = count;
+        }
+
+        public Long getTotal() {
+            return total;
+        }
+
+        public void setTotal(final Long total) {
+            this.total = total;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(final boolean active) {
+            this.active = active;
+        }
+
+        public void setFailing(final String value) {
+            throw new IllegalStateException(value);
+        }
+    }
+
+    @Test
+    public void testPropertyAccessor() throws NoSuchFieldException, InvocationTargetException {
+        final Bean bean = new Bean();
+        final PropertyAccessor count = ReflectionUtils.getPropertyAccessor(Bean.class, "Count");
+        Assert.assertSame(ReflectionUtils.getPropertyAccessor(Bean.class, "count"), count);
+        Assert.assertEquals(count.getType(), int.class);
+        Assert.assertTrue(count.isReadable());
+        Assert.assertTrue(count.isWritable());
+
+        count.setInt(bean, 42);
+        Assert.assertEquals(bean.getCount(), 42);
+        Assert.assertEquals(count.getInt(bean), 42);
+        Assert.assertEquals(count.getLong(bean), 42L);
+        Assert.assertEquals(count.getDouble(bean), 42.0);
+        Assert.assertEquals(count.get(bean), Integer.valueOf(42));
+        count.set(bean, Integer.valueOf(7));
+        Assert.assertEquals(bean.getCount(), 7);
+
+        final PropertyAccessor total = ReflectionUtils.getPropertyAccessor(Bean.class, "total");
+        total.setLong(bean, 5L);
+        Assert.assertEquals(bean.getTotal(), Long.valueOf(5));
+        // narrowing falls back on Number
+        Assert.assertEquals(total.getInt(bean), 5);
+
+        final PropertyAccessor active = ReflectionUtils.getPropertyAccessor(Bean.class, "active");
+        active.setBoolean(bean, true);
+        Assert.assertTrue(active.getBoolean(bean));
+
+        final PropertyAccessor label = ReflectionUtils.getPropertyAccessor(Bean.class, "label");
+        Assert.assertFalse(label.isWritable());
+        try {
+            label.set(bean, "x");
+            Assert.fail();
+        } catch (final UnsupportedOperationException e) {
+            // read only
+        }
+
+        final PropertyAccessor failing = ReflectionUtils.getPropertyAccessor(Bean.class, "failing");
+        Assert.assertFalse(failing.isReadable());
+        try {
+            failing.set(bean, "boom");
+            Assert.fail();
+        } catch (final InvocationTargetException e) {
+            Assert.assertEquals(e.getCause().getMessage(), "boom");
+        }
+
+        // only what the method throws is wrapped, not the failures to convert the bean or the value
+        try {
+            count.set(bean, "str");
+            Assert.fail();
+        } catch (final ClassCastException e) {
+            // expected
+        }
+        try {
+            count.set(bean, null);
+            Assert.fail();
+        } catch (final NullPointerException e) {
+            // expected
+        }
+        try {
+            count.setInt(null, 1);
+            Assert.fail();
+        } catch (final NullPointerException e) {
+            // expected
+        }
+        try {
+            label.get(null);
+            Assert.fail();
+        } catch (final NullPointerException e) {
+            // expected
+        }
+        try {
+            count.get("notabean");
+            Assert.fail();
+        } catch (final ClassCastException e) {
+            // expected
+        }
+
+        try {
+            ReflectionUtils.getPropertyAccessor(Bean.class, "missing");
+            Assert.fail();
+        } catch (final NoSuchFieldException e) {
+            Assert.assertEquals(e.getMessage(), "missing");
+        }
+    }
+
+    @Test
+    public void testFieldAccessor() throws NoSuchFieldException, InvocationTargetException {
+        final Bean bean = new Bean();
+        final PropertyAccessor count = ReflectionUtils.getFieldAccessor(Bean.class, "COUNT");
+        count.setInt(bean, 3);
+        Assert.assertEquals(bean.getCount(), 3);
+        Assert.assertEquals(count.getInt(bean), 3);
+
+        final PropertyAccessor label = ReflectionUtils.getFieldAccessor(Bean.class, "label");
+        label.set(bean, "text");
+        Assert.assertEquals(bean.getLabel(), "text");
+
+        final PropertyAccessor id = ReflectionUtils.getFieldAccessor(Bean.class, "id");
+        Assert.assertEquals(id.get(bean), "id");
+        Assert.assertFalse(id.isWritable());
+        try {
+            id.set(bean, "changed");
+            Assert.fail();
+        } catch (final UnsupportedOperationException e) {
+            // final fields are read only
+        }
+        Assert.assertEquals(id.get(bean), "id");
+
+        try {
+            label.set(bean, Integer.valueOf(1));
+            Assert.fail();
+        } catch (final ClassCastException e) {
+            // field accesses are not wrapped
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.development.commons.tools.util;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ReflectionUtilsTest {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Marker {
+    }
+
+    public static class Base {
+        @Marker
+        protected String name;
+
+        protected int count;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public void setCount(final int count) {
+            this.count = count;
+        }
+    }
+
+    public static class Derived extends Base {
+        protected String NAME;
+
+        @Marker
+        private boolean active;
+
+        @Override
+        public String getName() {
+            return "derived";
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(final boolean active) {
+            this.active = active;
+        }
+
+        public void setCount(final String count) {
+            this.count = Integer.parseInt(count);
+        }
+
+        @Marker
+        public int getCount() {
+            return count;
+        }
+    }
+
+    @Test
+    public void testFields() throws NoSuchFieldException {
+        // the superclass field comes first and wins over the subclass's NAME
+        Assert.assertEquals(ReflectionUtils.getField(Derived.class, "Name").getDeclaringClass(), Base.class);
+        Assert.assertEquals(ReflectionUtils.getField(Derived.class, "ACTIVE").getName(), "active");
+        try {
+            ReflectionUtils.getField(Derived.class, "missing");
+            Assert.fail();
+        } catch (final NoSuchFieldException e) {
+            Assert.assertEquals(e.getMessage(), "missing");
+        }
+
+        final List<Field> fields = ReflectionUtils.getFields(Derived.class);
+        Assert.assertEquals(fields, ReflectionUtils.getFields(Derived.class, java.lang.reflect.Modifier.STATIC));
+        // callers get their own copy
+        fields.clear();
+        Assert.assertFalse(ReflectionUtils.getFields(Derived.class).isEmpty());
+    }
+
+    @Test
+    public void testAccessors() throws NoSuchMethodException {
+        Assert.assertEquals(ReflectionUtils.getGetterMethod(Derived.class, "name"), Derived.class.getMethod("getName"));
+        Assert.assertEquals(ReflectionUtils.getGetterMethod(Derived.class, "ACTIVE"), Derived.class.getMethod("isActive"));
+        Assert.assertNull(ReflectionUtils.getGetterMethod(Derived.class, "missing"));
+
+        Assert.assertEquals(ReflectionUtils.getSetterMethod(Base.class, "count"), Base.class.getMethod("setCount", int.class));
+        Assert.assertEquals(ReflectionUtils.getSetterMethod(Derived.class, "count", String.class),
+                Derived.class.getMethod("setCount", String.class));
+        Assert.assertEquals(ReflectionUtils.getSetterMethod(Derived.class, "count", int.class), Base.class.getMethod("setCount", int.class));
+        Assert.assertNull(ReflectionUtils.getSetterMethod(Derived.class, "count", Long.class));
+        Assert.assertNull(ReflectionUtils.getSetterMethod(Derived.class, "missing"));
+
+        final Map<String, Method> getters = ReflectionUtils.getPropertyGetterMap(Derived.class);
+        Assert.assertEquals(getters.get("name").getDeclaringClass(), Derived.class);
+        Assert.assertEquals(getters.get("active"), Derived.class.getMethod("isActive"));
+        getters.clear();
+        Assert.assertFalse(ReflectionUtils.getPropertyGetterMap(Derived.class).isEmpty());
+    }
+
+    @Test
+    public void testAnnotations() throws NoSuchFieldException, NoSuchMethodException {
+        Assert.assertEquals(ReflectionUtils.getFieldsWithAnnotation(Derived.class, Marker.class),
+                Arrays.asList(Base.class.getDeclaredField("name"), Derived.class.getDeclaredField("active")));
+        Assert.assertEquals(ReflectionUtils.getFieldsWithoutAnnotation(Derived.class, Marker.class),
+                Arrays.asList(Base.class.getDeclaredField("count"), Derived.class.getDeclaredField("NAME")));
+        Assert.assertEquals(ReflectionUtils.getMethodsWithAnnotation(Derived.class, Marker.class),
+                Arrays.asList(Derived.class.getMethod("getCount")));
+        Assert.assertFalse(ReflectionUtils.getMethodsWithoutAnnotation(Derived.class, Marker.class).contains(Derived.class.getMethod("getCount")));
+
+        final List<Field> marked = ReflectionUtils.getFieldsWithAnnotation(Derived.class, Marker.class);
+        marked.clear();
+        Assert.assertEquals(ReflectionUtils.getFieldsWithAnnotation(Derived.class, Marker.class).size(), 2);
+    }
+}
@@ -0,0 +1,155 @@
+package com.development.commons.tools.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TurboProxyTest {
+
+    public interface Dao {
+        String find(long id);
+
+        String find(String name);
+
+        int count();
+    }
+
+    public interface Named {
+        String find(String name);
+
+        String getName();
+    }
+
+    public static class SampleDao implements Dao, Named {
+        private final String name;
+
+        public SampleDao(final String name) {
+            this.name = name;
+        }
+
+        public String find(final long id) {
+            return name + "#" + id;
+        }
+
+        public String find(final String key) {
+            return name + ":" + key;
+        }
+
+        public int count() {
+            return 3;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof SampleDao && name.equals(((SampleDao) obj).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "SampleDao[" + name + "]";
+        }
+    }
+
+    /**
+     * Delegates to the target through the proxy methods, counting the calls
+     */
+    private static class CountingHandler implements TurboProxy.IndexedInvocationHandler {
+        private final Object target;
+
+        private final Method[] methods;
+
+        private final int[] calls;
+
+        CountingHandler(final Object target) {
+            this.target = target;
+            this.methods = TurboProxy.getProxyMethods(target.getClass());
+            this.calls = new int[methods.length];
+        }
+
+        public Object invoke(final Object proxy, final int index, final Method method, final Object[] args) throws Throwable {
+            ++calls[index];
+            try {
+                return methods[index].invoke(target, args);
+            } catch (final InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @Test
+    public void testMethodIndexes() throws NoSuchMethodException {
+        final Method[] methods = TurboProxy.getProxyMethods(SampleDao.class);
+        Assert.assertEquals(methods.length, 7);
+        Assert.assertEquals(methods[TurboProxy.EQUALS_INDEX].getName(), "equals");
+        Assert.assertEquals(methods[TurboProxy.HASH_CODE_INDEX].getName(), "hashCode");
+        Assert.assertEquals(methods[TurboProxy.TO_STRING_INDEX].getName(), "toString");
+        for (int i = 0; i < methods.length; ++i) {
+            Assert.assertEquals(TurboProxy.getMethodIndex(SampleDao.class, methods[i]), i);
+        }
+
+        // a method declared by both interfaces has one index
+        Assert.assertEquals(TurboProxy.getMethodIndex(SampleDao.class, Named.class.getMethod("find", String.class)),
+                TurboProxy.getMethodIndex(SampleDao.class, Dao.class.getMethod("find", String.class)));
+        Assert.assertEquals(TurboProxy.getMethodIndex(SampleDao.class, Runnable.class.getMethod("run")), -1);
+    }
+
+    @Test
+    public void testIndexedDispatch() throws NoSuchMethodException {
+        final SampleDao target = new SampleDao("dao");
+        final CountingHandler handler = new CountingHandler(target);
+        final Object proxy = TurboProxy.newIndexedProxyInstance(target, handler);
+
+        final Dao dao = (Dao) proxy;
+        Assert.assertEquals(dao.find(7L), "dao#7");
+        Assert.assertEquals(dao.find("x"), "dao:x");
+        Assert.assertEquals(((Named) proxy).find("y"), "dao:y");
+        Assert.assertEquals(dao.count(), 3);
+        Assert.assertEquals(((Named) proxy).getName(), "dao");
+
+        Assert.assertEquals(handler.calls[TurboProxy.getMethodIndex(SampleDao.class, Dao.class.getMethod("find", String.class))], 2);
+        Assert.assertEquals(handler.calls[TurboProxy.getMethodIndex(SampleDao.class, Dao.class.getMethod("find", long.class))], 1);
+    }
+
+    @Test
+    public void testObjectMethods() {
+        final SampleDao target = new SampleDao("dao");
+        final CountingHandler handler = new CountingHandler(target);
+        final Object proxy = TurboProxy.newIndexedProxyInstance(target, handler);
+
+        Assert.assertEquals(proxy.toString(), "SampleDao[dao]");
+        Assert.assertEquals(proxy.hashCode(), target.hashCode());
+        Assert.assertTrue(proxy.equals(proxy));
+        Assert.assertTrue(proxy.equals(new SampleDao("dao")));
+        Assert.assertTrue(proxy.equals(TurboProxy.newIndexedProxyInstance(new SampleDao("dao"), handler)));
+        Assert.assertFalse(proxy.equals(TurboProxy.newIndexedProxyInstance(new SampleDao("other"), handler)));
+        Assert.assertFalse(proxy.equals(null));
+
+        // answered without the handler
+        Assert.assertEquals(handler.calls[TurboProxy.EQUALS_INDEX], 0);
+        Assert.assertEquals(handler.calls[TurboProxy.HASH_CODE_INDEX], 0);
+        Assert.assertEquals(handler.calls[TurboProxy.TO_STRING_INDEX], 0);
+    }
+
+    @Test
+    public void testPlainHandler() {
+        final Object proxy = TurboProxy.newProxyInstance(new SampleDao("dao"), new InvocationHandler() {
+            public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                return method.getName();
+            }
+        });
+        Assert.assertEquals(((Dao) proxy).find(1L), "find");
+        Assert.assertEquals(proxy.toString(), "toString");
+    }
+}
@@ -0,0 +1,57 @@
+package com.development.commons.tools.util.html;
+
+import java.text.ParseException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CSSStyleParserTest {
+
+    @Test
+    public void testValues() throws ParseException {
+        Assert.assertEquals(values("color: #ABC; background: rgb(10%, 128, 300) url( 'a\\'b.png' ) !important"),
+                "color: #aabbcc; background: #1980ff url('a\\'b.png') !important");
+        Assert.assertEquals(values("margin: -1.5PX 0 .25em 12%; font-family: 'Times New Roman', serif"),
+                "margin: -1.5PX 0.0 0.25em 12%; font-family: 'Times New Roman', serif");
+        Assert.assertEquals(values("background: URL(a\\41 b.png)"), "background: url('aAb.png')");
+    }
+
+    @Test
+    public void testErrors() {
+        for (final String style : new String[] { "color red", "color: #12", "color: #123456789", "color: 'open", "x: !imp", "color: ?" }) {
+            try {
+                values(style);
+                Assert.fail(style);
+            } catch (final ParseException expected) {
+                // expected
+            }
+        }
+    }
+
+    private static String values(final String style) throws ParseException {
+        final StringBuilder out = new StringBuilder();
+        new CSSStyleParser(style) {
+            @Override
+            protected void declaration(final String name) {
+                out.append(out.length() == 0 ? "" : "; ").append(name).append(':');
+            }
+
+            @Override
+            protected void value(final String str) {
+                out.append(' ').append(str);
+            }
+
+            @Override
+            protected void comma() {
+                out.append(',');
+            }
+
+            @Override
+            protected void important() {
+                out.append(" !important");
+            }
+        }.parse();
+        return out.toString();
+    }
+
+}
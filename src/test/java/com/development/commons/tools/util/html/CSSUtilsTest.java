@@ -0,0 +1,43 @@
+package com.development.commons.tools.util.html;
+
+import java.awt.Color;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CSSUtilsTest {
+
+    @Test
+    public void testDeclarations() {
+        final CSSDeclarations decls = CSSUtils.getDeclarations("Color: red; font: 12PX 'Arial', serif !important; color: #00f");
+        Assert.assertTrue(decls.isValid());
+        Assert.assertEquals(decls.size(), 3);
+        Assert.assertEquals(decls.getName(0), "Color");
+        Assert.assertEquals(decls.getColor("COLOR"), new Color(0x0000ff));
+        Assert.assertTrue(decls.isImportant("font"));
+
+        final List<CSSDeclarations.Value> font = decls.getValues("font");
+        Assert.assertEquals(font.get(0).getKind(), CSSDeclarations.Value.LENGTH);
+        Assert.assertEquals(font.get(0).getNumber(), 12f);
+        Assert.assertEquals(font.get(0).getUnits(), "PX");
+        Assert.assertEquals(font.get(1).getString(), "Arial");
+        Assert.assertEquals(CSSUtils.getPropertyValue("font: 12PX 'Arial', serif", "font"), "12.0PX 'Arial', serif");
+        Assert.assertNull(CSSUtils.getPropertyValue("font: 12PX", "color"));
+
+        // cached and shared
+        Assert.assertSame(CSSUtils.getDeclarations("Color: red; font: 12PX 'Arial', serif !important; color: #00f"), decls);
+
+        final CSSDeclarations invalid = CSSUtils.getDeclarations("color: red; width 10px");
+        Assert.assertFalse(invalid.isValid());
+        Assert.assertEquals(invalid.getColor("color"), new Color(0xff0000));
+    }
+
+    @Test
+    public void testBackgroundColor() {
+        Assert.assertEquals(CSSUtils.extractBackgroundColorFromStyle("background: url(x.png) navy no-repeat"), new Color(0x000080));
+        Assert.assertEquals(CSSUtils.extractBackgroundColorFromStyle("BACKGROUND-COLOR: #123; background: white"), Color.WHITE);
+        Assert.assertNull(CSSUtils.extractBackgroundColorFromStyle("color: red"));
+        Assert.assertNull(CSSUtils.extractBackgroundColorFromStyle("background: red;;;"));
+    }
+}
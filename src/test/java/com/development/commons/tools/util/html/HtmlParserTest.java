@@ -0,0 +1,180 @@
+package com.development.commons.tools.util.html;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class HtmlParserTest {
+
+    private static final String HTML = "<div class=\"a\" style='color: red' disabled id=x>Hello &amp; <b>world</b>&#65;&#x42;"
+            + "<!-- comment --><br/><table><tr><td>1<td>2</tr></table><a href=foo&amp;bar>link</A><i>unclosed";
+
+    @Test
+    public void testIncrementalParsingMatchesStringParsing() {
+        final String expected = dump(new HtmlParser(HTML));
+        for (final int windowSize : new int[] { 1, 2, 7, 64 }) {
+            Assert.assertEquals(dump(new HtmlParser(new StringReader(HTML), windowSize)), expected, "window " + windowSize);
+        }
+        Assert.assertEquals(dump(new HtmlParser((CharSequence) new StringBuilder(HTML))), expected);
+    }
+
+    @Test
+    public void testLongTextIsSplitAtWindowBoundary() {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; ++i) {
+            text.append("lorem ipsum ");
+        }
+        final HtmlParser parser = new HtmlParser(new StringReader("<p>" + text + "</p>"), 256);
+        Assert.assertEquals(parser.next(), HtmlParser.START_TAG);
+
+        final StringBuilder collected = new StringBuilder();
+        int events = 0;
+        int type;
+        while ((type = parser.next()) == HtmlParser.TEXT) {
+            collected.append(parser.getText());
+            ++events;
+        }
+        Assert.assertEquals(type, HtmlParser.END_TAG);
+        Assert.assertEquals(collected.toString(), text.toString());
+        Assert.assertTrue(events > 1);
+    }
+
+    @Test
+    public void testTagIds() {
+        for (int id = 1; id < HtmlTags.count(); ++id) {
+            final String name = HtmlTags.getName(id);
+            Assert.assertEquals(HtmlTags.lookup(name), id, name);
+            Assert.assertEquals(HtmlTags.lookup(name.toLowerCase().toCharArray(), 0, name.length()), id, name);
+        }
+        Assert.assertEquals(HtmlTags.lookup("hq"), HtmlTags.UNKNOWN);
+        Assert.assertEquals(HtmlTags.lookup("o:p"), HtmlTags.UNKNOWN);
+
+        final HtmlParser parser = new HtmlParser("<Td><o:p>x</O:P></tD>");
+        Assert.assertEquals(parser.next(), HtmlParser.START_TAG);
+        Assert.assertEquals(parser.getTagId(), HtmlTags.TD);
+        Assert.assertEquals(parser.next(), HtmlParser.START_TAG);
+        Assert.assertEquals(parser.getTagId(), HtmlTags.UNKNOWN);
+        Assert.assertEquals(parser.next(), HtmlParser.TEXT);
+        Assert.assertEquals(parser.next(), HtmlParser.END_TAG);
+        Assert.assertEquals(parser.getName(), "O:P");
+        Assert.assertEquals(parser.next(), HtmlParser.END_TAG);
+        Assert.assertEquals(parser.getName(), "tD");
+        Assert.assertEquals(parser.getTagId(), HtmlTags.TD);
+        Assert.assertEquals(parser.next(), HtmlParser.EOF);
+    }
+
+    @Test
+    public void testEntities() {
+        Assert.assertEquals(HtmlParser.decodeNamedEntity("nbsp"), Character.valueOf('\u00a0'));
+        Assert.assertEquals(HtmlParser.decodeNamedEntity("euro"), Character.valueOf('€'));
+        Assert.assertNull(HtmlParser.decodeNamedEntity("nbs"));
+        Assert.assertNull(HtmlParser.decodeNamedEntity("nbspx"));
+        Assert.assertNull(HtmlParser.decodeNamedEntity(""));
+
+        Assert.assertEquals(text("a&nbsp;&amp;&lt;&Eacute;&eacute;&hellip;b"), "a\u00a0&<Éé…b");
+        Assert.assertEquals(text("&#65;&#x42;&#X43;&#128512;&#x1F600;"), "ABC😀😀");
+        Assert.assertEquals(text("&#; &#x; &nbs; &nbsp &amp"), "&#; &#x &nbs &nbsp &amp");
+    }
+
+    @Test
+    public void testSpanMode() {
+        final HtmlParser parser = new HtmlParser("<P Class='a&amp;b' disabled>x &lt; y</p>");
+        parser.setSpanMode(true);
+
+        Assert.assertEquals(parser.next(), HtmlParser.START_TAG);
+        Assert.assertEquals(span(parser.getNameBuffer(), parser.getNameStart(), parser.getNameLength()), "P");
+        Assert.assertEquals(parser.getAttributeCount(), 2);
+        final char[] buf = parser.getBuffer();
+        Assert.assertEquals(span(buf, parser.getAttributeNameStart(0), parser.getAttributeNameLength(0)), "Class");
+        Assert.assertEquals(span(buf, parser.getAttributeValueStart(0), parser.getAttributeValueLength(0)), "a&amp;b");
+        Assert.assertEquals(parser.getAttributeValue(0), "a&b");
+        Assert.assertEquals(parser.getAttributeValueLength(1), -1);
+        Assert.assertNull(parser.getAttributeValue(1));
+
+        Assert.assertEquals(parser.next(), HtmlParser.TEXT);
+        Assert.assertEquals(span(parser.getBuffer(), parser.getTextStart(), parser.getTextLength()), "x &lt; y");
+        final StringBuilder text = new StringBuilder();
+        parser.appendText(text);
+        Assert.assertEquals(text.toString(), "x < y");
+
+        Assert.assertEquals(parser.next(), HtmlParser.END_TAG);
+        Assert.assertEquals(parser.getName(), "p");
+        Assert.assertEquals(parser.next(), HtmlParser.EOF);
+
+        final String expected = dump(new HtmlParser(HTML));
+        for (final int windowSize : new int[] { 1, 3, 64 }) {
+            final HtmlParser spans = new HtmlParser(new StringReader(HTML), windowSize);
+            spans.setSpanMode(true);
+            Assert.assertEquals(dump(spans), expected, "window " + windowSize);
+        }
+    }
+
+    @Test
+    public void testResetAndPool() {
+        final StringBuilder large = new StringBuilder();
+        while (large.length() <= HtmlParser.DEFAULT_WINDOW_SIZE * 3) {
+            large.append(HTML);
+        }
+        final List<String> documents = Arrays.asList(HTML, "<p>x", large.toString(), "", HTML.toUpperCase());
+
+        final HtmlParser parser = new HtmlParser("<b><i>unfinished");
+        parser.next();
+        parser.next();
+        for (final String document : documents) {
+            parser.reset(document);
+            Assert.assertEquals(dump(parser), dump(new HtmlParser(document)));
+        }
+
+        final HtmlParserPool pool = new HtmlParserPool(2);
+        final List<String> dumps = pool.parseAll(documents, HtmlParserTest::dump);
+        Assert.assertEquals(dumps.size(), documents.size());
+        for (int i = 0; i < documents.size(); ++i) {
+            Assert.assertEquals(dumps.get(i), dump(new HtmlParser(documents.get(i))));
+        }
+        Assert.assertTrue(pool.size() <= 2);
+    }
+
+    private static String span(final char[] buf, final int start, final int length) {
+        return new String(buf, start, length);
+    }
+
+    private static String text(final String html) {
+        final HtmlParser parser = new HtmlParser(html);
+        Assert.assertEquals(parser.next(), HtmlParser.TEXT);
+        return parser.getText();
+    }
+
+    /**
+     * Renders the events of a parser, merging consecutive TEXT events.
+     */
+    static String dump(final HtmlParser parser) {
+        final StringBuilder out = new StringBuilder();
+        boolean inText = false;
+        for (int type; (type = parser.next()) != HtmlParser.EOF;) {
+            if (type == HtmlParser.TEXT) {
+                out.append(inText ? "" : "\nTEXT ").append(parser.getText());
+                inText = true;
+                continue;
+            }
+            inText = false;
+            switch (type) {
+            case HtmlParser.START_TAG:
+                out.append("\nSTART ").append(parser.getName());
+                for (int i = 0; i < parser.getAttributeCount(); ++i) {
+                    out.append(' ').append(parser.getAttributeName(i)).append('=').append(parser.getAttributeValue(i));
+                }
+                break;
+            case HtmlParser.END_TAG:
+                out.append("\nEND ").append(parser.getName());
+                break;
+            default:
+                out.append('\n').append(type).append(' ').append(parser.getText());
+            }
+        }
+        return out.toString();
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.development.commons.tools.util.html;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class HtmlSanitizerTest {
+
+    private static final HtmlSanitizer SANITIZER = new HtmlSanitizer(
+            Arrays.asList("p", "b", "i", "a", "br", "span", "table", "tr", "td"),
+            Arrays.asList("href", "style", "title", "colspan"),
+            Arrays.asList("color", "font-weight", "text-align"));
+
+    @Test
+    public void testTagsAndAttributes() {
+        Assert.assertEquals(SANITIZER.sanitize("<P Title=\"x &amp; &quot;y&quot;\" onclick='evil()'>a &lt; b<br/><u>c</u></p>"),
+                "<p title=\"x &amp; &quot;y&quot;\">a &lt; b<br>c</p>");
+        Assert.assertEquals(SANITIZER.sanitize("x<script>alert(1)</script><style>p{}</style>y<!-- c -->"), "xy");
+        Assert.assertEquals(SANITIZER.sanitize("<td colspan=2 nowrap>1 & 2"), "<td colspan=\"2\">1 &amp; 2</td>");
+    }
+
+    @Test
+    public void testUrls() {
+        Assert.assertEquals(SANITIZER.sanitize("<a href='http://x/?a=1&amp;b=2'>l</a>"), "<a href=\"http://x/?a=1&amp;b=2\">l</a>");
+        Assert.assertEquals(SANITIZER.sanitize("<a href='foo/bar:baz'>l</a>"), "<a href=\"foo/bar:baz\">l</a>");
+        Assert.assertEquals(SANITIZER.sanitize("<a href='java\tscript:alert(1)'>l</a>"), "<a>l</a>");
+        Assert.assertEquals(SANITIZER.sanitize("<a href='&#106;avascript:alert(1)'>l</a>"), "<a>l</a>");
+        Assert.assertTrue(HtmlSanitizer.isAllowedUrl("MAILTO:me@example.com"));
+        Assert.assertFalse(HtmlSanitizer.isAllowedUrl("verylongscheme:x"));
+    }
+
+    @Test
+    public void testStyles() {
+        Assert.assertEquals(SANITIZER.sanitize("<span style=\"COLOR: red; position: absolute; font-weight: bold !important\">s</span>"),
+                "<span style=\"color: red; font-weight: bold !important;\">s</span>");
+        Assert.assertEquals(SANITIZER.sanitize("<span style=\"color: url(x.png)\">s</span>"), "<span>s</span>");
+        Assert.assertEquals(SANITIZER.sanitize("<span style=\"color: expression(alert(1))\">s</span>"), "<span>s</span>");
+    }
+
+    @Test
+    public void testSanitizeAll() {
+        final List<String> documents = Arrays.asList("<b onclick=x>1</b>", "<i>2", "<script>3</script>");
+        Assert.assertEquals(SANITIZER.sanitizeAll(documents, new HtmlParserPool(4)), Arrays.asList("<b>1</b>", "<i>2</i>", ""));
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.development.commons.tools.util.xml;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class XMLUnescapingReaderTest {
+
+    @Test
+    public void testPredefinedEntities() throws IOException {
+        Assert.assertEquals(unescape("a &lt;b&gt; &amp;amp; &apos;c&apos; &quot;d&quot;"), "a <b> &amp; 'c' \"d\"");
+    }
+
+    @Test
+    public void testCharacterReferences() throws IOException {
+        Assert.assertEquals(unescape("&#34;&#39;&#x41;&#X42;&#0067;"), "\"'ABC");
+        Assert.assertEquals(unescape("&#x1F600;"), "😀");
+        // invalid characters are discarded like the escapers do
+        Assert.assertEquals(unescape("a&#0;b&#xD800;c&#xFFFE;d&#x110000;e"), "abcde");
+    }
+
+    @Test
+    public void testUnknownReferencesPassThrough() throws IOException {
+        Assert.assertEquals(unescape("&nbsp; & &#; &#x; &#12a; R&D"), "&nbsp; & &#; &#x; &#12a; R&D");
+        Assert.assertEquals(unescape("&averyveryverylongname; &"), "&averyveryverylongname; &");
+    }
+
+    @Test
+    public void testSurrogatesAndControlCharacters() throws IOException {
+        Assert.assertEquals(unescape("a😀b"), "a😀b");
+        Assert.assertEquals(unescape("a\uD83Db\uDE00c\uD83D"), "abc");
+        Assert.assertEquals(unescape("a\u0001\tb\r\nc\uFFFF"), "a\tb\r\nc");
+    }
+
+    @Test
+    public void testMatchesEscapeContentAcrossBufferBoundaries() throws IOException {
+        final StringBuilder src = new StringBuilder();
+        for (int i = 0; i < 500; ++i) {
+            src.append("x<y & \"z\" 😀 ").append(i);
+        }
+        final String escaped = XMLUtils.escapeContent(src.toString());
+        final Reader reader = new XMLUnescapingReader(new StringReader(escaped), XMLUnescapingReader.MAX_REFERENCE_LENGTH);
+        final StringBuilder out = new StringBuilder();
+        final char[] buf = new char[7];
+        for (int n; (n = reader.read(buf, 0, buf.length)) != -1;) {
+            out.append(buf, 0, n);
+        }
+        Assert.assertEquals(out.toString(), src.toString());
+    }
+
+    private static String unescape(final String src) throws IOException {
+        final Reader reader = XMLUtils.newUnescapingReader(new StringReader(src));
+        final StringBuilder out = new StringBuilder();
+        for (int c; (c = reader.read()) != -1;) {
+            out.append((char) c);
+        }
+        return out.toString();
+    }
+
+}
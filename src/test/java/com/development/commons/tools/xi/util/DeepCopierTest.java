@@ -0,0 +1,275 @@
+package com.development.commons.tools.xi.util;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DeepCopierTest {
+
+    public static class Node implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String name;
+
+        int weight;
+
+        final BigDecimal amount;
+
+        Date created = new Date(1000);
+
+        Node next;
+
+        List<Node> children = new ArrayList<Node>();
+
+        Map<String, Object> attributes = new HashMap<String, Object>();
+
+        long[] values;
+
+        transient Object cache = "cached";
+
+        Node() {
+            this(null, BigDecimal.ZERO);
+        }
+
+        Node(final String name, final BigDecimal amount) {
+            this.name = name;
+            this.amount = amount;
+        }
+    }
+
+    /**
+     * Has a readObject, so it is copied by serialization.
+     */
+    public static class Custom implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String value;
+
+        transient boolean restored;
+
+        private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            restored = true;
+        }
+    }
+
+    public static class Opaque {
+    }
+
+    public static class Parent implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        Map<String, Child> byName = new LinkedHashMap<String, Child>();
+
+        List<Child> children = new ArrayList<Child>();
+
+        Object extra;
+    }
+
+    public static class Child implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        static int constructed;
+
+        Parent parent;
+
+        Child() {
+            ++constructed;
+        }
+    }
+
+    enum Color {
+        RED, GREEN
+    }
+
+    @Test
+    public void testCopy() {
+        final Node root = new Node("root", new BigDecimal("1.5"));
+        root.weight = 7;
+        root.values = new long[] { 1, 2, 3 };
+        final Node child = new Node("child", BigDecimal.ONE);
+        child.next = root;
+        root.next = child;
+        root.children.add(child);
+        root.children.add(child);
+        root.attributes.put("self", root);
+        root.attributes.put("sorted", new TreeSet<String>(Collections.reverseOrder()));
+
+        final Node copy = (Node) ClassUtils.deepCopy(root);
+        Assert.assertNotSame(copy, root);
+        Assert.assertEquals(copy.name, "root");
+        Assert.assertEquals(copy.weight, 7);
+        Assert.assertSame(copy.amount, root.amount);
+        Assert.assertEquals(copy.created, root.created);
+        Assert.assertNotSame(copy.created, root.created);
+        Assert.assertEquals(copy.values, root.values);
+        Assert.assertNotSame(copy.values, root.values);
+        Assert.assertNull(copy.cache);
+
+        // cycles and shared references are kept
+        Assert.assertNotSame(copy.next, child);
+        Assert.assertSame(copy.next.next, copy);
+        Assert.assertSame(copy.children.get(0), copy.next);
+        Assert.assertSame(copy.children.get(1), copy.next);
+        Assert.assertSame(copy.attributes.get("self"), copy);
+
+        @SuppressWarnings("unchecked")
+        final TreeSet<String> sorted = (TreeSet<String>) copy.attributes.get("sorted");
+        sorted.add("a");
+        sorted.add("b");
+        Assert.assertEquals(sorted.first(), "b");
+
+        Assert.assertNull(ClassUtils.deepCopy(null));
+    }
+
+    @Test
+    public void testSharedAcrossCollections() {
+        final Parent parent = new Parent();
+        final Child child = new Child();
+        child.parent = parent;
+        parent.byName.put("child", child);
+        parent.children.add(child);
+        final Map<Color, Object> colors = new EnumMap<Color, Object>(Color.class);
+        colors.put(Color.RED, child);
+        final BigDecimal amount = new BigDecimal("2.5");
+        parent.extra = Arrays.<Object> asList(colors, EnumSet.of(Color.GREEN), parent, amount);
+
+        final int constructed = Child.constructed;
+        final Parent copy = (Parent) ClassUtils.deepCopy(parent);
+        // created the way deserialization does, without running the constructor
+        Assert.assertEquals(Child.constructed, constructed);
+
+        final Child childCopy = copy.children.get(0);
+        Assert.assertNotSame(childCopy, child);
+        Assert.assertSame(copy.byName.get("child"), childCopy);
+        Assert.assertSame(childCopy.parent, copy);
+        Assert.assertTrue(copy.byName instanceof LinkedHashMap);
+
+        final List<?> extra = (List<?>) copy.extra;
+        Assert.assertEquals(extra.getClass(), Arrays.asList().getClass());
+        Assert.assertSame(((Map<?, ?>) extra.get(0)).get(Color.RED), childCopy);
+        Assert.assertEquals(extra.get(1), EnumSet.of(Color.GREEN));
+        Assert.assertSame(extra.get(2), copy);
+        // copied field by field, not serialized
+        Assert.assertSame(extra.get(3), amount);
+    }
+
+    @Test
+    public void testSharedWithSerializedObject() {
+        // the unmodifiable list and Custom need serialization, so the whole graph is serialized
+        final Parent parent = new Parent();
+        final Child child = new Child();
+        child.parent = parent;
+        parent.byName.put("child", child);
+        final Custom custom = new Custom();
+        custom.value = "custom";
+        parent.extra = Collections.unmodifiableList(Arrays.<Object> asList(child, custom));
+
+        final Parent copy = (Parent) ClassUtils.deepCopy(parent);
+        final Child childCopy = copy.byName.get("child");
+        Assert.assertNotSame(childCopy, child);
+        Assert.assertSame(((List<?>) copy.extra).get(0), childCopy);
+        Assert.assertSame(childCopy.parent, copy);
+
+        final Custom customCopy = (Custom) ((List<?>) copy.extra).get(1);
+        Assert.assertEquals(customCopy.value, "custom");
+        Assert.assertTrue(customCopy.restored);
+    }
+
+    @Test
+    public void testJdkClasses() {
+        // JDK classes without serialization methods are serialized too, their fields being closed to reflection
+        final Parent parent = new Parent();
+        final Child child = new Child();
+        child.parent = parent;
+        parent.children.add(child);
+        parent.extra = Arrays.<Object> asList(new AtomicInteger(5), new AbstractMap.SimpleEntry<String, Object>("k", child));
+
+        final Parent copy = (Parent) ClassUtils.deepCopy(parent);
+        final List<?> extra = (List<?>) copy.extra;
+        Assert.assertEquals(((AtomicInteger) extra.get(0)).get(), 5);
+        final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) extra.get(1);
+        Assert.assertEquals(entry.getKey(), "k");
+        Assert.assertSame(entry.getValue(), copy.children.get(0));
+        Assert.assertSame(copy.children.get(0).parent, copy);
+
+        Assert.assertEquals(((AtomicInteger) ClassUtils.deepCopy(new AtomicInteger(7))).get(), 7);
+    }
+
+    @Test
+    public void testAccessOrder() {
+        final LinkedHashMap<String, Integer> lru = new LinkedHashMap<String, Integer>(16, 0.75f, true);
+        lru.put("a", 1);
+        lru.put("b", 2);
+        lru.get("a");
+
+        @SuppressWarnings("unchecked")
+        final LinkedHashMap<String, Integer> copy = (LinkedHashMap<String, Integer>) ClassUtils.deepCopy(lru);
+        Assert.assertEquals(new ArrayList<String>(copy.keySet()), Arrays.asList("b", "a"));
+        copy.get("b");
+        Assert.assertEquals(new ArrayList<String>(copy.keySet()), Arrays.asList("a", "b"));
+    }
+
+    @Test
+    public void testNotSerializable() {
+        final Node node = new Node();
+        node.attributes.put("opaque", new Opaque());
+        try {
+            ClassUtils.deepCopy(node);
+            Assert.fail();
+        } catch (final RuntimeException e) {
+            Assert.assertTrue(e.getCause() instanceof NotSerializableException);
+            Assert.assertEquals(e.getCause().getMessage(), Opaque.class.getName());
+        }
+    }
+
+    @Test
+    public void testParallelCopy() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final Node shared = new Node("shared", BigDecimal.TEN);
+            final List<Object> list = new ArrayList<Object>();
+            for (int i = 0; i < 5000; i++) {
+                final Node node = new Node("n" + i, BigDecimal.ONE);
+                node.next = shared;
+                node.weight = i;
+                list.add(node);
+            }
+            list.add(list);
+
+            final DeepCopier copier = new DeepCopier(pool, 100);
+            @SuppressWarnings("unchecked")
+            final List<Object> copy = copier.copy(list);
+            Assert.assertEquals(copy.size(), list.size());
+            Assert.assertSame(copy.get(5000), copy);
+            final Node sharedCopy = ((Node) copy.get(0)).next;
+            Assert.assertNotSame(sharedCopy, shared);
+            for (int i = 0; i < 5000; i++) {
+                final Node node = (Node) copy.get(i);
+                Assert.assertEquals(node.weight, i);
+                Assert.assertSame(node.next, sharedCopy);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}